@@ -1,6 +1,7 @@
 package gg.boosted.dal
 
 import gg.boosted.posos.{BoostedSummoner, LoLScore, SummonerId}
+import gg.boosted.riotapi.throttlers.Priority
 import gg.boosted.riotapi.{Platform, RiotApi}
 import org.apache.spark.sql.Dataset
 
@@ -28,7 +29,7 @@ object LoLScores {
             unknownScores.groupBy(_.platform).par.foreach(tuple => {
                 val platform = tuple._1
                 val ids = tuple._2
-                val api = new RiotApi(platform)
+                val api = RiotApi.forPlatform(platform).withPriority(Priority.INTERACTIVE)
 
                 ids.map(_.id).foreach { id =>
                   val position = api.getLeaguePosition(id)
@@ -1,11 +1,14 @@
 package gg.boosted.dal
 
 import gg.boosted.posos.{SummonerMatchId, SummonerMatchSummary}
+import gg.boosted.riotapi.throttlers.Priority
 import gg.boosted.riotapi.{Platform, RiotApi}
 import gg.boosted.utils.JsonUtil
 import org.apache.spark.sql.DataFrame
 import org.slf4j.LoggerFactory
 
+import scala.collection.JavaConverters._
+
 /**
   * Created by ilan on 1/15/17.
   */
@@ -51,17 +54,21 @@ object SummonerMatches {
                     log.debug(s"Retrieving ${matches.size} matches for ${summoners.size} summoners in '${regionGroup._1.toString}'")
                 }
 
-                regionGroup._2.groupBy(_.matchId).foreach(tuple => {
-                    val matchId = tuple._1
-                    val summonerIds = tuple._2.map(_.summonerId)
-                    val region = regionGroup._1
-                    val api = new RiotApi(region)
-                    val fullMatch = api.getMatchTimeline(matchId)
-
-                    summonerIds.foreach(summoner => {
-                        val sms = SummonerMatchSummary(summoner, fullMatch)
-                        RedisStore.addSummonerMatch(summoner, matchId, region.toString, JsonUtil.toJson(sms))
-                    })
+                val region = regionGroup._1
+                val api = RiotApi.forPlatform(region).withPriority(Priority.BACKFILL)
+                val summonersByMatch = regionGroup._2.groupBy(_.matchId).mapValues(_.map(_.summonerId))
+
+                //Fetch them all in one go, they come back as they arrive
+                api.getMatchTimelines(summonersByMatch.keys.map(Long.box).asJavaCollection).asScala.foreach(result => {
+                    val matchId = result.id
+                    if (result.isOk) {
+                        summonersByMatch(matchId).foreach(summoner => {
+                            val sms = SummonerMatchSummary(summoner, result.value)
+                            RedisStore.addSummonerMatch(summoner, matchId, region.toString, JsonUtil.toJson(sms))
+                        })
+                    } else {
+                        log.warn(s"Could not get match ${matchId} at ${region.toString} (${result.status})", result.error)
+                    }
                 })
             })
         })
@@ -1,6 +1,7 @@
 package gg.boosted.dal
 
 import gg.boosted.posos.{BoostedSummoner, SummonerId}
+import gg.boosted.riotapi.throttlers.Priority
 import gg.boosted.riotapi.{Platform, RiotApi}
 import org.apache.spark.sql.Dataset
 
@@ -30,7 +31,7 @@ object SummonerNames {
             unknownNames.groupBy(_.platform).par.foreach(tuple => {
                 val region = tuple._1
                 val ids = tuple._2
-                val api = new RiotApi(region)
+                val api = RiotApi.forPlatform(region).withPriority(Priority.INTERACTIVE)
                 api.getSummonerNamesByIds(ids.map(_.id).toList.map(Long.box):_*).asScala.foreach(
                     mapping => RedisStore.addSummonerName(SummonerId(mapping._1, region), mapping._2))
             })
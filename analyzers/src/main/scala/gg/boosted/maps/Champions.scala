@@ -1,6 +1,7 @@
 package gg.boosted.maps
 
-import gg.boosted.riotapi.{Platform, RiotApi}
+import gg.boosted.riotapi.Platform
+import gg.boosted.riotapi.staticdata.StaticDataStore
 import org.slf4j.{Logger, LoggerFactory}
 
 /**
@@ -12,12 +13,10 @@ object Champions {
 
     var champions = collection.mutable.HashMap.empty[Int, String]
 
-    val riotApi = new RiotApi(Platform.EUW)
-
     def populateMap(): Unit = {
         import collection.JavaConverters._
 
-        riotApi.getChampionsList.asScala.foreach(champ => champions(champ.id) = champ.name)
+        StaticDataStore.get(Platform.EUW1).champions.asScala.foreach(champ => champions(champ.id) = champ.name)
     }
 
     def populateMapIfEmpty(): Unit = {
@@ -30,8 +29,8 @@ object Champions {
         champions.get(id) match {
             case Some(name) => name
             case None =>
-                log.debug("Champion id {} not found. Downloading from riot..", id)
-                //We can't find the id, load it from riot
+                log.debug("Champion id {} not found. Reloading static data..", id)
+                //We can't find the id, maybe there's a new version (riot is only asked if the version check is due)
                 populateMap()
                 champions.get(id).getOrElse("UNKNOWN CHAMPION")
         }
@@ -2,7 +2,8 @@ package gg.boosted.maps
 
 import gg.boosted.Application
 import gg.boosted.riotapi.dtos.Item
-import gg.boosted.riotapi.{Platform, RiotApi}
+import gg.boosted.riotapi.Platform
+import gg.boosted.riotapi.staticdata.StaticDataStore
 import org.apache.spark.broadcast.Broadcast
 import org.slf4j.{Logger, LoggerFactory}
 
@@ -24,7 +25,7 @@ object Items {
 
     def populateAndBroadcast():Unit = {
         import collection.JavaConverters._
-        val items = new RiotApi(Platform.EUW1).getItems.asScala.toMap
+        val items = StaticDataStore.get(Platform.EUW1).items.asScala.toMap
         itemsBr = Application.session.sparkContext.broadcast(items)
     }
 
@@ -37,8 +38,8 @@ object Items {
         items().get(id) match {
             case Some(item) => item
             case None =>
-                log.debug("Item id {} not found. Downloading from riot..", id)
-                //We can't find the id, load it from riot
+                log.debug("Item id {} not found. Reloading static data..", id)
+                //We can't find the id, maybe there's a new version (riot is only asked if the version check is due)
                 populateAndBroadcast()
                 items.get(id).get
         }
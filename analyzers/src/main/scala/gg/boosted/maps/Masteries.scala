@@ -1,8 +1,9 @@
 package gg.boosted.maps
 
 import gg.boosted.Application
-import gg.boosted.riotapi.{Platform, RiotApi}
-import gg.boosted.riotapi.dtos.{Mastery, RuneDef}
+import gg.boosted.riotapi.Platform
+import gg.boosted.riotapi.dtos.Mastery
+import gg.boosted.riotapi.staticdata.StaticDataStore
 import org.apache.spark.broadcast.Broadcast
 import org.slf4j.{Logger, LoggerFactory}
 
@@ -15,11 +16,9 @@ object Masteries {
 
   var masteriesBr:Broadcast[Map[String, Mastery]] = _
 
-  val riotApi = new RiotApi(Platform.EUW1)
-
   def populateAndBroadcast():Unit = {
     import collection.JavaConverters._
-    val masteries = riotApi.getMasteries.asScala.map(mastery => (mastery.id, mastery)).toMap
+    val masteries = StaticDataStore.get(Platform.EUW1).masteries.asScala.map(mastery => (mastery.id, mastery)).toMap
     masteriesBr = Application.session.sparkContext.broadcast(masteries)
   }
 
@@ -31,8 +30,8 @@ object Masteries {
     masteries().get(id) match {
       case Some(mastery) => mastery
       case None =>
-        log.debug("Item id {} not found. Downloading from riot..", id)
-        //We can't find the id, load it from riot
+        log.debug("Mastery id {} not found. Reloading static data..", id)
+        //We can't find the id, maybe there's a new version (riot is only asked if the version check is due)
         populateAndBroadcast()
         masteries.get(id).get
     }
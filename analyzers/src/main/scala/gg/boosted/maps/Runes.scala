@@ -2,7 +2,8 @@ package gg.boosted.maps
 
 import gg.boosted.Application
 import gg.boosted.riotapi.dtos.RuneDef
-import gg.boosted.riotapi.{Platform, RiotApi}
+import gg.boosted.riotapi.Platform
+import gg.boosted.riotapi.staticdata.StaticDataStore
 import org.apache.spark.broadcast.Broadcast
 import org.slf4j.{Logger, LoggerFactory}
 
@@ -14,11 +15,9 @@ object Runes {
 
     var runesBr:Broadcast[Map[String,RuneDef]] = _
 
-    val riotApi = new RiotApi(Platform.EUW)
-
     def populateAndBroadcast():Unit = {
         import collection.JavaConverters._
-        val runes = riotApi.getRuneDefs.asScala.map {case (k,v) => (k, v)}.toMap
+        val runes = StaticDataStore.get(Platform.EUW1).runes.asScala.toMap
         runesBr = Application.session.sparkContext.broadcast(runes)
     }
 
@@ -30,8 +29,8 @@ object Runes {
         runes().get(id) match {
             case Some(rune) => rune
             case None =>
-                log.debug("Item id {} not found. Downloading from riot..", id)
-                //We can't find the id, load it from riot
+                log.debug("Rune id {} not found. Reloading static data..", id)
+                //We can't find the id, maybe there's a new version (riot is only asked if the version check is due)
                 populateAndBroadcast()
                 runes.get(id).get
         }
@@ -3,6 +3,7 @@ package gg.boosted.maps
 import gg.boosted.dal.RedisStore
 import gg.boosted.posos.{LoLScore, SummonerId}
 import gg.boosted.riotapi.RiotApi
+import gg.boosted.riotapi.throttlers.Priority
 import org.slf4j.LoggerFactory
 
 import scala.collection.mutable.ListBuffer
@@ -44,7 +45,7 @@ object Summoners {
 
         //Group by region and retrieve the names
         unknowns.groupBy(_.platform).foreach { case(region, ids) => {
-            val api = new RiotApi(region)
+            val api = RiotApi.forPlatform(region).withPriority(Priority.INTERACTIVE)
 
             import collection.JavaConverters._
             val idsToNamesMap = api.getSummonerNamesByIds(ids.map(_.id).map(Long.box):_*).asScala
@@ -86,7 +87,7 @@ object Summoners {
 
         //Group by region and retrieve the names
         unknowns.groupBy(_.platform).foreach { case(region, ids) => {
-            val api = new RiotApi(region)
+            val api = RiotApi.forPlatform(region).withPriority(Priority.INTERACTIVE)
 
             //Yes, fucking scala is forcing me the stupid unreadable line below
             import collection.JavaConverters._
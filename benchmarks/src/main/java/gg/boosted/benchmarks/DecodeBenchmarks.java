@@ -0,0 +1,30 @@
+package gg.boosted.benchmarks;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ *
+ * Runs the decode benchmarks with the gc profiler on, so next to ops/sec we get the bytes allocated per op
+ * (gc.alloc.rate.norm). Any jmh command line option can be given, e.g. a regexp to run only some of them:
+ *
+ * java -jar benchmarks/target/benchmarks.jar Match -rf json
+ */
+public class DecodeBenchmarks {
+
+    public static void main(String[] args) throws RunnerException, CommandLineOptionException {
+        CommandLineOptions commandLine = new CommandLineOptions(args) ;
+        OptionsBuilder options = new OptionsBuilder() ;
+        options.parent(commandLine) ;
+        if (commandLine.getIncludes().isEmpty()) {
+            options.include(MatchDecodeBenchmark.class.getSimpleName())
+                    .include(StaticDataDecodeBenchmark.class.getSimpleName()) ;
+        }
+        options.addProfiler(GCProfiler.class) ;
+        new Runner(options.build()).run() ;
+    }
+}
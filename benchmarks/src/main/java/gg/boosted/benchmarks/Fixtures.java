@@ -0,0 +1,123 @@
+package gg.boosted.benchmarks;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import gg.boosted.riotapi.dtos.Champion;
+import gg.boosted.riotapi.dtos.match.Match;
+import gg.boosted.riotapi.dtos.match.MatchTimeline;
+
+import java.io.IOException;
+import java.lang.reflect.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.*;
+
+/**
+ *
+ * The payloads the benchmarks decode.
+ *
+ * If the "fixtures.dir" system property is set, they're read from match.json, timeline.json and champions.json
+ * in that directory (real responses, e.g. taken out of a RecordingTransport recording).
+ * Otherwise they're made up: every field of the dtos gets a value and every list gets
+ * {@link #COLLECTION_SIZE} elements, which is about the size of a real match (10 participants) and
+ * a bit smaller than a real timeline.
+ */
+public class Fixtures {
+
+    static final int COLLECTION_SIZE = 10 ;
+
+    static final int CHAMPIONS = 138 ;
+
+    private static final ObjectMapper om = new ObjectMapper() ;
+
+    public static String match() throws IOException {
+        return fixture("match.json", () -> generate(Match.class)) ;
+    }
+
+    public static String timeline() throws IOException {
+        return fixture("timeline.json", () -> generate(MatchTimeline.class)) ;
+    }
+
+    /**
+     * Looks like the static-data champions response: {"type":"champion","version":...,"data":{"Aatrox":{...},...}}
+     */
+    public static String champions() throws IOException {
+        return fixture("champions.json", () -> {
+            ObjectNode root = om.createObjectNode() ;
+            root.put("type", "champion") ;
+            root.put("version", "7.13.1") ;
+            ObjectNode data = root.putObject("data") ;
+            for (int i = 1; i <= CHAMPIONS; i++) {
+                Champion champion = new Champion() ;
+                champion.id = i ;
+                champion.key = "Champion" + i ;
+                champion.name = "Champion " + i ;
+                champion.title = "the Benchmarked" ;
+                data.set(champion.key, om.valueToTree(champion)) ;
+            }
+            return om.writeValueAsString(root) ;
+        }) ;
+    }
+
+    private interface Generator {
+        String generate() throws IOException ;
+    }
+
+    private static String fixture(String name, Generator generator) throws IOException {
+        String dir = System.getProperty("fixtures.dir") ;
+        if (dir != null) {
+            Path file = Paths.get(dir, name) ;
+            if (Files.exists(file)) {
+                return new String(Files.readAllBytes(file), StandardCharsets.UTF_8) ;
+            }
+        }
+        return generator.generate() ;
+    }
+
+    private static String generate(Class<?> clazz) throws IOException {
+        try {
+            return om.writeValueAsString(fill(clazz, new Random(42))) ;
+        } catch (ReflectiveOperationException e) {
+            throw new IOException("Could not generate a " + clazz.getSimpleName(), e) ;
+        }
+    }
+
+    /**
+     * Fills all the public fields of a dto, all the way down
+     */
+    private static Object fill(Type type, Random random) throws ReflectiveOperationException {
+        Class<?> clazz = type instanceof ParameterizedType ?
+                (Class<?>)((ParameterizedType) type).getRawType() : (Class<?>) type ;
+        if (clazz == int.class || clazz == Integer.class) return random.nextInt(1000) ;
+        if (clazz == long.class || clazz == Long.class) return random.nextLong() & Long.MAX_VALUE ;
+        if (clazz == double.class || clazz == Double.class) return random.nextDouble() * 1000 ;
+        if (clazz == float.class || clazz == Float.class) return random.nextFloat() * 1000 ;
+        if (clazz == boolean.class || clazz == Boolean.class) return random.nextBoolean() ;
+        if (clazz == String.class) return "value" + random.nextInt(100) ;
+        if (List.class.isAssignableFrom(clazz)) {
+            Type element = ((ParameterizedType) type).getActualTypeArguments()[0] ;
+            List<Object> list = new ArrayList<>() ;
+            for (int i = 0; i < COLLECTION_SIZE; i++) {
+                list.add(fill(element, random)) ;
+            }
+            return list ;
+        }
+        if (Map.class.isAssignableFrom(clazz)) {
+            Type key = ((ParameterizedType) type).getActualTypeArguments()[0] ;
+            Type value = ((ParameterizedType) type).getActualTypeArguments()[1] ;
+            Map<Object, Object> map = new LinkedHashMap<>() ;
+            for (int i = 1; i <= COLLECTION_SIZE; i++) {
+                map.put(key == Integer.class ? (Object) i : String.valueOf(i), fill(value, random)) ;
+            }
+            return map ;
+        }
+        Object dto = clazz.newInstance() ;
+        for (Field field : clazz.getFields()) {
+            if (Modifier.isStatic(field.getModifiers())) continue ;
+            field.set(dto, fill(field.getGenericType(), random)) ;
+        }
+        return dto ;
+    }
+}
@@ -0,0 +1,73 @@
+package gg.boosted.benchmarks;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import gg.boosted.riotapi.dtos.match.Match;
+import gg.boosted.riotapi.dtos.match.MatchTimeline;
+import net.rithms.riot.api.ApiConfig;
+import net.rithms.riot.api.RiotApiException;
+import net.rithms.riot.api.endpoints.match.methods.GetMatch;
+import net.rithms.riot.api.endpoints.match.methods.GetTimelineByMatchId;
+import net.rithms.riot.api.request.CannedRequest;
+import net.rithms.riot.constant.Platform;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ *
+ * Decoding a match and a timeline, the way each of the api clients does it:
+ * gg.boosted.riotapi straight from the response bytes with a cached ObjectReader (RiotApi.callApi),
+ * riot-api-java from the response string with Request.getDto (gson)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MatchDecodeBenchmark {
+
+    private static final long MATCH_ID = 3263016154L ;
+
+    private final ObjectMapper om = new ObjectMapper() ;
+    private final ObjectReader matchReader = om.readerFor(Match.class) ;
+    private final ObjectReader timelineReader = om.readerFor(MatchTimeline.class) ;
+
+    private final ApiConfig config = new ApiConfig().setKey("RGAPI-benchmark") ;
+
+    private String match ;
+    private byte[] matchBytes ;
+    private String timeline ;
+    private byte[] timelineBytes ;
+
+    @Setup
+    public void setup() throws IOException {
+        match = Fixtures.match() ;
+        matchBytes = match.getBytes(StandardCharsets.UTF_8) ;
+        timeline = Fixtures.timeline() ;
+        timelineBytes = timeline.getBytes(StandardCharsets.UTF_8) ;
+    }
+
+    @Benchmark
+    public Match jacksonMatch() throws IOException {
+        return matchReader.readValue(matchBytes) ;
+    }
+
+    @Benchmark
+    public net.rithms.riot.api.endpoints.match.dto.Match gsonMatch() throws RiotApiException {
+        return new CannedRequest(config, new GetMatch(config, Platform.EUW, MATCH_ID), match).getDto() ;
+    }
+
+    @Benchmark
+    public MatchTimeline jacksonTimeline() throws IOException {
+        return timelineReader.readValue(timelineBytes) ;
+    }
+
+    @Benchmark
+    public net.rithms.riot.api.endpoints.match.dto.MatchTimeline gsonTimeline() throws RiotApiException {
+        return new CannedRequest(config, new GetTimelineByMatchId(config, Platform.EUW, MATCH_ID), timeline).getDto() ;
+    }
+}
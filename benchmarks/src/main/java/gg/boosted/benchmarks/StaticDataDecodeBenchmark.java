@@ -0,0 +1,64 @@
+package gg.boosted.benchmarks;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import gg.boosted.riotapi.dtos.Champion;
+import net.rithms.riot.api.ApiConfig;
+import net.rithms.riot.api.RiotApiException;
+import net.rithms.riot.api.endpoints.static_data.constant.ChampListData;
+import net.rithms.riot.api.endpoints.static_data.dto.ChampionList;
+import net.rithms.riot.api.endpoints.static_data.methods.GetDataChampionList;
+import net.rithms.riot.api.request.CannedRequest;
+import net.rithms.riot.constant.Platform;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ *
+ * Decoding the champions list. gg.boosted.riotapi goes through a JsonNode tree and binds every champion
+ * out of it (RiotApi.getChampionsList), riot-api-java binds the whole thing with gson
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class StaticDataDecodeBenchmark {
+
+    private final ObjectMapper om = new ObjectMapper() ;
+
+    private final ApiConfig config = new ApiConfig().setKey("RGAPI-benchmark") ;
+
+    private String champions ;
+    private byte[] championsBytes ;
+
+    @Setup
+    public void setup() throws IOException {
+        champions = Fixtures.champions() ;
+        championsBytes = champions.getBytes(StandardCharsets.UTF_8) ;
+    }
+
+    @Benchmark
+    public List<Champion> jacksonChampions() throws IOException {
+        JsonNode rootNode = om.readTree(championsBytes) ;
+        List<Champion> result = new LinkedList<>() ;
+        Iterator<Map.Entry<String, JsonNode>> it = rootNode.get("data").fields() ;
+        while (it.hasNext()) {
+            result.add(om.treeToValue(it.next().getValue(), Champion.class)) ;
+        }
+        return result ;
+    }
+
+    @Benchmark
+    public ChampionList gsonChampions() throws RiotApiException {
+        return new CannedRequest(config, new GetDataChampionList(config, Platform.EUW, null, null, false, (ChampListData) null), champions).getDto() ;
+    }
+}
@@ -0,0 +1,20 @@
+package net.rithms.riot.api.request;
+
+import net.rithms.riot.api.ApiConfig;
+import net.rithms.riot.api.ApiMethod;
+
+import java.util.Collections;
+
+/**
+ *
+ * A request that already has its response, so {@link Request#getDto()} can be measured without the network.
+ * It lives in riot-api-java's package because that's the only place a RequestResponse can be made
+ */
+public class CannedRequest extends Request {
+
+    public CannedRequest(ApiConfig config, ApiMethod method, String body) {
+        init(config, method);
+        setResponse(new RequestResponse(CODE_SUCCESS_OK, body, Collections.emptyMap()));
+        setState(RequestState.Succeeded) ;
+    }
+}
@@ -1,10 +1,12 @@
 package gg.boosted
 
 import gg.boosted.configuration.Configuration
+import gg.boosted.riotapi.BatchResult
 import gg.boosted.riotapi.Platform
 import gg.boosted.riotapi.RiotApi
 import gg.boosted.riotapi.dtos.match.Match
 import gg.boosted.riotapi.dtos.match.MatchReference
+import gg.boosted.riotapi.throttlers.Priority
 import gg.boosted.stores.CassandraStore
 import gg.boosted.stores.RedisStore
 import groovy.json.JsonSlurper
@@ -31,7 +33,7 @@ class FromRiot {
         //RedisStore.reset()
 
         platform = Platform.EUW1
-        riotApi = new RiotApi(platform)
+        riotApi = RiotApi.forPlatform(platform).withPriority(Priority.CRAWL)
 
         extract()
     }
@@ -92,46 +94,56 @@ class FromRiot {
                 log.debug("Found ${mains.size()} mains for ${summonerId} (${sb.toString()})")
             }
 
-            //For each match in the summoner's matchlist:
+            //Get all the matches in the summoner's matchlist that we haven't seen yet
+            Map<Long, MatchReference> unseenMatches = [:]
             matchList.each {
-
-                Long gameId = it.gameId
-
                 //Check that we haven't seen this match yet
                 if (!RedisStore.wasMatchProcessedAlready(platform.toString(), it.toString())) {
+                    unseenMatches.put(it.gameId, it)
+                } else {
+                    log.debug("Match ${it} was already processed...")
+                }
+            }
 
-                    log.debug("Processing match ${gameId}")
+            //Fetch them all at once, and process each match as it arrives
+            Iterator<BatchResult<Match>> results = riotApi.getMatches(unseenMatches.keySet())
+            while (results.hasNext()) {
+                BatchResult<Match> result = results.next()
+                MatchReference reference = unseenMatches.get(result.id)
 
-                    //Get the match itself
-                    Match match = riotApi.getMatch(gameId)
+                if (!result.isOk()) {
+                    log.warn("Could not get match ${result.id} (${result.status})", result.error)
+                    continue
+                }
 
-                    //create "SummonerMatch" items for each summoner in the match
-                    List<SummonerMatch> summonerMatchList = MatchParser.parseMatch(match)
+                log.debug("Processing match ${result.id}")
 
-                    //Send them all to the broker
-                    //Disregard matches that are shorter than 20 minutes
-                    if (match.gameDuration >= 1200) {
-                        summonerMatchList.each {
-                            //We save a lot of space by saving only the mains to cassandra
-                            if (mains.size() > 0 &&
-                                    it.summonerId as String == summonerId &&
-                                mains.contains(new Tuple2(it.championId, it.role.toString()))) {
-                                CassandraStore.saveMatch(it)
-                                log.debug("Saved match ${summonerId} to boostedgg.summoner_matches")
-                                //KafkaSummonerMatchProducer.send(it)
-                            }
+                Match match = result.value
 
+                //create "SummonerMatch" items for each summoner in the match
+                List<SummonerMatch> summonerMatchList = MatchParser.parseMatch(match)
+
+                //Send them all to the broker
+                //Disregard matches that are shorter than 20 minutes
+                if (match.gameDuration >= 1200) {
+                    summonerMatchList.each {
+                        //We save a lot of space by saving only the mains to cassandra
+                        if (mains.size() > 0 &&
+                                it.summonerId as String == summonerId &&
+                            mains.contains(new Tuple2(it.championId, it.role.toString()))) {
+                            CassandraStore.saveMatch(it)
+                            log.debug("Saved match ${summonerId} to boostedgg.summoner_matches")
+                            //KafkaSummonerMatchProducer.send(it)
                         }
+
                     }
+                }
 
-                    //Add the match to "seen matches"
-                    RedisStore.addMatchToProcessedMatches(platform.toString(), it.toString())
+                //Add the match to "seen matches"
+                RedisStore.addMatchToProcessedMatches(platform.toString(), reference.toString())
 
-                    //Add all the summoners to the summoner queue
-                    summonerMatchList.each {RedisStore.addSummonersToQueue(platform.toString(), it.summonerId.toString())}
-                } else {
-                    log.debug("Match ${it} was already processed...")
-                }
+                //Add all the summoners to the summoner queue
+                summonerMatchList.each {RedisStore.addSummonersToQueue(platform.toString(), it.summonerId.toString())}
             }
 
             //The summoner is now processed. Add her to the queue
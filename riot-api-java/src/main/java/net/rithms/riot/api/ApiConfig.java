@@ -24,29 +24,48 @@ import java.util.logging.Level;
  */
 public class ApiConfig implements Cloneable {
 
+	public final AsyncExecution DEFAULT_ASYNC_EXECUTION = AsyncExecution.THREAD_PER_REQUEST;
 	public final int DEFAULT_ASYNC_REQUEST_TIMEOUT = 10000;
 	public final Level DEFAULT_DEBUG_LEVEL = Level.WARNING;
 	public final boolean DEFAULT_DEBUG_TO_FILE = false;
+	public final boolean DEFAULT_KEEP_RESPONSE_BODY = false;
 	public final int DEFAULT_MAX_ASYNC_THREADS = 0;
+	public final int DEFAULT_MAX_QUEUED_REQUESTS = 0;
+	public final QueueFullPolicy DEFAULT_QUEUE_FULL_POLICY = QueueFullPolicy.BLOCK;
 	public final int DEFAULT_REQUEST_TIMEOUT = 0;
+	public final int DEFAULT_SHARED_POOL_SIZE = 32;
 	public final boolean DEFAULT_RESPECT_RATE_LIMIT = true;
 	public final boolean DEFAULT_TOURNAMENT_MOCK_MODE = false;
+	public final boolean DEFAULT_WAIT_FOR_RATE_LIMIT = false;
 
+	private AsyncExecution asyncExecution = DEFAULT_ASYNC_EXECUTION;
 	private int asyncRequestTimeout = DEFAULT_ASYNC_REQUEST_TIMEOUT;
 	private Level debugLevel = DEFAULT_DEBUG_LEVEL;
 	private boolean debugToFile = DEFAULT_DEBUG_TO_FILE;
+	private boolean keepResponseBody = DEFAULT_KEEP_RESPONSE_BODY;
 	private String key = null;
 	private int maxAsyncThreads = DEFAULT_MAX_ASYNC_THREADS;
+	private int maxQueuedRequests = DEFAULT_MAX_QUEUED_REQUESTS;
+	private QueueFullPolicy queueFullPolicy = DEFAULT_QUEUE_FULL_POLICY;
 	private int requestTimeout = DEFAULT_REQUEST_TIMEOUT;
 	private boolean respectRateLimit = DEFAULT_RESPECT_RATE_LIMIT;
+	private RetryPolicy retryPolicy = null;
 	private String tournamentKey = null;
 	private boolean tournamentMockMode = DEFAULT_TOURNAMENT_MOCK_MODE;
+	private boolean waitForRateLimit = DEFAULT_WAIT_FOR_RATE_LIMIT;
 
 	@Override
 	public ApiConfig clone() {
-		return new ApiConfig().setAsyncRequestTimeout(getAsyncRequestTimeout()).setDebugLevel(getDebugLevel()).setDebugToFile(getDebugToFile()).setKey(getKey())
-				.setMaxAsyncThreads(getMaxAsyncThreads()).setRequestTimeout(getRequestTimeout()).setRespectRateLimit(getRespectRateLimit())
-				.setTournamentKey(getTournamentKey()).setTournamentMockMode(getTournamentMockMode());
+		return new ApiConfig().setAsyncExecution(getAsyncExecution()).setAsyncRequestTimeout(getAsyncRequestTimeout()).setDebugLevel(getDebugLevel()).setDebugToFile(getDebugToFile()).setKey(getKey())
+				.setKeepResponseBody(getKeepResponseBody()).setMaxAsyncThreads(getMaxAsyncThreads())
+				.setMaxQueuedRequests(getMaxQueuedRequests()).setQueueFullPolicy(getQueueFullPolicy()).setRequestTimeout(getRequestTimeout()).setRespectRateLimit(getRespectRateLimit())
+				.setRetryPolicy(getRetryPolicy())
+				.setTournamentKey(getTournamentKey()).setTournamentMockMode(getTournamentMockMode())
+				.setWaitForRateLimit(getWaitForRateLimit());
+	}
+
+	public AsyncExecution getAsyncExecution() {
+		return asyncExecution;
 	}
 
 	public int getAsyncRequestTimeout() {
@@ -61,6 +80,10 @@ public class ApiConfig implements Cloneable {
 		return debugToFile;
 	}
 
+	public boolean getKeepResponseBody() {
+		return keepResponseBody;
+	}
+
 	public String getKey() {
 		return key;
 	}
@@ -69,6 +92,14 @@ public class ApiConfig implements Cloneable {
 		return maxAsyncThreads;
 	}
 
+	public int getMaxQueuedRequests() {
+		return maxQueuedRequests;
+	}
+
+	public QueueFullPolicy getQueueFullPolicy() {
+		return queueFullPolicy;
+	}
+
 	public int getRequestTimeout() {
 		return requestTimeout;
 	}
@@ -77,6 +108,10 @@ public class ApiConfig implements Cloneable {
 		return respectRateLimit;
 	}
 
+	public RetryPolicy getRetryPolicy() {
+		return retryPolicy;
+	}
+
 	public String getTournamentKey() {
 		return tournamentKey;
 	}
@@ -85,6 +120,28 @@ public class ApiConfig implements Cloneable {
 		return tournamentMockMode;
 	}
 
+	public boolean getWaitForRateLimit() {
+		return waitForRateLimit;
+	}
+
+	/**
+	 * Sets how asynchronous requests are run: each in a new thread (the default), on a shared pool of reused threads, or each in a virtual
+	 * thread. Either way, {@link #setMaxAsyncThreads(int)} limits how many requests run at once, and listeners and {@code await} work the
+	 * same.
+	 * 
+	 * @param asyncExecution
+	 *            How to run asynchronous requests
+	 * @return This ApiConfig object for chaining
+	 * @throws NullPointerException
+	 *             If {@code asyncExecution} is {@code null}
+	 * @see AsyncExecution
+	 */
+	public ApiConfig setAsyncExecution(AsyncExecution asyncExecution) {
+		Objects.requireNonNull(asyncExecution, "async execution must not be null");
+		this.asyncExecution = asyncExecution;
+		return this;
+	}
+
 	/**
 	 * Sets a specified timeout value, in milliseconds, for calls in {@link RiotApiAsync} to wait at most for a response. If set to zero,
 	 * asynchronous requests won't time out.
@@ -151,6 +208,22 @@ public class ApiConfig implements Cloneable {
 		return this;
 	}
 
+	/**
+	 * Sets whether the raw body of successful responses is kept as a string, to be retrieved with {@link net.rithms.riot.api.request.RequestResponse#getBody()}.
+	 * <p>
+	 * If not, the result is decoded straight from the connection while it is read, without a copy of the whole body in memory, and
+	 * {@link net.rithms.riot.api.request.RequestResponse#getBody()} returns {@code null} for successful responses.
+	 * </p>
+	 * 
+	 * @param keepResponseBody
+	 *            {@code true} if the raw body should be kept
+	 * @return This ApiConfig object for chaining
+	 */
+	public ApiConfig setKeepResponseBody(boolean keepResponseBody) {
+		this.keepResponseBody = keepResponseBody;
+		return this;
+	}
+
 	/**
 	 * Sets the maximum amount of threads for asynchronous api calls running at once. If set to zero, there is no limit.
 	 * 
@@ -173,6 +246,49 @@ public class ApiConfig implements Cloneable {
 		return this;
 	}
 
+	/**
+	 * Sets the maximum amount of asynchronous requests waiting for a free thread (see {@link #setMaxAsyncThreads(int)}). If set to zero,
+	 * there is no limit.
+	 * 
+	 * <p>
+	 * Once the queue is full, further asynchronous calls are handled according to {@link #setQueueFullPolicy(QueueFullPolicy)}. This keeps
+	 * a producer that fans out many more requests than can be sent from filling up memory with them.
+	 * </p>
+	 * <p>
+	 * This is read when the first asynchronous request is made.
+	 * </p>
+	 * 
+	 * @param maxQueuedRequests
+	 *            Max amount of requests to queue
+	 * @return This ApiConfig object for chaining
+	 * @throws IllegalArgumentException
+	 *             If the limit is smaller than {@code 0}
+	 */
+	public ApiConfig setMaxQueuedRequests(int maxQueuedRequests) {
+		if (maxQueuedRequests < 0) {
+			throw new IllegalArgumentException("The max amount of queued requests must be greater than or equal to 0");
+		}
+		this.maxQueuedRequests = maxQueuedRequests;
+		return this;
+	}
+
+	/**
+	 * Sets what happens to an asynchronous call while the queue is full (see {@link #setMaxQueuedRequests(int)}): it waits for room (the
+	 * default), fails, or runs the request in the calling thread.
+	 * 
+	 * @param queueFullPolicy
+	 *            What to do when the queue is full
+	 * @return This ApiConfig object for chaining
+	 * @throws NullPointerException
+	 *             If {@code queueFullPolicy} is {@code null}
+	 * @see QueueFullPolicy
+	 */
+	public ApiConfig setQueueFullPolicy(QueueFullPolicy queueFullPolicy) {
+		Objects.requireNonNull(queueFullPolicy, "queue full policy must not be null");
+		this.queueFullPolicy = queueFullPolicy;
+		return this;
+	}
+
 	/**
 	 * Sets a specified timeout value, in milliseconds, for calls in {@link RiotApi} to wait at most for a response. If set to zero,
 	 * requests won't time out.
@@ -208,6 +324,20 @@ public class ApiConfig implements Cloneable {
 		return this;
 	}
 
+	/**
+	 * Sets the policy for sending failed requests again, e.g. after a timeout or a {@code 503}. By default, failed requests are not
+	 * retried. Both synchronous and asynchronous requests retry in the thread they run in, and only report the last failure.
+	 * 
+	 * @param retryPolicy
+	 *            The policy to use, or {@code null} to never retry
+	 * @return This ApiConfig object for chaining
+	 * @see RetryPolicy
+	 */
+	public ApiConfig setRetryPolicy(RetryPolicy retryPolicy) {
+		this.retryPolicy = retryPolicy;
+		return this;
+	}
+
 	/**
 	 * Sets the tournament api key for the Riot Api. Tournament-related endpoints require this key to be set.
 	 *
@@ -238,4 +368,24 @@ public class ApiConfig implements Cloneable {
 		this.tournamentMockMode = tournamentMockMode;
 		return this;
 	}
+
+	/**
+	 * Sets whether requests that would exceed a known rate limit wait until they may be sent, instead of failing with a
+	 * {@link net.rithms.riot.api.request.ratelimit.RespectedRateLimitException}. Only applies if rate limits are respected (see
+	 * {@link #setRespectRateLimit(boolean)}).
+	 * 
+	 * <p>
+	 * The known rate limits are the {@code Retry-After} of earlier 429 responses, and the windows the Riot Api announces in the rate limit
+	 * headers of every response. A waiting request checks again once the limit that holds it back has passed. An asynchronous request
+	 * keeps its thread while it waits.
+	 * </p>
+	 *
+	 * @param waitForRateLimit
+	 *            {@code true} if requests should wait for rate limits
+	 * @return This ApiConfig object for chaining
+	 */
+	public ApiConfig setWaitForRateLimit(boolean waitForRateLimit) {
+		this.waitForRateLimit = waitForRateLimit;
+		return this;
+	}
 }
\ No newline at end of file
@@ -0,0 +1,42 @@
+/*
+ * Copyright 2016 Taylor Caldwell
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.rithms.riot.api;
+
+/**
+ * How {@link RiotApiAsync} runs its requests.
+ * 
+ * @see ApiConfig#setAsyncExecution(AsyncExecution)
+ */
+public enum AsyncExecution {
+	/**
+	 * Every request runs in a new thread of its own. With no limit on async threads, a large fan-out starts as many threads as there are
+	 * requests.
+	 */
+	THREAD_PER_REQUEST,
+
+	/**
+	 * Requests run on a pool of threads that are reused. The pool has {@link ApiConfig#getMaxAsyncThreads()} threads, or
+	 * {@link ApiConfig#DEFAULT_SHARED_POOL_SIZE} if there is no limit, and its idle threads stop after a few seconds.
+	 */
+	SHARED_POOL,
+
+	/**
+	 * Every request runs in a virtual thread of its own. Virtual threads need Java 21 or newer. On older runtimes this falls back to
+	 * {@link #SHARED_POOL}.
+	 */
+	VIRTUAL_THREADS
+}
@@ -16,58 +16,246 @@
 
 package net.rithms.riot.api;
 
-import java.util.ArrayList;
-import java.util.Iterator;
-import java.util.List;
+import java.util.Collections;
 import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
 
 import net.rithms.riot.api.request.AsyncRequest;
+import net.rithms.riot.api.request.RequestListener;
 
+/**
+ * Runs asynchronous requests, at most {@link ApiConfig#getMaxAsyncThreads()} at once. Requests beyond that wait in a queue.
+ * <p>
+ * There is no thread watching the queue. Adding a request and finishing one both start as many queued requests as there are free
+ * slots, so a request starts as soon as it can.
+ * </p>
+ * <p>
+ * Where the requests run is up to {@link ApiConfig#getAsyncExecution()}, which is read when the first request is started. The queue holds
+ * at most {@link ApiConfig#getMaxQueuedRequests()} requests, which is read when the first request is added. What happens to requests
+ * beyond that is up to {@link ApiConfig#getQueueFullPolicy()}.
+ * </p>
+ */
 class AsyncRequestPool {
 
+	private static final long IDLE_THREAD_KEEP_ALIVE = 5000;
+	// Runs a request in the thread that adds it
+	private static final Executor CALLER = new Executor() {
+		@Override
+		public void execute(Runnable command) {
+			command.run();
+		}
+	};
+
 	private final ApiConfig config;
 	private final Queue<AsyncRequest> queue = new ConcurrentLinkedQueue<AsyncRequest>();
-	private final List<AsyncRequest> pool = new ArrayList<AsyncRequest>();
-	private AsyncRequestPoolSupervisor supervisor = null;
+	private final Set<AsyncRequest> pool = Collections.newSetFromMap(new ConcurrentHashMap<AsyncRequest, Boolean>());
+	// Slots taken by running requests, and briefly by whoever is dispatching
+	private final AtomicInteger slots = new AtomicInteger();
+	// Requests added and not finished yet, awaitAll waits for this to drop to 0
+	private final AtomicInteger pending = new AtomicInteger();
+	// Runs the requests, null if each request starts its own thread
+	private Executor executor = null;
+	private boolean executorCreated = false;
+	// Room left in the queue, null if there is no limit
+	private volatile Semaphore capacity = null;
+	private boolean capacityCreated = false;
 
 	AsyncRequestPool(ApiConfig config) {
 		this.config = config;
 	}
 
-	void add(AsyncRequest request) {
+	/**
+	 * Adds a request to the queue, and starts it if there is a free slot. If the queue is full, the request is handled according to
+	 * {@link ApiConfig#getQueueFullPolicy()}, so this may block, or fail the request (which is passed on to its
+	 * {@link RequestListener}s).
+	 */
+	void add(final AsyncRequest request) {
+		Semaphore capacity = getCapacity();
+		if (capacity != null && !capacity.tryAcquire()) {
+			QueueFullPolicy policy = config.getQueueFullPolicy();
+			if (policy == QueueFullPolicy.BLOCK && AsyncRequest.getCurrent() != null) {
+				// Called by a request's listener, which still holds its slot. Room in the queue is only made when a slot frees up, so if
+				// every slot is held like this, waiting would never end
+				policy = QueueFullPolicy.CALLER_RUNS;
+			}
+			if (policy == QueueFullPolicy.REJECT) {
+				request.reject(new RiotApiException(RiotApiException.QUEUE_FULL));
+				return;
+			} else if (policy == QueueFullPolicy.CALLER_RUNS) {
+				// Not counted against max async threads, the caller waits for it instead of queueing more
+				pending.incrementAndGet();
+				request.setCompletionHook(new Runnable() {
+					@Override
+					public void run() {
+						done();
+					}
+				});
+				request.execute(CALLER);
+				return;
+			}
+			try {
+				capacity.acquire();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				request.reject(new RiotApiException(RiotApiException.QUEUE_FULL));
+				return;
+			}
+		}
+		pending.incrementAndGet();
+		request.setCompletionHook(new Runnable() {
+			@Override
+			public void run() {
+				finished(request);
+			}
+		});
 		queue.add(request);
-		invokeSupervisor();
+		dispatch();
 	}
 
+	/**
+	 * Waits until every request that was added has finished, including those added while waiting.
+	 */
 	void awaitAll() throws InterruptedException {
-		if (pool.isEmpty() && queue.isEmpty()) {
-			return;
+		synchronized (pending) {
+			while (pending.get() > 0) {
+				pending.wait();
+			}
 		}
-		List<AsyncRequest> pool = new ArrayList<AsyncRequest>(this.pool);
-		for (AsyncRequest request : pool) {
-			request.await();
+	}
+
+	/**
+	 * Starts queued requests while there are free slots
+	 */
+	private void dispatch() {
+		while (true) {
+			int taken = slots.get();
+			if (taken >= getMaxAsyncThreads()) {
+				// Whoever holds a slot dispatches again when they let go of it
+				return;
+			}
+			if (!slots.compareAndSet(taken, taken + 1)) {
+				continue;
+			}
+			AsyncRequest request = queue.poll();
+			if (request != null && capacity != null) {
+				capacity.release();
+			}
+			if (request == null) {
+				slots.decrementAndGet();
+				// Someone may have added a request while we held the slot, and left it to us
+				if (queue.isEmpty()) {
+					return;
+				}
+				continue;
+			}
+			if (request.isDone()) {
+				// Cancelled while it was queued
+				slots.decrementAndGet();
+				done();
+				continue;
+			}
+			pool.add(request);
+			Executor executor = getExecutor();
+			if (executor == null) {
+				request.execute();
+			} else {
+				request.execute(executor);
+			}
 		}
-		List<AsyncRequest> queue = new ArrayList<AsyncRequest>(this.queue);
-		for (AsyncRequest request : queue) {
-			request.await();
+	}
+
+	private synchronized Executor getExecutor() {
+		if (executorCreated) {
+			return executor;
 		}
-		// Repeat until queue and pool are empty
-		clearPool();
-		awaitAll();
+		executorCreated = true;
+		AsyncExecution execution = config.getAsyncExecution();
+		if (execution == AsyncExecution.VIRTUAL_THREADS) {
+			final ThreadFactory factory = createVirtualThreadFactory();
+			if (factory != null) {
+				executor = new Executor() {
+					@Override
+					public void execute(Runnable command) {
+						factory.newThread(command).start();
+					}
+				};
+				return executor;
+			}
+			RiotApi.log.warning("Virtual threads need Java 21 or newer, running asynchronous requests on a shared pool instead");
+			execution = AsyncExecution.SHARED_POOL;
+		}
+		if (execution == AsyncExecution.SHARED_POOL) {
+			int size = config.getMaxAsyncThreads() > 0 ? config.getMaxAsyncThreads() : config.DEFAULT_SHARED_POOL_SIZE;
+			ThreadPoolExecutor pool = new ThreadPoolExecutor(size, size, IDLE_THREAD_KEEP_ALIVE, TimeUnit.MILLISECONDS,
+					new LinkedBlockingQueue<Runnable>(), new ThreadFactory() {
+						private final AtomicInteger count = new AtomicInteger();
+
+						@Override
+						public Thread newThread(Runnable runnable) {
+							return new Thread(runnable, "Riot Api - Async Request Pool - " + count.incrementAndGet());
+						}
+					});
+			// Let the threads go when there is nothing to do, so they don't keep the JVM running
+			pool.allowCoreThreadTimeOut(true);
+			executor = pool;
+		}
+		return executor;
 	}
 
-	synchronized int clearPool() {
-		int clearedFromPool = 0;
-		Iterator<AsyncRequest> iterator = pool.iterator();
-		while (iterator.hasNext()) {
-			AsyncRequest request = iterator.next();
-			if (request.isDone()) {
-				iterator.remove();
-				clearedFromPool++;
+	/**
+	 * Looks up {@code Thread.ofVirtual().factory()} by reflection, since this library is built for Java 7.
+	 * 
+	 * @return A factory of virtual threads, or {@code null} if the runtime has none
+	 */
+	private static ThreadFactory createVirtualThreadFactory() {
+		try {
+			Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+			Class<?> builderClass = Class.forName("java.lang.Thread$Builder");
+			builder = builderClass.getMethod("name", String.class, long.class).invoke(builder, "Riot Api - Async Request - ", 1L);
+			return (ThreadFactory) builderClass.getMethod("factory").invoke(builder);
+		} catch (ReflectiveOperationException e) {
+			RiotApi.log.log(Level.FINE, "No virtual threads", e);
+			return null;
+		}
+	}
+
+	/**
+	 * Counts off a request that won't run (any more)
+	 */
+	private void done() {
+		if (pending.decrementAndGet() == 0) {
+			synchronized (pending) {
+				pending.notifyAll();
+			}
+		}
+	}
+
+	private void finished(AsyncRequest request) {
+		if (pool.remove(request)) {
+			slots.decrementAndGet();
+			done();
+			dispatch();
+		}
+	}
+
+	private synchronized Semaphore getCapacity() {
+		if (!capacityCreated) {
+			capacityCreated = true;
+			if (config.getMaxQueuedRequests() > 0) {
+				capacity = new Semaphore(config.getMaxQueuedRequests());
 			}
 		}
-		return clearedFromPool;
+		return capacity;
 	}
 
 	int getMaxAsyncThreads() {
@@ -85,35 +273,7 @@ class AsyncRequestPool {
 		return queue.size();
 	}
 
-	private void invokeSupervisor() {
-		if (supervisor == null) {
-			supervisor = new AsyncRequestPoolSupervisor(this);
-			supervisor.start();
-		}
-	}
-
 	boolean isEmpty() {
 		return (pool.isEmpty() && queue.isEmpty());
 	}
-
-	synchronized boolean pollQueue() {
-		if (getPoolSize() == getMaxAsyncThreads()) {
-			return false;
-		}
-		AsyncRequest request = queue.poll();
-		if (request == null) {
-			return false;
-		}
-		request.execute();
-		pool.add(request);
-		return true;
-	}
-
-	void resignSupervisor() {
-		if (supervisor == null) {
-			return;
-		}
-		supervisor.shutdown();
-		supervisor = null;
-	}
 }
\ No newline at end of file
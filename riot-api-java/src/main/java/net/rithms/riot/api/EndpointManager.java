@@ -18,11 +18,15 @@ package net.rithms.riot.api;
 
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CopyOnWriteArrayList;
 
 import net.rithms.riot.api.request.AsyncRequest;
 import net.rithms.riot.api.request.Request;
 import net.rithms.riot.api.request.RequestListener;
+import net.rithms.riot.api.request.RequestMethod;
 import net.rithms.riot.api.request.ratelimit.RateLimitException;
 
 class EndpointManager {
@@ -30,12 +34,24 @@ class EndpointManager {
 	private final ApiConfig config;
 	private final AsyncRequestPool pool;
 	private final Collection<RequestListener> listeners = new CopyOnWriteArrayList<RequestListener>();
+	private final Set<Class<? extends ApiMethod>> coalescedMethods = Collections
+			.newSetFromMap(new ConcurrentHashMap<Class<? extends ApiMethod>, Boolean>());
+	// Coalesced requests that have not completed yet, by platform and url
+	private final ConcurrentHashMap<String, AsyncRequest> inFlight = new ConcurrentHashMap<String, AsyncRequest>();
 
 	EndpointManager(ApiConfig config) {
 		this.config = config;
 		pool = new AsyncRequestPool(config);
 	}
 
+	@SafeVarargs
+	final void addCoalescedMethods(Class<? extends ApiMethod>... methods) {
+		// Not Arrays.asList, passing the array on is what javac warns about
+		for (Class<? extends ApiMethod> method : methods) {
+			coalescedMethods.add(method);
+		}
+	}
+
 	void addListeners(RequestListener... listeners) {
 		this.listeners.addAll(Arrays.asList(listeners));
 	}
@@ -54,10 +70,31 @@ class EndpointManager {
 	}
 
 	AsyncRequest callMethodAsynchronously(ApiMethod method) {
-		AsyncRequest request = new AsyncRequest(config, method);
-		request.addListeners(listeners.toArray(new RequestListener[listeners.size()]));
-		pool.add(request);
-		return request;
+		if (method.getMethod() != RequestMethod.GET || !coalescedMethods.contains(method.getClass())) {
+			AsyncRequest request = new AsyncRequest(config, method);
+			request.addListeners(listeners.toArray(new RequestListener[listeners.size()]));
+			pool.add(request);
+			return request;
+		}
+		String key = method.getPlatform() + " " + method.getUrl();
+		while (true) {
+			AsyncRequest running = inFlight.get(key);
+			if (running != null) {
+				if (!running.isDone()) {
+					return running;
+				}
+				inFlight.remove(key, running);
+				continue;
+			}
+			AsyncRequest request = new CoalescedRequest(config, method, key);
+			if (inFlight.putIfAbsent(key, request) != null) {
+				// Someone else started the same request just now
+				continue;
+			}
+			request.addListeners(listeners.toArray(new RequestListener[listeners.size()]));
+			pool.add(request);
+			return request;
+		}
 	}
 
 	int getPoolSize() {
@@ -68,7 +105,44 @@ class EndpointManager {
 		return pool.getQueueSize();
 	}
 
+	@SafeVarargs
+	final void removeCoalescedMethods(Class<? extends ApiMethod>... methods) {
+		for (Class<? extends ApiMethod> method : methods) {
+			coalescedMethods.remove(method);
+		}
+	}
+
 	void removeListeners(RequestListener... listeners) {
 		this.listeners.removeAll(Arrays.asList(listeners));
 	}
+
+	/**
+	 * A request that is shared by everyone who asks for the same url while it runs. It stops being shared as soon as it completes, so later
+	 * calls make a new request.
+	 */
+	private class CoalescedRequest extends AsyncRequest {
+
+		private final String key;
+
+		CoalescedRequest(ApiConfig config, ApiMethod method, String key) {
+			super(config, method);
+			this.key = key;
+		}
+
+		@Override
+		public boolean cancel() {
+			boolean cancelled = super.cancel();
+			inFlight.remove(key, this);
+			return cancelled;
+		}
+
+		@Override
+		protected boolean setState(RequestState state) {
+			if (state != RequestState.Waiting) {
+				// Before the listeners are notified, so none are added too late
+				inFlight.remove(key, this);
+			}
+			return super.setState(state);
+		}
+	}
 }
\ No newline at end of file
@@ -0,0 +1,47 @@
+/*
+ * Copyright 2016 Taylor Caldwell
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.rithms.riot.api;
+
+/**
+ * What {@link RiotApiAsync} does with a request when its queue is full.
+ * 
+ * @see ApiConfig#setMaxQueuedRequests(int)
+ * @see ApiConfig#setQueueFullPolicy(QueueFullPolicy)
+ */
+public enum QueueFullPolicy {
+	/**
+	 * The call waits until there is room in the queue. If the calling thread is interrupted while it waits, the request fails with
+	 * {@link RiotApiException#QUEUE_FULL}.
+	 * <p>
+	 * A call made by a request's listener (or anywhere else in a thread that runs a request) does not wait, since the request still holds
+	 * its thread and if every running request's listener waited for room, none would ever be made. It runs the request itself instead, as
+	 * with {@link #CALLER_RUNS}.
+	 * </p>
+	 */
+	BLOCK,
+
+	/**
+	 * The request fails right away with {@link RiotApiException#QUEUE_FULL}, and its listeners are told so.
+	 */
+	REJECT,
+
+	/**
+	 * The request runs in the calling thread, so the call returns once it is done. This slows the caller down to the pace the requests are
+	 * answered at.
+	 */
+	CALLER_RUNS
+}
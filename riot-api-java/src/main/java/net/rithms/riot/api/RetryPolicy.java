@@ -0,0 +1,225 @@
+/*
+ * Copyright 2016 Taylor Caldwell
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.rithms.riot.api;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+import net.rithms.riot.api.request.ratelimit.RespectedRateLimitException;
+import net.rithms.riot.constant.Platform;
+
+/**
+ * Decides whether a failed request is sent again, and how long to wait before that. Set it with
+ * {@link ApiConfig#setRetryPolicy(RetryPolicy)}.
+ * 
+ * <p>
+ * Each error code (see {@link RiotApiException}) has its own number of retries. By default, server errors ({@code 500}, {@code 502},
+ * {@code 503}, {@code 504}), timeouts, I/O failures and {@code 429} responses are retried up to 3 times, everything else is not. The wait
+ * before the n-th retry is drawn at random between half and all of {@code min(maxDelay, baseDelay * 2^(n-1))}, so requests that failed
+ * together don't all come back together. A {@code 429} is not retried before its {@code Retry-After}, and no request is retried before the
+ * known rate limits let it be sent (see {@link ApiConfig#setRespectRateLimit(boolean)}). If that is further away than {@code maxDelay},
+ * the request fails instead.
+ * </p>
+ * <p>
+ * The retries for each platform are limited by a budget, 10 every 10 seconds by default, so an outage fails requests quickly instead of
+ * multiplying them. A policy's budget is shared by every request that uses it.
+ * </p>
+ */
+public class RetryPolicy {
+
+	public final int DEFAULT_BASE_DELAY = 500;
+	public final int DEFAULT_BUDGET = 10;
+	public final int DEFAULT_BUDGET_SECONDS = 10;
+	public final int DEFAULT_MAX_DELAY = 30000;
+	public final int DEFAULT_MAX_RETRIES = 3;
+
+	private int baseDelay = DEFAULT_BASE_DELAY;
+	private int budget = DEFAULT_BUDGET;
+	private int budgetSeconds = DEFAULT_BUDGET_SECONDS;
+	private int maxDelay = DEFAULT_MAX_DELAY;
+	private final Map<Integer, Integer> retries = new ConcurrentHashMap<Integer, Integer>();
+	// Retries left in the budget of each platform, the key is the platform's name so requests without one share a budget too
+	private final ConcurrentHashMap<String, Budget> budgets = new ConcurrentHashMap<String, Budget>();
+
+	/**
+	 * Constructs a retry policy with the default settings.
+	 */
+	public RetryPolicy() {
+		int[] retried = { RiotApiException.SERVER_ERROR, RiotApiException.BAD_GATEWAY, RiotApiException.UNAVAILABLE,
+				RiotApiException.GATEWAY_TIMEOUT, RiotApiException.TIMEOUT_EXCEPTION, RiotApiException.IOEXCEPTION,
+				RiotApiException.RATE_LIMITED };
+		for (int errorCode : retried) {
+			retries.put(errorCode, DEFAULT_MAX_RETRIES);
+		}
+	}
+
+	public int getBaseDelay() {
+		return baseDelay;
+	}
+
+	public int getBudget() {
+		return budget;
+	}
+
+	public int getBudgetSeconds() {
+		return budgetSeconds;
+	}
+
+	public int getMaxDelay() {
+		return maxDelay;
+	}
+
+	/**
+	 * Returns how many times a request that failed with {@code errorCode} is retried.
+	 * 
+	 * @param errorCode
+	 *            The error code, see {@link RiotApiException}
+	 * @return The maximum amount of retries, {@code 0} if it is not retried
+	 */
+	public int getRetries(int errorCode) {
+		Integer maxRetries = retries.get(errorCode);
+		return maxRetries == null ? 0 : maxRetries;
+	}
+
+	/**
+	 * Returns how long to wait before retrying a request, and takes a retry out of the platform's budget.
+	 * 
+	 * @param exception
+	 *            Why the request failed
+	 * @param retried
+	 *            How many times the request was retried already
+	 * @param platform
+	 *            The platform of the request, or {@code null}
+	 * @return The wait in milliseconds, or {@code -1} if the request is not retried
+	 */
+	public long getRetryDelay(RiotApiException exception, int retried, Platform platform) {
+		if (exception instanceof RespectedRateLimitException || retried >= getRetries(exception.getErrorCode())) {
+			// Never sent, waiting for the rate limit is up to ApiConfig#getWaitForRateLimit()
+			return -1;
+		}
+		String key = String.valueOf(platform);
+		Budget platformBudget = budgets.get(key);
+		if (platformBudget == null) {
+			budgets.putIfAbsent(key, new Budget());
+			platformBudget = budgets.get(key);
+		}
+		if (!platformBudget.take(budget, budgetSeconds * 1000L)) {
+			return -1;
+		}
+		long delay = Math.min(maxDelay, (long) baseDelay << Math.min(retried, 30));
+		return delay / 2 + ThreadLocalRandom.current().nextLong(delay / 2 + 1);
+	}
+
+	/**
+	 * Sets the wait before the first retry. Each retry after that waits twice as long, up to {@link #setMaxDelay(int)}.
+	 * 
+	 * @param baseDelay
+	 *            The wait in milliseconds
+	 * @return This RetryPolicy object for chaining
+	 * @throws IllegalArgumentException
+	 *             If {@code baseDelay} is smaller than {@code 0}
+	 */
+	public RetryPolicy setBaseDelay(int baseDelay) {
+		if (baseDelay < 0) {
+			throw new IllegalArgumentException("The base delay must be greater than or equal to 0");
+		}
+		this.baseDelay = baseDelay;
+		return this;
+	}
+
+	/**
+	 * Sets how many retries each platform may make in the given time. Requests that fail once the budget is spent are not retried.
+	 * 
+	 * @param budget
+	 *            The amount of retries
+	 * @param seconds
+	 *            The time they are allowed in
+	 * @return This RetryPolicy object for chaining
+	 * @throws IllegalArgumentException
+	 *             If {@code budget} is smaller than {@code 0} or {@code seconds} is smaller than {@code 1}
+	 */
+	public RetryPolicy setBudget(int budget, int seconds) {
+		if (budget < 0 || seconds < 1) {
+			throw new IllegalArgumentException("The budget must be greater than or equal to 0, for at least 1 second");
+		}
+		this.budget = budget;
+		this.budgetSeconds = seconds;
+		return this;
+	}
+
+	/**
+	 * Sets the longest wait before a retry. A request that the rate limits would hold back any longer fails instead.
+	 * 
+	 * @param maxDelay
+	 *            The wait in milliseconds
+	 * @return This RetryPolicy object for chaining
+	 * @throws IllegalArgumentException
+	 *             If {@code maxDelay} is smaller than {@code 0}
+	 */
+	public RetryPolicy setMaxDelay(int maxDelay) {
+		if (maxDelay < 0) {
+			throw new IllegalArgumentException("The max delay must be greater than or equal to 0");
+		}
+		this.maxDelay = maxDelay;
+		return this;
+	}
+
+	/**
+	 * Sets how many times a request that failed with {@code errorCode} is retried, e.g. {@code setRetries(RiotApiException.DATA_NOT_FOUND, 1)}
+	 * to give newly created data a second chance, or {@code setRetries(RiotApiException.RATE_LIMITED, 0)} to give up on {@code 429}s.
+	 * 
+	 * @param errorCode
+	 *            The error code, see {@link RiotApiException}
+	 * @param maxRetries
+	 *            The maximum amount of retries, {@code 0} to never retry
+	 * @return This RetryPolicy object for chaining
+	 * @throws IllegalArgumentException
+	 *             If {@code maxRetries} is smaller than {@code 0}
+	 */
+	public RetryPolicy setRetries(int errorCode, int maxRetries) {
+		if (maxRetries < 0) {
+			throw new IllegalArgumentException("The max amount of retries must be greater than or equal to 0");
+		}
+		retries.put(errorCode, maxRetries);
+		return this;
+	}
+
+	/**
+	 * The retries left for a platform. It fills up continuously, at {@code budget} retries per {@code millis}.
+	 */
+	private static class Budget {
+
+		private double left = -1;
+		private long updated;
+
+		synchronized boolean take(int budget, long millis) {
+			long now = System.currentTimeMillis();
+			if (left < 0) {
+				left = budget;
+			} else {
+				left = Math.min(budget, left + (double) budget * (now - updated) / millis);
+			}
+			updated = now;
+			if (left < 1) {
+				return false;
+			}
+			left--;
+			return true;
+		}
+	}
+}
@@ -148,6 +148,25 @@ public class RiotApiAsync {
 		this.endpointManager = endpointManager;
 	}
 
+	/**
+	 * Makes concurrent calls of the given api methods share one request. As long as a request for the same url on the same platform is
+	 * still running, a call returns that {@link AsyncRequest} instead of sending another one, so every caller's {@link RequestListener}s
+	 * get the same result. Once it completes, the next call sends a new request.
+	 * 
+	 * <p>
+	 * No method is coalesced unless it is added here, and only methods that read ({@code GET}) ever are. Note that cancelling a shared
+	 * request cancels it for every caller.
+	 * </p>
+	 * 
+	 * @param methods
+	 *            One or more {@link ApiMethod} classes, e.g. {@code GetSummoner.class}
+	 * @see #removeCoalescedMethods(Class...)
+	 */
+	@SafeVarargs
+	public final void addCoalescedMethods(Class<? extends ApiMethod>... methods) {
+		endpointManager.addCoalescedMethods(methods);
+	}
+
 	/**
 	 * Adds one or more {@link RequestListener} to get informed when asynchronous requests finish.
 	 * 
@@ -1534,6 +1553,18 @@ public class RiotApiAsync {
 		return endpointManager.callMethodAsynchronously(method);
 	}
 
+	/**
+	 * Stops coalescing calls of the given api methods.
+	 * 
+	 * @param methods
+	 *            One or more {@link ApiMethod} classes
+	 * @see #addCoalescedMethods(Class...)
+	 */
+	@SafeVarargs
+	public final void removeCoalescedMethods(Class<? extends ApiMethod>... methods) {
+		endpointManager.removeCoalescedMethods(methods);
+	}
+
 	/**
 	 * Removes one or more {@link RequestListener} from getting informed when asynchronous requests finish.
 	 * 
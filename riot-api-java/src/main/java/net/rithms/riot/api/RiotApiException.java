@@ -41,6 +41,7 @@ public class RiotApiException extends Exception {
 	public static final int IOEXCEPTION = 601;
 	public static final int NULLPOINTEREXCEPTION = 602;
 	public static final int TIMEOUT_EXCEPTION = 603;
+	public static final int QUEUE_FULL = 604;
 	public static final int MISSING_API_KEY = 611;
 	public static final int MISSING_TOURNAMENT_API_KEY = 612;
 
@@ -142,6 +143,8 @@ public class RiotApiException extends Exception {
 			return "NullPointerException thrown";
 		case PARSE_FAILURE:
 			return "Failed to parse the JSON response";
+		case QUEUE_FULL:
+			return "The queue of asynchronous requests is full";
 		case RATE_LIMITED:
 			return "Rate limit exceeded";
 		case SERVER_ERROR:
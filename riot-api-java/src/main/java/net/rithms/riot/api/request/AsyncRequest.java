@@ -16,9 +16,11 @@
 
 package net.rithms.riot.api.request;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 import java.util.logging.Level;
@@ -38,11 +40,15 @@ import net.rithms.riot.api.RiotApiException;
  */
 public class AsyncRequest extends Request implements Runnable {
 
+	// The request running in each thread, see getCurrent()
+	private static final ThreadLocal<AsyncRequest> current = new ThreadLocal<AsyncRequest>();
+
 	protected final Object signal = new Object();
 
 	private Collection<RequestListener> listeners = new CopyOnWriteArrayList<RequestListener>();
 	private Thread executionThread = null;
 	private boolean sent = false;
+	private volatile Runnable completionHook = null;
 
 	/**
 	 * Constructs an asynchronous request
@@ -60,14 +66,28 @@ public class AsyncRequest extends Request implements Runnable {
 	}
 
 	/**
-	 * Adds one or more {@link RequestListener} to this request
+	 * Adds one or more {@link RequestListener} to this request. If the request is already done, they are notified right away.
 	 * 
 	 * @param listeners
 	 *            One or more request listeners
 	 * @see RequestListener
 	 */
 	public void addListeners(RequestListener... listeners) {
-		this.listeners.addAll(Arrays.asList(listeners));
+		RequestState done = null;
+		// setState takes the listeners to notify under this lock, so these are either among them or see the request done here
+		synchronized (this) {
+			this.listeners.addAll(Arrays.asList(listeners));
+			if (isSuccessful()) {
+				done = RequestState.Succeeded;
+			} else if (isFailed()) {
+				done = RequestState.Failed;
+			} else if (isTimeOut()) {
+				done = RequestState.Timeout;
+			}
+		}
+		if (done != null) {
+			notifyListeners(Arrays.asList(listeners), done);
+		}
 	}
 
 	/**
@@ -181,6 +201,52 @@ public class AsyncRequest extends Request implements Runnable {
 		executionThread.start();
 	}
 
+	/**
+	 * Executes the request on the given {@code executor}, instead of in a new thread of its own. The request pool uses this when
+	 * {@link ApiConfig#getAsyncExecution()} is anything other than {@link net.rithms.riot.api.AsyncExecution#THREAD_PER_REQUEST}.
+	 * 
+	 * @param executor
+	 *            Executor to run the request on
+	 */
+	public void execute(Executor executor) {
+		synchronized (this) {
+			if (isSent()) {
+				return;
+			}
+			sent = true;
+		}
+		// Not under the lock, the executor may run the request right here
+		executor.execute(this);
+	}
+
+	/**
+	 * Fails this request without sending it, and notifies the listeners. The request pool uses this when it has no room for the request.
+	 * 
+	 * @param exception
+	 *            The reason the request failed
+	 * @return {@code false} if the request was already done
+	 */
+	public boolean reject(RiotApiException exception) {
+		synchronized (this) {
+			if (isSent()) {
+				return false;
+			}
+			sent = true;
+		}
+		setException(exception);
+		return setState(RequestState.Failed);
+	}
+
+	/**
+	 * Returns the request that is running in the current thread, e.g. when called from one of its listeners. The request pool uses this to
+	 * tell when a request makes another one.
+	 * 
+	 * @return The request, or {@code null} if the current thread is not running one
+	 */
+	public static AsyncRequest getCurrent() {
+		return current.get();
+	}
+
 	/**
 	 * Retrieves the request's result. If an exception would be thrown, it is swallowed, since you should only call this method, if the
 	 * request succeeded.
@@ -231,7 +297,11 @@ public class AsyncRequest extends Request implements Runnable {
 	 * @param state
 	 *            The state to notify the listeners about
 	 */
-	protected synchronized void notifyListeners(RequestState state) {
+	protected void notifyListeners(RequestState state) {
+		notifyListeners(listeners, state);
+	}
+
+	private void notifyListeners(Collection<RequestListener> listeners, RequestState state) {
 		for (RequestListener listener : listeners) {
 			if (state == RequestState.Succeeded) {
 				listener.onRequestSucceeded(this);
@@ -265,20 +335,48 @@ public class AsyncRequest extends Request implements Runnable {
 
 	@Override
 	public void run() {
+		// Another request, if this one is run by the caller
+		AsyncRequest outer = current.get();
+		current.set(this);
 		try {
 			super.execute();
 		} catch (RiotApiException e) {
 			setException(e);
+		} finally {
+			if (outer == null) {
+				current.remove();
+			} else {
+				current.set(outer);
+			}
+			Runnable hook = completionHook;
+			if (hook != null) {
+				hook.run();
+			}
 		}
 	}
 
+	/**
+	 * Sets a hook that is run once this request finished executing, after the listeners were notified, whatever the outcome. The request
+	 * pool uses this to start the next queued request.
+	 * 
+	 * @param completionHook
+	 *            Hook to run, or {@code null} for none
+	 */
+	public void setCompletionHook(Runnable completionHook) {
+		this.completionHook = completionHook;
+	}
+
 	@Override
 	protected boolean setState(RequestState state) {
-		if (isDone()) {
-			return false;
+		Collection<RequestListener> notified;
+		synchronized (this) {
+			if (!super.setState(state)) {
+				return false;
+			}
+			notified = new ArrayList<RequestListener>(listeners);
 		}
-		notifyListeners(state);
-		super.setState(state);
+		// Not under the lock, a listener may make (and even run) another request
+		notifyListeners(notified, state);
 		if (isDone()) {
 			synchronized (signal) {
 				signal.notifyAll();
@@ -16,11 +16,12 @@
 
 package net.rithms.riot.api.request;
 
-import java.io.BufferedReader;
 import java.io.DataOutputStream;
+import java.io.EOFException;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.io.Reader;
 import java.lang.reflect.Type;
 import java.net.HttpURLConnection;
 import java.net.SocketTimeoutException;
@@ -28,14 +29,22 @@ import java.net.URL;
 import java.nio.charset.StandardCharsets;
 import java.util.Objects;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.zip.GZIPInputStream;
 import java.util.logging.Level;
 
 import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
 import com.google.gson.JsonSyntaxException;
+import com.google.gson.TypeAdapter;
+import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.MalformedJsonException;
 
 import net.rithms.riot.api.ApiConfig;
 import net.rithms.riot.api.ApiMethod;
 import net.rithms.riot.api.HttpHeadParameter;
+import net.rithms.riot.api.RetryPolicy;
 import net.rithms.riot.api.RiotApi;
 import net.rithms.riot.api.RiotApiException;
 import net.rithms.riot.api.request.ratelimit.RateLimit;
@@ -76,13 +85,25 @@ public class Request {
 
 	private static final ConcurrentHashMap<String, RateLimitList> rateLimitMap = new ConcurrentHashMap<String, RateLimitList>();
 
+	// Gson is thread safe, and a new instance would have to work out its reflective type adapters all over again
+	private static final Gson gson = new Gson();
+	// Gson's own adapter cache is a synchronized map, looking up every response in it would serialize the decoding threads
+	private static final ConcurrentHashMap<Type, TypeAdapter<?>> typeAdapters = new ConcurrentHashMap<Type, TypeAdapter<?>>();
+
 	private volatile RequestState state = RequestState.Waiting;
 	private RequestResponse response = null;
+	// When the rate limit windows counted this request as sent, 0 if they didn't
+	private long rateLimitSendTime = 0;
+	// The result, if it was decoded while the response was read
+	private Object dto = null;
+	private boolean dtoDecoded = false;
 
 	protected ApiConfig config;
 	protected ApiMethod object;
 	protected HttpURLConnection connection = null;
 	private volatile RiotApiException exception = null;
+	// Not the monitor: a virtual thread that blocks on the network while holding a monitor pins its carrier thread
+	private final ReentrantLock executionLock = new ReentrantLock();
 
 	/**
 	 * Constructs a synchronous request
@@ -128,17 +149,67 @@ public class Request {
 	 * @throws RateLimitException
 	 *             If a rate limit is exceeded
 	 */
-	protected synchronized void execute() throws RiotApiException, RateLimitException {
+	protected void execute() throws RiotApiException, RateLimitException {
+		executionLock.lock();
+		try {
+			send();
+		} finally {
+			executionLock.unlock();
+		}
+	}
+
+	private void send() throws RiotApiException, RateLimitException {
 		setState(RequestState.Waiting);
+		for (int retried = 0;; retried++) {
+			RiotApiException exception = attempt();
+			if (exception == null) {
+				return;
+			}
+			long delay = getRetryDelay(exception, retried);
+			if (delay >= 0) {
+				RequestMetrics.get().increment(RequestMetrics.RETRIES, object);
+				RiotApi.log.fine("[" + object + "] Request > Retrying in " + delay + "ms");
+				try {
+					sleepUntil(System.currentTimeMillis() + delay);
+					if (isCancelled()) {
+						return;
+					}
+					continue;
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+			}
+			setException(exception);
+			setState(exception.getErrorCode() == RiotApiException.TIMEOUT_EXCEPTION ? RequestState.Timeout : RequestState.Failed);
+			throw exception;
+		}
+	}
+
+	/**
+	 * Sends the request once. Child classes that get their response some other way than from the Riot Api can override this, and set the
+	 * response and state themselves on success.
+	 * 
+	 * @return {@code null} if the request succeeded or was cancelled, otherwise why it failed
+	 */
+	protected RiotApiException attempt() {
+		RequestMetrics metrics = RequestMetrics.get();
+		// Whether the response was read to the end, so the connection can go back to the keep-alive cache
+		boolean reusable = false;
 		try {
 			object.checkRequirements();
 			respectRateLimit();
+			if (isCancelled()) {
+				// Cancelled while waiting for the rate limit
+				return null;
+			}
+			long beforeNetwork = System.nanoTime();
 			URL url = new URL(object.getUrl());
 			connection = (HttpURLConnection) url.openConnection();
 			setTimeout();
 			connection.setDoInput(true);
 			connection.setInstanceFollowRedirects(false);
 			connection.setRequestMethod(getMethod().name());
+			connection.setRequestProperty("Accept-Encoding", "gzip");
 			for (HttpHeadParameter p : object.getHttpHeadParameters()) {
 				connection.setRequestProperty(p.getKey(), p.getValue());
 			}
@@ -152,11 +223,16 @@ public class Request {
 				dos.close();
 			}
 			int responseCode = connection.getResponseCode();
+			updateRateLimitWindows();
+			metrics.recordSince(RequestMetrics.NETWORK, object, beforeNetwork);
+			metrics.countStatus(responseCode, object);
 
 			// Handle rate limit
 			if (responseCode == CODE_ERROR_RATE_LIMITED) {
 				String retryAfterString = connection.getHeaderField("Retry-After");
 				String rateLimitType = connection.getHeaderField("X-Rate-Limit-Type");
+				drain(connection.getErrorStream());
+				reusable = true;
 				if (retryAfterString != null) {
 					int retryAfter = Integer.parseInt(retryAfterString);
 					setRetryAfter(rateLimitType, retryAfter);
@@ -173,59 +249,173 @@ public class Request {
 			} else {
 				is = connection.getErrorStream();
 			}
-			StringBuilder responseBodyBuilder = new StringBuilder();
-			if (responseCode != CODE_SUCCESS_NO_CONTENT) {
-				BufferedReader br = new BufferedReader(new InputStreamReader(is, StandardCharsets.UTF_8));
-				String line;
-				while ((line = br.readLine()) != null) {
-					responseBodyBuilder.append(line).append(System.lineSeparator());
+			long beforeRead = System.nanoTime();
+			String responseBody = "";
+			if (responseCode == CODE_SUCCESS_NO_CONTENT) {
+				drain(is);
+				reusable = true;
+				metrics.recordSince(RequestMetrics.READ, object, beforeRead);
+			} else if (responseCode < 300 && !config.getKeepResponseBody() && isDecodable()) {
+				// Decoded straight from the connection, there's no body to keep
+				responseBody = null;
+				dtoDecoded = true;
+				try {
+					dto = decodeBody(is, connection.getContentEncoding(), object.getReturnType());
+					reusable = true;
+					metrics.recordSince(RequestMetrics.DECODE, object, beforeRead);
+				} catch (JsonParseException e) {
+					// Like a body that fails to parse in getDto(), the request succeeded but there is no result
+					dto = null;
 				}
-				br.close();
+			} else {
+				responseBody = readBody(is, connection.getContentEncoding(), connection.getContentLength());
+				reusable = true;
+				metrics.recordSince(RequestMetrics.READ, object, beforeRead);
 			}
 
 			// Handle error
 			if (responseCode >= 300) {
-				RiotApiError errorDto = new Gson().fromJson(responseBodyBuilder.toString(), RiotApiError.class);
+				RiotApiError errorDto = gson.fromJson(responseBody, RiotApiError.class);
 				throw new RiotApiException(responseCode, errorDto);
 			}
 
-			setResponse(new RequestResponse(connection.getResponseCode(), responseBodyBuilder.toString(), connection.getHeaderFields()));
+			setResponse(new RequestResponse(responseCode, responseBody, connection.getHeaderFields()));
 			setState(RequestState.Succeeded);
+			return null;
 		} catch (RateLimitException e) {
-			setException(e);
-			setState(RequestState.Failed);
+			if (e instanceof RespectedRateLimitException) {
+				metrics.increment(RequestMetrics.RATE_LIMIT_RESPECTED, object);
+			}
 			RiotApi.log.fine("[" + object + "] Request > RateLimitException: " + e.getMessage());
-			throw e;
+			return e;
 		} catch (RiotApiException e) {
-			setException(e);
-			setState(RequestState.Failed);
 			RiotApi.log.fine("[" + object + "] Request > RiotApiException: " + e.getMessage());
-			throw e;
+			return e;
 		} catch (SocketTimeoutException e) {
-			RiotApiException exception = new RiotApiException(RiotApiException.TIMEOUT_EXCEPTION);
-			setException(exception);
-			setState(RequestState.Timeout);
+			metrics.increment(RequestMetrics.ERRORS, object);
 			RiotApi.log.fine("[" + object + "] Request > Timeout");
-			throw exception;
+			return new RiotApiException(RiotApiException.TIMEOUT_EXCEPTION);
 		} catch (IOException e) {
-			RiotApiException exception = new RiotApiException(RiotApiException.IOEXCEPTION);
-			setException(exception);
-			setState(RequestState.Failed);
+			metrics.increment(RequestMetrics.ERRORS, object);
 			RiotApi.log.log(Level.SEVERE, "[" + object + "] Request > IOException", e);
-			throw exception;
+			return new RiotApiException(RiotApiException.IOEXCEPTION);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			RiotApi.log.fine("[" + object + "] Request > Interrupted while waiting for the rate limit");
+			return new RiotApiException(RiotApiException.IOEXCEPTION);
 		} catch (NullPointerException e) {
-			RiotApiException exception = new RiotApiException(RiotApiException.NULLPOINTEREXCEPTION);
-			setException(exception);
-			setState(RequestState.Failed);
 			RiotApi.log.log(Level.SEVERE, "[" + object + "] Request > NullPointerException", e);
-			throw exception;
+			return new RiotApiException(RiotApiException.NULLPOINTEREXCEPTION);
 		} finally {
-			if (connection != null) {
+			// Disconnecting would close the socket. If the whole response was read, the JDK keeps the connection for the next request to the
+			// same host instead (up to http.maxConnections idle ones per host)
+			if (connection != null && !reusable) {
 				connection.disconnect();
 			}
 		}
 	}
 
+	/**
+	 * Decodes the body of a response straight from the stream, unzipping it if the Riot Api sent it gzipped, and closes the stream.
+	 * 
+	 * @param is
+	 *            The stream of the body
+	 * @param contentEncoding
+	 *            The {@code Content-Encoding} of the response
+	 * @param type
+	 *            The type to decode
+	 * @return The decoded object, or {@code null} if the body is empty
+	 * @throws IOException
+	 *             If reading the body fails
+	 * @throws JsonParseException
+	 *             If the body is not a valid {@code type}
+	 */
+	private static Object decodeBody(InputStream is, String contentEncoding, Type type) throws IOException {
+		try (Reader reader = openBody(is, contentEncoding)) {
+			JsonReader jsonReader = new JsonReader(reader);
+			// Like Gson.fromJson
+			jsonReader.setLenient(true);
+			Object dto;
+			try {
+				dto = getTypeAdapter(type).read(jsonReader);
+			} catch (MalformedJsonException | EOFException | IllegalStateException e) {
+				throw new JsonSyntaxException(e);
+			}
+			// Read whatever is left (normally nothing), so the connection can be reused
+			char[] buffer = new char[256];
+			while (reader.read(buffer) != -1) {
+				// Discard
+			}
+			return dto;
+		}
+	}
+
+	private static TypeAdapter<?> getTypeAdapter(Type type) {
+		TypeAdapter<?> adapter = typeAdapters.get(type);
+		if (adapter == null) {
+			adapter = gson.getAdapter(TypeToken.get(type));
+			typeAdapters.putIfAbsent(type, adapter);
+		}
+		return adapter;
+	}
+
+	private static Reader openBody(InputStream is, String contentEncoding) throws IOException {
+		boolean gzipped = "gzip".equalsIgnoreCase(contentEncoding);
+		return new InputStreamReader(gzipped ? new GZIPInputStream(is) : is, StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * Reads the whole body of a response, unzipping it if the Riot Api sent it gzipped, and closes the stream.
+	 * 
+	 * @param is
+	 *            The stream of the body
+	 * @param contentEncoding
+	 *            The {@code Content-Encoding} of the response
+	 * @param contentLength
+	 *            The {@code Content-Length} of the response, or {@code -1} if unknown
+	 * @return The body
+	 * @throws IOException
+	 *             If reading the body fails
+	 */
+	private static String readBody(InputStream is, String contentEncoding, int contentLength) throws IOException {
+		if (is == null) {
+			return "";
+		}
+		try (Reader reader = openBody(is, contentEncoding)) {
+			// A gzipped body is usually a few times bigger than its content length
+			boolean gzipped = "gzip".equalsIgnoreCase(contentEncoding);
+			StringBuilder body = new StringBuilder(contentLength > 0 ? (gzipped ? contentLength * 4 : contentLength) : 1024);
+			char[] buffer = new char[8192];
+			int read;
+			while ((read = reader.read(buffer)) != -1) {
+				body.append(buffer, 0, read);
+			}
+			return body.toString();
+		}
+	}
+
+	/**
+	 * Reads a stream to the end and closes it, so the connection it belongs to can be reused.
+	 * 
+	 * @param is
+	 *            The stream, or {@code null}
+	 * @throws IOException
+	 *             If reading the stream fails
+	 */
+	private static void drain(InputStream is) throws IOException {
+		if (is == null) {
+			return;
+		}
+		try {
+			byte[] buffer = new byte[1024];
+			while (is.read(buffer) != -1) {
+				// Discard
+			}
+		} finally {
+			is.close();
+		}
+	}
+
 	/**
 	 * Retrieves the result of the request.
 	 * 
@@ -251,6 +441,7 @@ public class Request {
 	 * @throws RiotApiException
 	 *             If parsing the Riot Api's response fails
 	 */
+	@SuppressWarnings("unchecked")
 	protected <T> T getDto(boolean overrideStateRequirement) throws RiotApiException {
 		if (!overrideStateRequirement) {
 			requireSucceededRequestState();
@@ -269,14 +460,26 @@ public class Request {
 					+ "\" has not set a dtoType. If this method is supposed to return something and you encounter this issue, please file a bug.");
 		}
 		T dto = null;
-		try {
-			dto = new Gson().fromJson(response.getBody(), type);
-		} catch (JsonSyntaxException e) {
+		if (dtoDecoded) {
+			dto = (T) this.dto;
+		} else {
+			dto = decodeResponseBody(type);
+		}
+		if (dto == null) {
 			RiotApiException exception = new RiotApiException(RiotApiException.PARSE_FAILURE);
 			setException(exception);
 			throw exception;
 		}
-		if (dto == null) {
+		return dto;
+	}
+
+	private <T> T decodeResponseBody(Type type) throws RiotApiException {
+		T dto = null;
+		long beforeDecode = System.nanoTime();
+		try {
+			dto = gson.fromJson(response.getBody(), type);
+			RequestMetrics.get().recordSince(RequestMetrics.DECODE, object, beforeDecode);
+		} catch (JsonSyntaxException e) {
 			RiotApiException exception = new RiotApiException(RiotApiException.PARSE_FAILURE);
 			setException(exception);
 			throw exception;
@@ -293,6 +496,16 @@ public class Request {
 		return exception;
 	}
 
+	/**
+	 * Returns {@code true} if the result can be decoded without the request's caller, i.e. the method has a return type
+	 * 
+	 * @return {@code true} if the method returns something to decode
+	 */
+	private boolean isDecodable() {
+		Type type = object.getReturnType();
+		return type != null && type != Void.class;
+	}
+
 	private RequestMethod getMethod() {
 		RequestMethod method = object.getMethod();
 		Objects.requireNonNull(method);
@@ -323,6 +536,10 @@ public class Request {
 	protected void init(ApiConfig config, ApiMethod object) {
 		this.config = config;
 		this.object = object;
+		// Works out the adapter for the return type before the request is sent, instead of while its response is read
+		if (object.getReturnType() != null) {
+			getTypeAdapter(object.getReturnType());
+		}
 	}
 
 	/**
@@ -362,12 +579,22 @@ public class Request {
 		return state == RequestState.Waiting;
 	}
 
-	private boolean isRateLimitExceeded() {
-		if (config.getKey() == null || !rateLimitMap.containsKey(config.getKey())) {
-			return false;
+	/**
+	 * Returns the rate limits of this request's api key.
+	 * 
+	 * @return The rate limits, or {@code null} if there is no api key, or no platform to keep them for
+	 */
+	private RateLimitList getRateLimitList() {
+		String key = config.getKey();
+		if (key == null || object.getPlatform() == null) {
+			return null;
 		}
-		RateLimitList rateLimitList = rateLimitMap.get(config.getKey());
-		return rateLimitList.isLimitExceeded(object.getService(), object.getPlatform());
+		RateLimitList rateLimitList = rateLimitMap.get(key);
+		if (rateLimitList == null) {
+			rateLimitMap.putIfAbsent(key, new RateLimitList());
+			rateLimitList = rateLimitMap.get(key);
+		}
+		return rateLimitList;
 	}
 
 	/**
@@ -404,19 +631,110 @@ public class Request {
 		}
 	}
 
-	private void respectRateLimit() throws RespectedRateLimitException {
+	/**
+	 * Holds the request back if sending it now would exceed a rate limit: either a {@code Retry-After} of an earlier 429, or one of the
+	 * windows announced in the rate limit headers. Depending on {@link ApiConfig#getWaitForRateLimit()}, this either waits until the
+	 * request may be sent, or throws.
+	 * 
+	 * @throws RespectedRateLimitException
+	 *             If the request may not be sent yet, and we are not to wait
+	 * @throws InterruptedException
+	 *             If interrupted while waiting
+	 */
+	private void respectRateLimit() throws RespectedRateLimitException, InterruptedException {
 		if (!config.getRespectRateLimit()) {
 			return;
 		}
-		if (isRateLimitExceeded()) {
-			RateLimit rateLimit = rateLimitMap.get(config.getKey()).getRateLimit(object.getService(), object.getPlatform());
+		RateLimitList rateLimitList = getRateLimitList();
+		if (rateLimitList == null) {
+			return;
+		}
+		while (true) {
+			// A Retry-After of an earlier 429, or else the windows
+			RateLimit rateLimit = rateLimitList.getRateLimit(object.getService(), object.getPlatform());
 			if (rateLimit == null) {
-				return;
+				rateLimit = rateLimitList.acquire(object.getService(), object.getPlatform());
+				if (rateLimit == null || !rateLimit.isLimitExceeded()) {
+					rateLimitSendTime = rateLimit == null ? 0 : rateLimit.getRetryTime();
+					return;
+				}
+			}
+			if (!config.getWaitForRateLimit()) {
+				throw new RespectedRateLimitException(rateLimit.getRetryAfter(), rateLimit.getType());
 			}
-			throw new RespectedRateLimitException(rateLimit.getRetryAfter(), rateLimit.getType());
+			// Others may get there first, so check again then
+			sleepUntil(rateLimit.getRetryTime());
 		}
 	}
 
+	/**
+	 * Returns how long to wait before retrying a failed attempt, according to {@link ApiConfig#getRetryPolicy()}. A retry waits at least
+	 * until the known rate limits let it be sent, and if that is further away than the policy's max delay, there is none.
+	 * 
+	 * @param exception
+	 *            Why the attempt failed
+	 * @param retried
+	 *            How many times the request was retried already
+	 * @return The wait in milliseconds, or {@code -1} if the request is not retried
+	 */
+	private long getRetryDelay(RiotApiException exception, int retried) {
+		RetryPolicy retryPolicy = config.getRetryPolicy();
+		if (retryPolicy == null || isCancelled() || Thread.currentThread().isInterrupted()) {
+			return -1;
+		}
+		long now = System.currentTimeMillis();
+		long earliest = now;
+		if (exception instanceof RateLimitException) {
+			earliest = now + ((RateLimitException) exception).getRetryAfter() * 1000L;
+		}
+		RateLimitList rateLimitList = config.getRespectRateLimit() ? getRateLimitList() : null;
+		if (rateLimitList != null) {
+			RateLimit rateLimit = rateLimitList.getRateLimit(object.getService(), object.getPlatform());
+			if (rateLimit != null) {
+				earliest = Math.max(earliest, rateLimit.getRetryTime());
+			}
+			rateLimit = rateLimitList.peek(object.getService(), object.getPlatform());
+			if (rateLimit != null) {
+				earliest = Math.max(earliest, rateLimit.getRetryTime());
+			}
+		}
+		if (earliest - now > retryPolicy.getMaxDelay()) {
+			return -1;
+		}
+		long delay = retryPolicy.getRetryDelay(exception, retried, object.getPlatform());
+		if (delay < 0) {
+			return -1;
+		}
+		return Math.max(delay, earliest - now);
+	}
+
+	private static void sleepUntil(long time) throws InterruptedException {
+		long millis;
+		while ((millis = time - System.currentTimeMillis()) > 0) {
+			Thread.sleep(millis);
+		}
+	}
+
+	/**
+	 * Passes the rate limit headers of the response on to the rate limit windows, so the next requests know how many they can send.
+	 */
+	private void updateRateLimitWindows() {
+		if (!config.getRespectRateLimit()) {
+			return;
+		}
+		RateLimitList rateLimitList = getRateLimitList();
+		if (rateLimitList == null) {
+			return;
+		}
+		if (rateLimitSendTime > 0) {
+			rateLimitList.answered(object.getService(), object.getPlatform(), rateLimitSendTime, System.currentTimeMillis());
+			rateLimitSendTime = 0;
+		}
+		rateLimitList.updateWindows(object.getService(), object.getPlatform(), connection.getHeaderField(RateLimitList.APP_LIMIT_HEADER),
+				connection.getHeaderField(RateLimitList.APP_COUNT_HEADER), connection.getHeaderField(RateLimitList.METHOD_LIMIT_HEADER),
+				connection.getHeaderField(RateLimitList.METHOD_COUNT_HEADER));
+	}
+
 	/**
 	 * Sets the Exception that was thrown when executing this request
 	 * 
@@ -428,16 +746,23 @@ public class Request {
 		this.exception = exception;
 	}
 
-	private void setResponse(RequestResponse response) {
+	/**
+	 * Sets the raw response of this request. Child classes that get their response some other way than from the Riot Api (e.g. from a
+	 * fixture) can use this.
+	 * 
+	 * @param response
+	 *            Raw response
+	 */
+	protected void setResponse(RequestResponse response) {
 		this.response = response;
 	}
 
 	private void setRetryAfter(String rateLimitType, int retryAfter) {
-		String key = config.getKey();
-		if (!rateLimitMap.containsKey(key)) {
-			rateLimitMap.put(key, new RateLimitList());
+		RateLimitList rateLimitList = getRateLimitList();
+		if (rateLimitList == null) {
+			return;
 		}
-		rateLimitMap.get(key).setRateLimit(object.getService(), object.getPlatform(), rateLimitType, retryAfter);
+		rateLimitList.setRateLimit(object.getService(), object.getPlatform(), rateLimitType, retryAfter);
 	}
 
 	/**
@@ -0,0 +1,246 @@
+/*
+ * Copyright 2016 Taylor Caldwell
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.rithms.riot.api.request;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.logging.Level;
+
+import javax.management.ObjectName;
+
+import com.google.gson.GsonBuilder;
+
+import net.rithms.riot.api.ApiMethod;
+import net.rithms.riot.api.RiotApi;
+
+/**
+ * Collects latency histograms and error counters for all requests fired at the Riot Api, per api method (e.g.
+ * {@code network GetMatch}).
+ * 
+ * <p>
+ * Histograms: {@code network} (connecting until the response code is known), {@code read} (reading the response body) and {@code decode}
+ * (parsing the body). Results are decoded while the body is read, unless {@link net.rithms.riot.api.ApiConfig#getKeepResponseBody()}
+ * is set, so {@code decode} covers the reading too and {@code read} is only recorded for errors and kept bodies. Counters: {@code status.429}, {@code status.404}, {@code status.5xx}, {@code errors}
+ * (timeouts and I/O failures), {@code ratelimit.respected} (requests not sent because a known rate limit was still in effect) and
+ * {@code retries} (failed requests sent again, see {@link net.rithms.riot.api.RetryPolicy}).
+ * </p>
+ * 
+ * <p>
+ * The metrics are registered as the MBean {@code net.rithms.riot.api:type=RequestMetrics} and can be written to a file with
+ * {@link #dump(String)}.
+ * </p>
+ */
+public class RequestMetrics implements RequestMetricsMXBean {
+
+	public static final String NETWORK = "network";
+	public static final String READ = "read";
+	public static final String DECODE = "decode";
+
+	public static final String RATE_LIMITED = "status.429";
+	public static final String NOT_FOUND = "status.404";
+	public static final String SERVER_ERROR = "status.5xx";
+	public static final String ERRORS = "errors";
+	public static final String RATE_LIMIT_RESPECTED = "ratelimit.respected";
+	public static final String RETRIES = "retries";
+
+	private static final RequestMetrics instance = new RequestMetrics();
+
+	static {
+		try {
+			ManagementFactory.getPlatformMBeanServer().registerMBean(instance, new ObjectName("net.rithms.riot.api:type=RequestMetrics"));
+		} catch (Exception e) {
+			RiotApi.log.log(Level.WARNING, "Could not register the request metrics MBean", e);
+		}
+	}
+
+	private final ConcurrentMap<String, Histogram> histograms = new ConcurrentHashMap<String, Histogram>();
+	private final ConcurrentMap<String, AtomicLong> counters = new ConcurrentHashMap<String, AtomicLong>();
+
+	RequestMetrics() {
+	}
+
+	/**
+	 * Returns the metrics shared by all requests in this JVM.
+	 * 
+	 * @return The request metrics
+	 */
+	public static RequestMetrics get() {
+		return instance;
+	}
+
+	private static String key(String name, ApiMethod method) {
+		return name + " " + method.getClass().getSimpleName();
+	}
+
+	/**
+	 * Records the time that passed since {@code startNanos}, a value of {@link System#nanoTime()}.
+	 */
+	void recordSince(String name, ApiMethod method, long startNanos) {
+		String key = key(name, method);
+		Histogram histogram = histograms.get(key);
+		if (histogram == null) {
+			Histogram created = new Histogram();
+			histogram = histograms.putIfAbsent(key, created);
+			if (histogram == null) {
+				histogram = created;
+			}
+		}
+		histogram.record(TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - startNanos));
+	}
+
+	void increment(String name, ApiMethod method) {
+		String key = key(name, method);
+		AtomicLong counter = counters.get(key);
+		if (counter == null) {
+			AtomicLong created = new AtomicLong();
+			counter = counters.putIfAbsent(key, created);
+			if (counter == null) {
+				counter = created;
+			}
+		}
+		counter.incrementAndGet();
+	}
+
+	void countStatus(int responseCode, ApiMethod method) {
+		if (responseCode == Request.CODE_ERROR_RATE_LIMITED) {
+			increment(RATE_LIMITED, method);
+		} else if (responseCode == Request.CODE_ERROR_NOT_FOUND) {
+			increment(NOT_FOUND, method);
+		} else if (responseCode >= Request.CODE_ERROR_SERVER_ERROR) {
+			increment(SERVER_ERROR, method);
+		}
+	}
+
+	@Override
+	public Map<String, Long> getCounters() {
+		Map<String, Long> snapshot = new TreeMap<String, Long>();
+		for (Map.Entry<String, AtomicLong> counter : counters.entrySet()) {
+			snapshot.put(counter.getKey(), counter.getValue().get());
+		}
+		return snapshot;
+	}
+
+	@Override
+	public Map<String, String> getHistograms() {
+		Map<String, String> snapshot = new TreeMap<String, String>();
+		for (Map.Entry<String, Histogram> histogram : histograms.entrySet()) {
+			snapshot.put(histogram.getKey(), histogram.getValue().toString());
+		}
+		return snapshot;
+	}
+
+	@Override
+	public String dump(String file) {
+		Map<String, Object> snapshot = new LinkedHashMap<String, Object>();
+		snapshot.put("time", System.currentTimeMillis());
+		snapshot.put("counters", getCounters());
+		Map<String, Object> histogramSnapshots = new TreeMap<String, Object>();
+		for (Map.Entry<String, Histogram> histogram : histograms.entrySet()) {
+			histogramSnapshots.put(histogram.getKey(), histogram.getValue().snapshot());
+		}
+		snapshot.put("histograms", histogramSnapshots);
+
+		File target = new File(file).getAbsoluteFile();
+		try {
+			File tmp = File.createTempFile(target.getName(), ".tmp", target.getParentFile());
+			try (Writer writer = new OutputStreamWriter(Files.newOutputStream(tmp.toPath()), StandardCharsets.UTF_8)) {
+				new GsonBuilder().setPrettyPrinting().create().toJson(snapshot, writer);
+			}
+			// Readers of the file never see a partially written dump
+			Files.move(tmp.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		} catch (IOException e) {
+			throw new IllegalStateException("Could not dump the request metrics to " + target, e);
+		}
+		return target.getPath();
+	}
+
+	@Override
+	public void reset() {
+		histograms.clear();
+		counters.clear();
+	}
+
+	/**
+	 * A latency histogram with power of two buckets, in microseconds. Percentiles are reported as the upper bound of their bucket.
+	 */
+	static class Histogram {
+		private static final int BUCKETS = 36;
+
+		private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+		private final AtomicLong count = new AtomicLong();
+		private final AtomicLong sum = new AtomicLong();
+		private final AtomicLong max = new AtomicLong();
+
+		void record(long micros) {
+			long value = Math.max(0, micros);
+			buckets.incrementAndGet(Math.min(BUCKETS - 1, 64 - Long.numberOfLeadingZeros(value)));
+			count.incrementAndGet();
+			sum.addAndGet(value);
+			long currentMax;
+			while (value > (currentMax = max.get()) && !max.compareAndSet(currentMax, value)) {
+				// Another thread changed the max in the meantime, try again
+			}
+		}
+
+		double getPercentileMillis(double percentile) {
+			long total = count.get();
+			if (total == 0) {
+				return 0;
+			}
+			long rank = (long) Math.ceil(total * percentile / 100);
+			long seen = 0;
+			for (int i = 0; i < BUCKETS; i++) {
+				seen += buckets.get(i);
+				if (seen >= rank) {
+					return Math.min(1L << i, max.get()) / 1000.0;
+				}
+			}
+			return max.get() / 1000.0;
+		}
+
+		Map<String, Object> snapshot() {
+			long total = count.get();
+			Map<String, Object> snapshot = new LinkedHashMap<String, Object>();
+			snapshot.put("count", total);
+			snapshot.put("meanMillis", total == 0 ? 0 : sum.get() / 1000.0 / total);
+			snapshot.put("p50Millis", getPercentileMillis(50));
+			snapshot.put("p90Millis", getPercentileMillis(90));
+			snapshot.put("p99Millis", getPercentileMillis(99));
+			snapshot.put("maxMillis", max.get() / 1000.0);
+			return snapshot;
+		}
+
+		@Override
+		public String toString() {
+			return snapshot().toString();
+		}
+	}
+}
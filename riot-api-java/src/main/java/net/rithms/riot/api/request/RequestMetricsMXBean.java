@@ -0,0 +1,40 @@
+/*
+ * Copyright 2016 Taylor Caldwell
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.rithms.riot.api.request;
+
+import java.util.Map;
+
+/**
+ * What {@link RequestMetrics} shows over JMX, under {@code net.rithms.riot.api:type=RequestMetrics}.
+ */
+public interface RequestMetricsMXBean {
+
+	Map<String, Long> getCounters();
+
+	Map<String, String> getHistograms();
+
+	/**
+	 * Writes all metrics to a file, as JSON.
+	 * 
+	 * @param file
+	 *            Path of the file to write
+	 * @return The absolute path of the written file
+	 */
+	String dump(String file);
+
+	void reset();
+}
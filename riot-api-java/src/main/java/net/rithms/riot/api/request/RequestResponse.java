@@ -56,9 +56,10 @@ public class RequestResponse {
 	}
 
 	/**
-	 * Returns the raw HTTP body from the Riot Api.
+	 * Returns the raw HTTP body from the Riot Api. The body of a successful response is only kept if
+	 * {@link net.rithms.riot.api.ApiConfig#setKeepResponseBody(boolean)} is set, otherwise it is decoded while it is read.
 	 *
-	 * @return HTTP body
+	 * @return HTTP body, or {@code null} if it was not kept
 	 */
 	public String getBody() {
 		return body;
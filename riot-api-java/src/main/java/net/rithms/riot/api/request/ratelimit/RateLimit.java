@@ -30,6 +30,20 @@ public class RateLimit {
 		this.retryTime = System.currentTimeMillis() + (retryAfter * 1000);
 	}
 
+	/**
+	 * Constructs a rate limit that ends at the given time, rather than a number of seconds from now.
+	 * 
+	 * @param type
+	 *            The type of rate limit
+	 * @param retryTime
+	 *            When the limit ends, in milliseconds since the epoch
+	 */
+	public RateLimit(String type, long retryTime) {
+		this.type = type;
+		this.retryAfter = (int) Math.max(0, (retryTime - System.currentTimeMillis() + 999) / 1000);
+		this.retryTime = retryTime;
+	}
+
 	public int getRetryAfter() {
 		return retryAfter;
 	}
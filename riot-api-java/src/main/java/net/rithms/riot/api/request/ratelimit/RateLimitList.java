@@ -13,6 +13,8 @@
 
 package net.rithms.riot.api.request.ratelimit;
 
+import java.util.HashMap;
+import java.util.Iterator;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 
@@ -20,13 +22,130 @@ import net.rithms.riot.constant.Platform;
 
 /**
  * This class provides a list of rate limits and retry times.
+ * <p>
+ * Besides the {@code Retry-After} of 429 responses, it keeps track of the rate limit windows the Riot Api announces in the
+ * {@code X-App-Rate-Limit} and {@code X-Method-Rate-Limit} headers of every response (per platform, and per platform and service), and
+ * counts the requests sent in each of them, so a request that would exceed a window can be held back before it is sent.
+ * </p>
  * 
  * @author Daniel 'Linnun' Figge
  */
 public class RateLimitList {
 
+	public static final String APP_LIMIT_HEADER = "X-App-Rate-Limit";
+	public static final String APP_COUNT_HEADER = "X-App-Rate-Limit-Count";
+	public static final String METHOD_LIMIT_HEADER = "X-Method-Rate-Limit";
+	public static final String METHOD_COUNT_HEADER = "X-Method-Rate-Limit-Count";
+
 	private final Map<Platform, RateLimit> userLimits = new ConcurrentHashMap<Platform, RateLimit>();
 	private final Map<Platform, Map<String, RateLimit>> serviceLimits = new ConcurrentHashMap<Platform, Map<String, RateLimit>>();
+	private final ConcurrentHashMap<Platform, Windows> windows = new ConcurrentHashMap<Platform, Windows>();
+
+	/**
+	 * Takes a place in the rate limit windows of {@code service} on {@code platform}, for a request about to be sent.
+	 * 
+	 * @param service
+	 *            The service the request is for
+	 * @param platform
+	 *            The platform the request is for
+	 * @return {@code null} if there are no known windows. Otherwise the time the request may be sent as the retry time, and if that is in
+	 *         the future, the type of the window limit that holds it back. If it is now, the request has been counted as sent
+	 */
+	public RateLimit acquire(String service, Platform platform) {
+		Windows platformWindows = windows.get(platform);
+		if (platformWindows == null) {
+			return null;
+		}
+		synchronized (platformWindows) {
+			Map<Integer, RateLimitWindow> methodWindows = platformWindows.methods.get(service);
+			long now = System.currentTimeMillis();
+			RateLimit next = getNextSend(platformWindows.application, methodWindows, now);
+			if (next.getRetryTime() > now) {
+				// Nothing is reserved for later, by then requests still in flight will have been moved (see answered)
+				return next;
+			}
+			for (RateLimitWindow window : platformWindows.application.values()) {
+				window.record(now);
+			}
+			if (methodWindows != null) {
+				for (RateLimitWindow window : methodWindows.values()) {
+					window.record(now);
+				}
+			}
+			return new RateLimit(null, now);
+		}
+	}
+
+	/**
+	 * Counts a request that has been answered as sent when the answer came, rather than when it was sent, since the Riot Api counts it
+	 * somewhere in between.
+	 * 
+	 * @param service
+	 *            The service the request was for
+	 * @param platform
+	 *            The platform the request was for
+	 * @param sendTime
+	 *            The time the request was counted at by {@link #acquire(String, Platform)}
+	 * @param responseTime
+	 *            The time the answer came
+	 */
+	public void answered(String service, Platform platform, long sendTime, long responseTime) {
+		Windows platformWindows = windows.get(platform);
+		if (platformWindows == null) {
+			return;
+		}
+		synchronized (platformWindows) {
+			for (RateLimitWindow window : platformWindows.application.values()) {
+				window.move(sendTime, responseTime);
+			}
+			Map<Integer, RateLimitWindow> methodWindows = platformWindows.methods.get(service);
+			if (methodWindows != null) {
+				for (RateLimitWindow window : methodWindows.values()) {
+					window.move(sendTime, responseTime);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Returns when the rate limit windows of {@code service} on {@code platform} let the next request be sent, without counting one.
+	 * 
+	 * @param service
+	 *            The service of the request
+	 * @param platform
+	 *            The platform of the request
+	 * @return {@code null} if there are no known windows, otherwise the time as the retry time, like {@link #acquire(String, Platform)}
+	 */
+	public RateLimit peek(String service, Platform platform) {
+		Windows platformWindows = windows.get(platform);
+		if (platformWindows == null) {
+			return null;
+		}
+		synchronized (platformWindows) {
+			return getNextSend(platformWindows.application, platformWindows.methods.get(service), System.currentTimeMillis());
+		}
+	}
+
+	private static RateLimit getNextSend(Map<Integer, RateLimitWindow> applicationWindows, Map<Integer, RateLimitWindow> methodWindows,
+			long now) {
+		long sendTime = now;
+		String type = null;
+		for (RateLimitWindow window : applicationWindows.values()) {
+			if (window.getNextSendTime(now) > sendTime) {
+				sendTime = window.getNextSendTime(now);
+				type = "application";
+			}
+		}
+		if (methodWindows != null) {
+			for (RateLimitWindow window : methodWindows.values()) {
+				if (window.getNextSendTime(now) > sendTime) {
+					sendTime = window.getNextSendTime(now);
+					type = "method";
+				}
+			}
+		}
+		return new RateLimit(type, sendTime);
+	}
 
 	public RateLimit getRateLimit(String service, Platform platform) {
 		if (userLimits.containsKey(platform)) {
@@ -63,13 +182,111 @@ public class RateLimitList {
 	}
 
 	public void setRateLimit(String service, Platform platform, String type, int retryAfter) {
-		if (type.equals("user")) {
+		if (type == null) {
+			return;
+		}
+		if (type.equals("user") || type.equals("application")) {
 			userLimits.put(platform, new RateLimit(type, retryAfter));
-		} else if (type.equals("service")) {
+		} else if (type.equals("service") || type.equals("method")) {
 			if (!serviceLimits.containsKey(platform)) {
 				serviceLimits.put(platform, new ConcurrentHashMap<String, RateLimit>());
 			}
 			serviceLimits.get(platform).put(service, new RateLimit(type, retryAfter));
 		}
 	}
+
+	/**
+	 * Makes the windows of {@code service} on {@code platform} match the rate limit headers of a response, and brings their counts up to
+	 * what the Riot Api counted. Headers that are missing leave their windows as they are.
+	 * 
+	 * @param service
+	 *            The service the request was for
+	 * @param platform
+	 *            The platform the request was for
+	 * @param appLimits
+	 *            The {@code X-App-Rate-Limit} header, e.g. {@code 20:1,100:120}
+	 * @param appCounts
+	 *            The {@code X-App-Rate-Limit-Count} header, e.g. {@code 1:1,1:120}
+	 * @param methodLimits
+	 *            The {@code X-Method-Rate-Limit} header
+	 * @param methodCounts
+	 *            The {@code X-Method-Rate-Limit-Count} header
+	 */
+	public void updateWindows(String service, Platform platform, String appLimits, String appCounts, String methodLimits, String methodCounts) {
+		if (appLimits == null && methodLimits == null) {
+			return;
+		}
+		windows.putIfAbsent(platform, new Windows());
+		Windows platformWindows = windows.get(platform);
+		synchronized (platformWindows) {
+			long now = System.currentTimeMillis();
+			update(platformWindows.application, appLimits, appCounts, now);
+			Map<Integer, RateLimitWindow> methodWindows = platformWindows.methods.get(service);
+			if (methodWindows == null) {
+				methodWindows = new HashMap<Integer, RateLimitWindow>();
+				platformWindows.methods.put(service, methodWindows);
+			}
+			update(methodWindows, methodLimits, methodCounts, now);
+		}
+	}
+
+	private static void update(Map<Integer, RateLimitWindow> windows, String limitsHeader, String countsHeader, long now) {
+		if (limitsHeader == null) {
+			return;
+		}
+		Map<Integer, Integer> limits = parse(limitsHeader);
+		if (limits.isEmpty()) {
+			return;
+		}
+		Iterator<Integer> iterator = windows.keySet().iterator();
+		while (iterator.hasNext()) {
+			if (!limits.containsKey(iterator.next())) {
+				iterator.remove();
+			}
+		}
+		for (Map.Entry<Integer, Integer> limit : limits.entrySet()) {
+			RateLimitWindow window = windows.get(limit.getKey());
+			if (window == null) {
+				windows.put(limit.getKey(), new RateLimitWindow(limit.getValue(), limit.getKey()));
+			} else {
+				window.setLimit(limit.getValue());
+			}
+		}
+		if (countsHeader != null) {
+			for (Map.Entry<Integer, Integer> count : parse(countsHeader).entrySet()) {
+				RateLimitWindow window = windows.get(count.getKey());
+				if (window != null) {
+					window.sync(count.getValue(), now);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Parses a rate limit header, e.g. {@code 20:1,100:120} to {@code 1 -> 20, 120 -> 100}
+	 * 
+	 * @param header
+	 *            Pairs of a count and a number of seconds
+	 * @return Seconds mapped to counts
+	 */
+	static Map<Integer, Integer> parse(String header) {
+		Map<Integer, Integer> parsed = new HashMap<Integer, Integer>();
+		for (String pair : header.split(",")) {
+			String[] parts = pair.trim().split(":");
+			if (parts.length != 2) {
+				continue;
+			}
+			try {
+				parsed.put(Integer.parseInt(parts[1].trim()), Integer.parseInt(parts[0].trim()));
+			} catch (NumberFormatException e) {
+				// Ignore what we don't understand, the Retry-After of a 429 still applies
+			}
+		}
+		return parsed;
+	}
+
+	private static class Windows {
+		final Map<Integer, RateLimitWindow> application = new HashMap<Integer, RateLimitWindow>();
+		final Map<String, Map<Integer, RateLimitWindow>> methods = new HashMap<String, Map<Integer, RateLimitWindow>>();
+	}
 }
\ No newline at end of file
@@ -0,0 +1,164 @@
+/*
+ * Copyright 2016 Taylor Caldwell
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the License. You may
+ * obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language governing permissions
+ * and limitations under the License.
+ */
+
+package net.rithms.riot.api.request.ratelimit;
+
+/**
+ * A sliding log of the requests sent within one rate limit window, e.g. 100 requests every 120 seconds. Riot's windows are fixed (they
+ * start with the first request), a sliding window is always at least as strict.
+ * <p>
+ * The log is a ring of the last {@code limit} send times, in order, so the next request may be sent once the oldest of them is out of the
+ * window.
+ * Not thread safe, {@link RateLimitList} guards it.
+ * </p>
+ */
+class RateLimitWindow {
+
+	private final long millis;
+	private int limit;
+	// Send times in the order they were recorded, oldest at next. 0 for none
+	private long[] sends;
+	private int next = 0;
+
+	RateLimitWindow(int limit, int seconds) {
+		this.millis = seconds * 1000L;
+		this.limit = Math.max(limit, 1);
+		this.sends = new long[this.limit];
+	}
+
+	int getLimit() {
+		return limit;
+	}
+
+	/**
+	 * Returns the earliest time a request may be sent without going over this window's limit.
+	 * 
+	 * @param now
+	 *            The current time, in milliseconds
+	 * @return The earliest time, no earlier than {@code now}
+	 */
+	long getNextSendTime(long now) {
+		return Math.max(now, sends[next] + millis);
+	}
+
+	/**
+	 * Records a request, in place of the oldest one.
+	 * 
+	 * @param time
+	 *            The time the request is (or will be) sent
+	 */
+	void record(long time) {
+		sends[next] = time;
+		next = (next + 1) % limit;
+		// Keep the log sorted, the system clock may have gone back
+		for (int i = limit - 1; i > 0; i--) {
+			int current = (next + i) % limit;
+			int previous = (next + i - 1) % limit;
+			if (sends[previous] <= sends[current]) {
+				break;
+			}
+			long swap = sends[current];
+			sends[current] = sends[previous];
+			sends[previous] = swap;
+		}
+	}
+
+	/**
+	 * Moves a recorded request to a later time. A request is recorded when it is sent, but the Riot Api counts it when it arrives, which
+	 * can be much later (e.g. on a new connection), so once its response is in, it is counted as sent then.
+	 * 
+	 * @param recorded
+	 *            The time the request was recorded at
+	 * @param time
+	 *            The time to count it at instead
+	 */
+	void move(long recorded, long time) {
+		// Newest first, the request was recorded recently
+		for (int i = limit - 1; i >= 0; i--) {
+			int index = (next + i) % limit;
+			if (sends[index] < recorded) {
+				return;
+			}
+			if (sends[index] == recorded) {
+				sends[index] = Math.max(recorded, time);
+				// Keep the log sorted
+				for (int j = i; j < limit - 1; j++) {
+					int current = (next + j) % limit;
+					int following = (current + 1) % limit;
+					if (sends[current] <= sends[following]) {
+						break;
+					}
+					long swap = sends[current];
+					sends[current] = sends[following];
+					sends[following] = swap;
+				}
+				return;
+			}
+		}
+	}
+
+	/**
+	 * Returns how many requests were recorded within the window that ends at {@code now}.
+	 */
+	int count(long now) {
+		long start = now - millis;
+		// Binary search for the oldest send inside the window, the log is sorted starting at next
+		int low = 0;
+		int high = limit;
+		while (low < high) {
+			int middle = (low + high) >>> 1;
+			if (sends[(next + middle) % limit] > start) {
+				high = middle;
+			} else {
+				low = middle + 1;
+			}
+		}
+		return limit - low;
+	}
+
+	/**
+	 * Brings the count up to what Riot counted (e.g. requests made by other processes with the same key), as if the missing requests were
+	 * sent just now.
+	 * 
+	 * @param count
+	 *            The count Riot sent
+	 * @param now
+	 *            The current time, in milliseconds
+	 */
+	void sync(int count, long now) {
+		for (int missing = Math.min(count, limit) - count(now); missing > 0; missing--) {
+			record(now);
+		}
+	}
+
+	/**
+	 * Changes the limit, keeping the most recent sends.
+	 * 
+	 * @param limit
+	 *            The new limit
+	 */
+	void setLimit(int limit) {
+		limit = Math.max(limit, 1);
+		if (limit == this.limit) {
+			return;
+		}
+		long[] resized = new long[limit];
+		int kept = Math.min(limit, this.limit);
+		for (int i = 0; i < kept; i++) {
+			resized[limit - kept + i] = sends[(next + this.limit - kept + i) % this.limit];
+		}
+		this.sends = resized;
+		this.limit = limit;
+		this.next = 0;
+	}
+}
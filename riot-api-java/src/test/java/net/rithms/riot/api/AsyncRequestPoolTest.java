@@ -0,0 +1,296 @@
+/*
+ * Copyright 2016 Taylor Caldwell
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.rithms.riot.api;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Test;
+
+import net.rithms.riot.api.request.AsyncRequest;
+import net.rithms.riot.api.request.RequestAdapter;
+
+/**
+ * Tests the queue of {@link AsyncRequestPool} with requests that never go to the Riot Api.
+ */
+public class AsyncRequestPoolTest {
+
+	// How long to wait for something that should happen
+	private static final long TIMEOUT = 5000;
+	// How long to watch for something that should not happen
+	private static final long WATCH = 200;
+
+	private final List<StubRequest> requests = new ArrayList<StubRequest>();
+
+	@After
+	public void releaseRequests() {
+		for (StubRequest request : requests) {
+			request.release();
+		}
+	}
+
+	@Test
+	public void testAwaitAllReturnsOncePendingReachesZero() throws InterruptedException {
+		ApiConfig config = new ApiConfig().setMaxAsyncThreads(1);
+		AsyncRequestPool pool = new AsyncRequestPool(config);
+		assertAwaitAllReturns(pool);
+
+		StubRequest first = stub(config);
+		StubRequest second = stub(config);
+		pool.add(first);
+		pool.add(second);
+		assertTrue(first.awaitStart(TIMEOUT));
+		Thread waiter = awaitAllInBackground(pool);
+		first.release();
+		assertTrue(second.awaitStart(TIMEOUT));
+		waiter.join(WATCH);
+		assertTrue("awaitAll returned while a request was running", waiter.isAlive());
+		second.release();
+		waiter.join(TIMEOUT);
+		assertFalse("awaitAll did not return", waiter.isAlive());
+		assertTrue(pool.isEmpty());
+	}
+
+	@Test
+	public void testBlockWhenQueueFull() throws InterruptedException {
+		ApiConfig config = fullQueueConfig(QueueFullPolicy.BLOCK);
+		final AsyncRequestPool pool = new AsyncRequestPool(config);
+		StubRequest running = stub(config);
+		StubRequest queued = stub(config);
+		final StubRequest blocked = stub(config);
+		pool.add(running);
+		assertTrue(running.awaitStart(TIMEOUT));
+		pool.add(queued);
+
+		Thread adder = new Thread(new Runnable() {
+			@Override
+			public void run() {
+				pool.add(blocked);
+			}
+		});
+		adder.start();
+		adder.join(WATCH);
+		assertTrue("add did not wait for room in the queue", adder.isAlive());
+
+		// The queued request starts, which makes room for the blocked one
+		running.release();
+		assertTrue(queued.awaitStart(TIMEOUT));
+		adder.join(TIMEOUT);
+		assertFalse("add did not return once there was room", adder.isAlive());
+		assertFalse(blocked.isStarted());
+		assertEquals(1, pool.getQueueSize());
+
+		queued.release();
+		blocked.release();
+		assertAwaitAllReturns(pool);
+		assertTrue(blocked.isSuccessful());
+	}
+
+	@Test
+	public void testCallerRunsWhenQueueFull() throws InterruptedException {
+		ApiConfig config = fullQueueConfig(QueueFullPolicy.CALLER_RUNS);
+		AsyncRequestPool pool = new AsyncRequestPool(config);
+		StubRequest running = stub(config);
+		StubRequest queued = stub(config);
+		StubRequest caller = stub(config).release();
+		pool.add(running);
+		assertTrue(running.awaitStart(TIMEOUT));
+		pool.add(queued);
+
+		pool.add(caller);
+		assertTrue(caller.isSuccessful());
+		assertSame(Thread.currentThread(), caller.getThread());
+		assertFalse(queued.isStarted());
+
+		running.release();
+		queued.release();
+		assertAwaitAllReturns(pool);
+		assertTrue(queued.isSuccessful());
+	}
+
+	@Test
+	public void testChainedListenersDoNotDeadlockWithOneThreadAndOneQueuedRequest() throws InterruptedException {
+		for (AsyncExecution execution : AsyncExecution.values()) {
+			final ApiConfig config = fullQueueConfig(QueueFullPolicy.BLOCK).setAsyncExecution(execution);
+			final AsyncRequestPool pool = new AsyncRequestPool(config);
+			final AtomicInteger succeeded = new AtomicInteger();
+			RequestAdapter chain = new RequestAdapter() {
+				@Override
+				public void onRequestSucceeded(AsyncRequest request) {
+					// Each of the first 20 makes two more, with the queue full most of the time
+					if (succeeded.incrementAndGet() <= 20) {
+						for (int i = 0; i < 2; i++) {
+							StubRequest next = new StubRequest(config).release();
+							next.addListeners(this);
+							pool.add(next);
+						}
+					}
+				}
+			};
+			for (int i = 0; i < 2; i++) {
+				StubRequest first = stub(config).release();
+				first.addListeners(chain);
+				pool.add(first);
+			}
+			assertAwaitAllReturns(pool);
+			assertEquals(execution.name(), 42, succeeded.get());
+		}
+	}
+
+	@Test
+	public void testNeverRunsMoreThanMaxAsyncThreads() throws InterruptedException {
+		for (AsyncExecution execution : AsyncExecution.values()) {
+			ApiConfig config = new ApiConfig().setMaxAsyncThreads(4).setAsyncExecution(execution);
+			AsyncRequestPool pool = new AsyncRequestPool(config);
+			final AtomicInteger running = new AtomicInteger();
+			final AtomicInteger most = new AtomicInteger();
+			for (int i = 0; i < 200; i++) {
+				pool.add(new StubRequest(config) {
+					@Override
+					protected RiotApiException attempt() {
+						int now = running.incrementAndGet();
+						int before = most.get();
+						while (now > before && !most.compareAndSet(before, now)) {
+							before = most.get();
+						}
+						Thread.yield();
+						RiotApiException exception = super.attempt();
+						running.decrementAndGet();
+						return exception;
+					}
+				}.release());
+			}
+			assertAwaitAllReturns(pool);
+			assertTrue(execution + " ran " + most.get() + " at once", most.get() <= 4);
+			assertTrue(pool.isEmpty());
+		}
+	}
+
+	@Test
+	public void testQueuedRequestStartsWhenSlotFrees() throws InterruptedException {
+		ApiConfig config = new ApiConfig().setMaxAsyncThreads(2);
+		AsyncRequestPool pool = new AsyncRequestPool(config);
+		StubRequest[] added = new StubRequest[4];
+		for (int i = 0; i < added.length; i++) {
+			added[i] = stub(config);
+			pool.add(added[i]);
+		}
+		assertTrue(added[0].awaitStart(TIMEOUT));
+		assertTrue(added[1].awaitStart(TIMEOUT));
+		assertFalse(added[2].awaitStart(WATCH));
+		assertFalse(added[3].isStarted());
+		assertEquals(2, pool.getPoolSize());
+		assertEquals(2, pool.getQueueSize());
+
+		added[1].release();
+		assertTrue(added[2].awaitStart(TIMEOUT));
+		assertFalse(added[3].awaitStart(WATCH));
+
+		added[0].release();
+		assertTrue(added[3].awaitStart(TIMEOUT));
+		added[2].release();
+		added[3].release();
+		assertAwaitAllReturns(pool);
+		assertTrue(pool.isEmpty());
+	}
+
+	@Test
+	public void testRejectWhenQueueFull() throws InterruptedException {
+		ApiConfig config = fullQueueConfig(QueueFullPolicy.REJECT);
+		AsyncRequestPool pool = new AsyncRequestPool(config);
+		StubRequest running = stub(config);
+		StubRequest queued = stub(config);
+		StubRequest rejected = stub(config);
+		pool.add(running);
+		assertTrue(running.awaitStart(TIMEOUT));
+		pool.add(queued);
+
+		pool.add(rejected);
+		assertTrue(rejected.isFailed());
+		assertEquals(RiotApiException.QUEUE_FULL, rejected.getException().getErrorCode());
+		assertFalse(rejected.isStarted());
+		assertEquals(1, pool.getQueueSize());
+
+		running.release();
+		queued.release();
+		assertAwaitAllReturns(pool);
+		assertTrue(queued.isSuccessful());
+	}
+
+	@Test
+	public void testSkipsRequestCancelledWhileQueued() throws InterruptedException {
+		ApiConfig config = new ApiConfig().setMaxAsyncThreads(1);
+		AsyncRequestPool pool = new AsyncRequestPool(config);
+		StubRequest running = stub(config);
+		StubRequest cancelled = stub(config).release();
+		StubRequest next = stub(config);
+		pool.add(running);
+		pool.add(cancelled);
+		pool.add(next);
+		assertTrue(running.awaitStart(TIMEOUT));
+		assertTrue(cancelled.cancel());
+
+		running.release();
+		assertTrue(next.awaitStart(TIMEOUT));
+		assertFalse(cancelled.isStarted());
+		next.release();
+		assertAwaitAllReturns(pool);
+		assertTrue(pool.isEmpty());
+	}
+
+	private static void assertAwaitAllReturns(AsyncRequestPool pool) throws InterruptedException {
+		Thread waiter = awaitAllInBackground(pool);
+		waiter.join(TIMEOUT);
+		assertFalse("awaitAll did not return", waiter.isAlive());
+	}
+
+	/**
+	 * Calls {@code awaitAll} in another thread, so a pool that never empties fails the test instead of hanging it
+	 */
+	private static Thread awaitAllInBackground(final AsyncRequestPool pool) {
+		Thread waiter = new Thread(new Runnable() {
+			@Override
+			public void run() {
+				try {
+					pool.awaitAll();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+			}
+		});
+		waiter.setDaemon(true);
+		waiter.start();
+		return waiter;
+	}
+
+	private static ApiConfig fullQueueConfig(QueueFullPolicy policy) {
+		return new ApiConfig().setMaxAsyncThreads(1).setMaxQueuedRequests(1).setQueueFullPolicy(policy);
+	}
+
+	private StubRequest stub(ApiConfig config) {
+		StubRequest request = new StubRequest(config);
+		requests.add(request);
+		return request;
+	}
+}
@@ -0,0 +1,189 @@
+/*
+ * Copyright 2016 Taylor Caldwell
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.rithms.riot.api;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+import net.rithms.riot.api.endpoints.summoner.dto.Summoner;
+import net.rithms.riot.api.request.AsyncRequest;
+import net.rithms.riot.api.request.RequestMethod;
+
+/**
+ * Tests how {@link EndpointManager} coalesces asynchronous calls. The shared requests are made by the endpoint manager itself, so they are
+ * answered by a server on the loopback interface, which holds every answer until the test releases it.
+ */
+public class EndpointManagerTest {
+
+	private static final long TIMEOUT = 5000;
+
+	private HttpServer server;
+	private final CountDownLatch release = new CountDownLatch(1);
+	// Requests the server got, by path
+	private final ConcurrentHashMap<String, AtomicInteger> hits = new ConcurrentHashMap<String, AtomicInteger>();
+	private ApiConfig config;
+	private EndpointManager manager;
+
+	@Before
+	public void startServer() throws IOException {
+		server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+		server.setExecutor(Executors.newCachedThreadPool());
+		server.createContext("/", new HttpHandler() {
+			@Override
+			public void handle(HttpExchange exchange) throws IOException {
+				String path = exchange.getRequestURI().getPath();
+				hits.putIfAbsent(path, new AtomicInteger());
+				hits.get(path).incrementAndGet();
+				try {
+					release.await();
+					byte[] body = "{\"id\":1}".getBytes(StandardCharsets.UTF_8);
+					exchange.sendResponseHeaders(200, body.length);
+					OutputStream os = exchange.getResponseBody();
+					os.write(body);
+					os.close();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				} finally {
+					exchange.close();
+				}
+			}
+		});
+		server.start();
+		config = new ApiConfig().setRespectRateLimit(false).setRetryPolicy(null);
+		manager = new EndpointManager(config);
+		manager.addCoalescedMethods(Shared.class);
+	}
+
+	@After
+	public void stopServer() {
+		release.countDown();
+		server.stop(0);
+	}
+
+	@Test
+	public void testSharesRequestWhileInFlight() throws InterruptedException, TimeoutException {
+		AsyncRequest first = manager.callMethodAsynchronously(new Shared(config, "a"));
+		AsyncRequest second = manager.callMethodAsynchronously(new Shared(config, "a"));
+		AsyncRequest other = manager.callMethodAsynchronously(new Shared(config, "b"));
+		assertSame(first, second);
+		assertNotSame(first, other);
+
+		release.countDown();
+		first.await(TIMEOUT, TimeUnit.MILLISECONDS);
+		other.await(TIMEOUT, TimeUnit.MILLISECONDS);
+		assertTrue(first.isSuccessful());
+		assertEquals(1, first.<Summoner> getDto().getId());
+		assertEquals(1, hits("/a"));
+		assertEquals(1, hits("/b"));
+	}
+
+	@Test
+	public void testNewRequestOnceCompleted() throws InterruptedException, TimeoutException {
+		release.countDown();
+		AsyncRequest first = manager.callMethodAsynchronously(new Shared(config, "a"));
+		first.await(TIMEOUT, TimeUnit.MILLISECONDS);
+		AsyncRequest second = manager.callMethodAsynchronously(new Shared(config, "a"));
+		assertNotSame(first, second);
+		second.await(TIMEOUT, TimeUnit.MILLISECONDS);
+		assertTrue(second.isSuccessful());
+		assertEquals(2, hits("/a"));
+	}
+
+	@Test
+	public void testNewRequestOnceCancelled() throws InterruptedException, TimeoutException {
+		AsyncRequest first = manager.callMethodAsynchronously(new Shared(config, "a"));
+		assertTrue(first.cancel());
+		AsyncRequest second = manager.callMethodAsynchronously(new Shared(config, "a"));
+		assertNotSame(first, second);
+		assertTrue(first.isCancelled());
+
+		release.countDown();
+		second.await(TIMEOUT, TimeUnit.MILLISECONDS);
+		assertTrue(second.isSuccessful());
+	}
+
+	@Test
+	public void testOnlyAddedClassesAreShared() {
+		assertNotSame(manager.callMethodAsynchronously(new NotShared(config, "a")),
+				manager.callMethodAsynchronously(new NotShared(config, "a")));
+		// The exact class, not its subclasses
+		assertNotSame(manager.callMethodAsynchronously(new SharedSubclass(config, "b")),
+				manager.callMethodAsynchronously(new SharedSubclass(config, "b")));
+
+		manager.removeCoalescedMethods(Shared.class);
+		assertNotSame(manager.callMethodAsynchronously(new Shared(config, "c")), manager.callMethodAsynchronously(new Shared(config, "c")));
+	}
+
+	@Test
+	public void testOnlyGetIsShared() {
+		Shared first = new Shared(config, "a");
+		first.setMethod(RequestMethod.POST);
+		Shared second = new Shared(config, "a");
+		second.setMethod(RequestMethod.POST);
+		assertNotSame(manager.callMethodAsynchronously(first), manager.callMethodAsynchronously(second));
+	}
+
+	private int hits(String path) {
+		AtomicInteger count = hits.get(path);
+		return count == null ? 0 : count.get();
+	}
+
+	private class Shared extends ApiMethod {
+
+		Shared(ApiConfig config, String path) {
+			super(config, "summoner");
+			setUrlBase("http://" + server.getAddress().getHostString() + ":" + server.getAddress().getPort() + "/" + path);
+			setReturnType(Summoner.class);
+		}
+	}
+
+	private class SharedSubclass extends Shared {
+
+		SharedSubclass(ApiConfig config, String path) {
+			super(config, path);
+		}
+	}
+
+	private class NotShared extends Shared {
+
+		NotShared(ApiConfig config, String path) {
+			super(config, path);
+		}
+	}
+}
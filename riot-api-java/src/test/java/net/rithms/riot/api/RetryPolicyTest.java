@@ -0,0 +1,123 @@
+/*
+ * Copyright 2016 Taylor Caldwell
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.rithms.riot.api;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import net.rithms.riot.api.request.ratelimit.RateLimitException;
+import net.rithms.riot.api.request.ratelimit.RespectedRateLimitException;
+import net.rithms.riot.constant.Platform;
+
+/**
+ * Tests the retry counts, delays and budgets of {@link RetryPolicy}.
+ */
+public class RetryPolicyTest {
+
+	private static final RiotApiException SERVER_ERROR = new RiotApiException(RiotApiException.SERVER_ERROR);
+
+	@Test
+	public void testDelayDoublesWithJitter() {
+		RetryPolicy policy = new RetryPolicy().setBudget(1000000, 1);
+		long fewest = Long.MAX_VALUE;
+		long most = 0;
+		for (int i = 0; i < 1000; i++) {
+			long first = policy.getRetryDelay(SERVER_ERROR, 0, Platform.NA);
+			assertTrue(first >= 250 && first <= 500);
+			long third = policy.getRetryDelay(SERVER_ERROR, 2, Platform.NA);
+			assertTrue(third >= 1000 && third <= 2000);
+			fewest = Math.min(fewest, first);
+			most = Math.max(most, first);
+		}
+		// Requests that failed together don't all come back together
+		assertTrue(most - fewest > 100);
+	}
+
+	@Test
+	public void testDelayIsCappedAtMaxDelay() {
+		RetryPolicy policy = new RetryPolicy().setBudget(1000000, 1).setMaxDelay(4000).setRetries(RiotApiException.SERVER_ERROR, 1000);
+		for (int retried : new int[] { 3, 5, 30, 31, 999 }) {
+			long delay = policy.getRetryDelay(SERVER_ERROR, retried, Platform.NA);
+			assertTrue(delay >= 2000 && delay <= 4000);
+		}
+		assertEquals(0, new RetryPolicy().setBaseDelay(0).getRetryDelay(SERVER_ERROR, 0, Platform.NA));
+	}
+
+	@Test
+	public void testRetriesPerErrorCode() {
+		RetryPolicy policy = new RetryPolicy().setBudget(1000000, 1);
+		assertEquals(3, policy.getRetries(RiotApiException.SERVER_ERROR));
+		assertEquals(3, policy.getRetries(RiotApiException.RATE_LIMITED));
+		assertEquals(0, policy.getRetries(RiotApiException.DATA_NOT_FOUND));
+		assertTrue(policy.getRetryDelay(SERVER_ERROR, 2, Platform.NA) >= 0);
+		assertEquals(-1, policy.getRetryDelay(SERVER_ERROR, 3, Platform.NA));
+		assertTrue(policy.getRetryDelay(new RateLimitException(1, "method"), 0, Platform.NA) >= 0);
+
+		RiotApiException notFound = new RiotApiException(RiotApiException.DATA_NOT_FOUND);
+		assertEquals(-1, policy.getRetryDelay(notFound, 0, Platform.NA));
+		policy.setRetries(RiotApiException.DATA_NOT_FOUND, 1);
+		assertTrue(policy.getRetryDelay(notFound, 0, Platform.NA) >= 0);
+		assertEquals(-1, policy.getRetryDelay(notFound, 1, Platform.NA));
+		policy.setRetries(RiotApiException.SERVER_ERROR, 0);
+		assertEquals(-1, policy.getRetryDelay(SERVER_ERROR, 0, Platform.NA));
+	}
+
+	@Test
+	public void testRespectedRateLimitIsNotRetried() {
+		// It was never sent, waiting for it is up to ApiConfig#setWaitForRateLimit
+		assertEquals(-1, new RetryPolicy().getRetryDelay(new RespectedRateLimitException(1, "method"), 0, Platform.NA));
+	}
+
+	@Test
+	public void testBudgetPerPlatform() {
+		RetryPolicy policy = new RetryPolicy().setBudget(2, 60);
+		assertTrue(policy.getRetryDelay(SERVER_ERROR, 0, Platform.NA) >= 0);
+		assertTrue(policy.getRetryDelay(SERVER_ERROR, 1, Platform.NA) >= 0);
+		assertEquals(-1, policy.getRetryDelay(SERVER_ERROR, 0, Platform.NA));
+
+		assertTrue(policy.getRetryDelay(SERVER_ERROR, 0, Platform.EUW) >= 0);
+		// Requests without a platform share a budget too
+		assertTrue(policy.getRetryDelay(SERVER_ERROR, 0, null) >= 0);
+		assertTrue(policy.getRetryDelay(SERVER_ERROR, 0, null) >= 0);
+		assertEquals(-1, policy.getRetryDelay(SERVER_ERROR, 0, null));
+		// A failure that isn't retried doesn't take anything out of it
+		assertEquals(-1, policy.getRetryDelay(SERVER_ERROR, 3, Platform.EUW));
+		assertTrue(policy.getRetryDelay(SERVER_ERROR, 0, Platform.EUW) >= 0);
+		assertEquals(-1, policy.getRetryDelay(SERVER_ERROR, 0, Platform.EUW));
+	}
+
+	@Test
+	public void testBudgetFillsUpAgain() throws InterruptedException {
+		RetryPolicy policy = new RetryPolicy().setBudget(1, 1);
+		assertTrue(policy.getRetryDelay(SERVER_ERROR, 0, Platform.NA) >= 0);
+		assertEquals(-1, policy.getRetryDelay(SERVER_ERROR, 0, Platform.NA));
+		Thread.sleep(1100);
+		assertTrue(policy.getRetryDelay(SERVER_ERROR, 0, Platform.NA) >= 0);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testNegativeRetries() {
+		new RetryPolicy().setRetries(RiotApiException.SERVER_ERROR, -1);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testBudgetWithoutTime() {
+		new RetryPolicy().setBudget(10, 0);
+	}
+}
@@ -0,0 +1,89 @@
+/*
+ * Copyright 2016 Taylor Caldwell
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.rithms.riot.api;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import net.rithms.riot.api.request.AsyncRequest;
+
+/**
+ * An asynchronous request that never goes to the Riot Api. Once it runs, it waits until it is released and then succeeds, so a test can
+ * keep it in its slot for as long as it likes.
+ */
+class StubRequest extends AsyncRequest {
+
+	private final CountDownLatch started = new CountDownLatch(1);
+	private final CountDownLatch released = new CountDownLatch(1);
+	private volatile Thread thread = null;
+
+	StubRequest(ApiConfig config) {
+		super(config, new StubMethod(config));
+	}
+
+	@Override
+	protected RiotApiException attempt() {
+		thread = Thread.currentThread();
+		started.countDown();
+		try {
+			released.await();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			return new RiotApiException(RiotApiException.IOEXCEPTION);
+		}
+		setState(RequestState.Succeeded);
+		return null;
+	}
+
+	/**
+	 * Waits until the request runs
+	 *
+	 * @return {@code false} if it did not run within {@code millis}
+	 */
+	boolean awaitStart(long millis) throws InterruptedException {
+		return started.await(millis, TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * Returns the thread the request ran in, or {@code null} if it did not run yet
+	 */
+	Thread getThread() {
+		return thread;
+	}
+
+	boolean isStarted() {
+		return started.getCount() == 0;
+	}
+
+	/**
+	 * Lets the request succeed once it runs, or right away if it is running
+	 *
+	 * @return This request for chaining
+	 */
+	StubRequest release() {
+		released.countDown();
+		return this;
+	}
+
+	private static class StubMethod extends ApiMethod {
+
+		StubMethod(ApiConfig config) {
+			super(config, "stub");
+			setUrlBase("http://localhost/stub");
+		}
+	}
+}
@@ -0,0 +1,242 @@
+/*
+ * Copyright 2016 Taylor Caldwell
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.rithms.riot.api.request;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.LinkedList;
+import java.util.Queue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+import net.rithms.riot.api.ApiConfig;
+import net.rithms.riot.api.ApiMethod;
+import net.rithms.riot.api.RetryPolicy;
+import net.rithms.riot.api.RiotApiException;
+import net.rithms.riot.api.request.ratelimit.RateLimitException;
+import net.rithms.riot.api.request.ratelimit.RateLimitList;
+import net.rithms.riot.constant.Platform;
+
+/**
+ * Tests the retry loop of {@link Request}, with attempts that fail the way a test tells them to.
+ */
+public class RequestRetryTest {
+
+	@Test
+	public void testRetriesUpToTheCountForItsCode() throws RiotApiException {
+		ScriptedRequest request = new ScriptedRequest(quickRetries(), Platform.NA, failures(RiotApiException.SERVER_ERROR, 5));
+		assertFails(RiotApiException.SERVER_ERROR, request);
+		assertEquals(4, request.attempts);
+		assertTrue(request.isFailed());
+
+		request = new ScriptedRequest(quickRetries(), Platform.NA, failures(RiotApiException.SERVER_ERROR, 2));
+		request.send();
+		assertEquals(3, request.attempts);
+		assertTrue(request.isSuccessful());
+
+		request = new ScriptedRequest(quickRetries(), Platform.NA, failures(RiotApiException.DATA_NOT_FOUND, 1));
+		assertFails(RiotApiException.DATA_NOT_FOUND, request);
+		assertEquals(1, request.attempts);
+	}
+
+	@Test
+	public void testTimeoutEndsInTimeoutState() {
+		ScriptedRequest request = new ScriptedRequest(quickRetries(), Platform.NA,
+				failures(RiotApiException.TIMEOUT_EXCEPTION, 4));
+		assertFails(RiotApiException.TIMEOUT_EXCEPTION, request);
+		assertTrue(request.isTimeOut());
+	}
+
+	@Test
+	public void testNoRetriesOnceTheBudgetIsSpent() {
+		RetryPolicy policy = quickRetries().setBudget(2, 60);
+		ScriptedRequest request = new ScriptedRequest(policy, Platform.NA, failures(RiotApiException.SERVER_ERROR, 5));
+		assertFails(RiotApiException.SERVER_ERROR, request);
+		assertEquals(3, request.attempts);
+
+		request = new ScriptedRequest(policy, Platform.NA, failures(RiotApiException.SERVER_ERROR, 5));
+		assertFails(RiotApiException.SERVER_ERROR, request);
+		assertEquals(1, request.attempts);
+
+		request = new ScriptedRequest(policy, Platform.EUW, failures(RiotApiException.SERVER_ERROR, 5));
+		assertFails(RiotApiException.SERVER_ERROR, request);
+		assertEquals(3, request.attempts);
+	}
+
+	@Test
+	public void testWaitsForRetryAfter() throws RiotApiException {
+		ScriptedRequest request = new ScriptedRequest(quickRetries(), Platform.NA, new RateLimitException(1, "method"));
+		long start = System.currentTimeMillis();
+		request.send();
+		assertTrue(System.currentTimeMillis() - start >= 1000);
+		assertEquals(2, request.attempts);
+		assertTrue(request.isSuccessful());
+	}
+
+	@Test
+	public void testGivesUpWhenRetryAfterIsBeyondMaxDelay() {
+		RetryPolicy policy = new RetryPolicy().setMaxDelay(1000);
+		ScriptedRequest request = new ScriptedRequest(policy, Platform.NA, new RateLimitException(5, "method"));
+		long start = System.currentTimeMillis();
+		assertFails(RiotApiException.RATE_LIMITED, request);
+		assertTrue(System.currentTimeMillis() - start < 1000);
+		assertEquals(1, request.attempts);
+	}
+
+	@Test
+	public void testGivesUpWhenRateLimitWindowIsBeyondMaxDelay() throws IOException {
+		// Riot says the only request allowed in the next 100 seconds was this one
+		AtomicInteger hits = new AtomicInteger();
+		HttpServer server = startServer(hits, "1:100");
+		try {
+			assertFails(RiotApiException.SERVER_ERROR, server);
+			assertEquals(1, hits.get());
+		} finally {
+			server.stop(0);
+		}
+
+		// Without the windows, the same request is retried
+		hits = new AtomicInteger();
+		server = startServer(hits, null);
+		try {
+			assertFails(RiotApiException.SERVER_ERROR, server);
+			assertEquals(4, hits.get());
+		} finally {
+			server.stop(0);
+		}
+	}
+
+	private static void assertFails(int errorCode, ScriptedRequest request) {
+		try {
+			request.send();
+			fail("The request succeeded");
+		} catch (RiotApiException e) {
+			assertEquals(errorCode, e.getErrorCode());
+		}
+	}
+
+	private static void assertFails(int errorCode, HttpServer server) {
+		// A key of its own, the rate limit windows are kept per key
+		ApiConfig config = new ApiConfig().setKey("retry-test-" + System.nanoTime()).setRetryPolicy(quickRetries());
+		try {
+			new Request(config, new LoopbackMethod(config, server));
+			fail("The request succeeded");
+		} catch (RiotApiException e) {
+			assertEquals(errorCode, e.getErrorCode());
+		}
+	}
+
+	/**
+	 * The default retries, without waiting long between them
+	 */
+	private static RetryPolicy quickRetries() {
+		return new RetryPolicy().setBaseDelay(1);
+	}
+
+	private static RiotApiException[] failures(int errorCode, int count) {
+		RiotApiException[] failures = new RiotApiException[count];
+		Arrays.fill(failures, new RiotApiException(errorCode));
+		return failures;
+	}
+
+	/**
+	 * Answers every request with a {@code 500}, and the given {@code X-App-Rate-Limit} (counting every request as the last one allowed)
+	 */
+	private static HttpServer startServer(final AtomicInteger hits, final String appLimit) throws IOException {
+		HttpServer server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+		server.setExecutor(Executors.newCachedThreadPool());
+		server.createContext("/", new HttpHandler() {
+			@Override
+			public void handle(HttpExchange exchange) throws IOException {
+				hits.incrementAndGet();
+				if (appLimit != null) {
+					exchange.getResponseHeaders().add(RateLimitList.APP_LIMIT_HEADER, appLimit);
+					exchange.getResponseHeaders().add(RateLimitList.APP_COUNT_HEADER, appLimit);
+				}
+				byte[] body = "{\"status\":{\"message\":\"Internal server error\",\"status_code\":500}}".getBytes(StandardCharsets.UTF_8);
+				exchange.sendResponseHeaders(Request.CODE_ERROR_SERVER_ERROR, body.length);
+				OutputStream os = exchange.getResponseBody();
+				os.write(body);
+				os.close();
+				exchange.close();
+			}
+		});
+		server.start();
+		return server;
+	}
+
+	/**
+	 * A request that fails with the given exceptions, one attempt each, and then succeeds
+	 */
+	private static class ScriptedRequest extends Request {
+
+		private final Queue<RiotApiException> failures;
+		int attempts = 0;
+
+		ScriptedRequest(RetryPolicy retryPolicy, Platform platform, RiotApiException... failures) {
+			this.failures = new LinkedList<RiotApiException>(Arrays.asList(failures));
+			ApiConfig config = new ApiConfig().setRetryPolicy(retryPolicy);
+			init(config, new ScriptedMethod(config, platform));
+		}
+
+		@Override
+		protected RiotApiException attempt() {
+			attempts++;
+			RiotApiException failure = failures.poll();
+			if (failure == null) {
+				setState(RequestState.Succeeded);
+			}
+			return failure;
+		}
+
+		void send() throws RiotApiException {
+			execute();
+		}
+	}
+
+	private static class ScriptedMethod extends ApiMethod {
+
+		ScriptedMethod(ApiConfig config, Platform platform) {
+			super(config, "scripted");
+			setPlatform(platform);
+		}
+	}
+
+	private static class LoopbackMethod extends ApiMethod {
+
+		LoopbackMethod(ApiConfig config, HttpServer server) {
+			super(config, "loopback");
+			setPlatform(Platform.NA);
+			setUrlBase("http://" + server.getAddress().getHostString() + ":" + server.getAddress().getPort() + "/");
+		}
+
+	}
+}
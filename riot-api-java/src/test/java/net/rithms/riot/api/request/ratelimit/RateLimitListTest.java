@@ -0,0 +1,159 @@
+/*
+ * Copyright 2016 Taylor Caldwell
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.rithms.riot.api.request.ratelimit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Map;
+
+import org.junit.Test;
+
+import net.rithms.riot.constant.Platform;
+
+/**
+ * Tests how {@link RateLimitList} reads the rate limit headers and holds requests back. The windows are long enough that nothing leaves
+ * them while a test runs.
+ */
+public class RateLimitListTest {
+
+	private static final String MATCH = "match";
+	private static final String SUMMONER = "summoner";
+
+	@Test
+	public void testParse() {
+		Map<Integer, Integer> parsed = RateLimitList.parse("20:1,100:120");
+		assertEquals(2, parsed.size());
+		assertEquals(Integer.valueOf(20), parsed.get(1));
+		assertEquals(Integer.valueOf(100), parsed.get(120));
+	}
+
+	@Test
+	public void testParseSkipsWhatItDoesNotUnderstand() {
+		Map<Integer, Integer> parsed = RateLimitList.parse(" 20 : 1 , x:10, 5, 3:4:5, ");
+		assertEquals(1, parsed.size());
+		assertEquals(Integer.valueOf(20), parsed.get(1));
+		assertTrue(RateLimitList.parse("").isEmpty());
+	}
+
+	@Test
+	public void testAcquireWithoutWindows() {
+		RateLimitList list = new RateLimitList();
+		assertNull(list.acquire(MATCH, Platform.NA));
+		assertNull(list.peek(MATCH, Platform.NA));
+	}
+
+	@Test
+	public void testAcquireUpToApplicationLimit() {
+		RateLimitList list = new RateLimitList();
+		list.updateWindows(MATCH, Platform.NA, "2:100", null, null, null);
+		assertSent(list.acquire(MATCH, Platform.NA));
+		assertSent(list.acquire(SUMMONER, Platform.NA));
+		assertHeldBack("application", list.acquire(MATCH, Platform.NA));
+		// Held back without being counted, and other platforms have windows of their own
+		assertHeldBack("application", list.peek(SUMMONER, Platform.NA));
+		assertNull(list.acquire(MATCH, Platform.EUW));
+	}
+
+	@Test
+	public void testAcquireUpToMethodLimit() {
+		RateLimitList list = new RateLimitList();
+		list.updateWindows(MATCH, Platform.NA, "100:100", null, "1:100", null);
+		assertSent(list.acquire(MATCH, Platform.NA));
+		assertHeldBack("method", list.acquire(MATCH, Platform.NA));
+		assertSent(list.acquire(SUMMONER, Platform.NA));
+	}
+
+	@Test
+	public void testCountsHeaderSyncsUpToHigherCount() {
+		RateLimitList list = new RateLimitList();
+		list.updateWindows(MATCH, Platform.NA, "3:100", "1:100", null, null);
+		assertSent(list.acquire(MATCH, Platform.NA));
+		assertSent(list.acquire(MATCH, Platform.NA));
+		assertHeldBack("application", list.acquire(MATCH, Platform.NA));
+
+		// Another process with the same key sent more than this one knows of
+		list = new RateLimitList();
+		list.updateWindows(MATCH, Platform.NA, "3:100", null, null, null);
+		assertSent(list.acquire(MATCH, Platform.NA));
+		list.updateWindows(MATCH, Platform.NA, "3:100", "3:100", null, null);
+		assertHeldBack("application", list.peek(MATCH, Platform.NA));
+	}
+
+	@Test
+	public void testShrinkingLimitHoldsBack() {
+		RateLimitList list = new RateLimitList();
+		list.updateWindows(MATCH, Platform.NA, "3:100", null, null, null);
+		assertSent(list.acquire(MATCH, Platform.NA));
+		assertSent(list.acquire(MATCH, Platform.NA));
+		list.updateWindows(MATCH, Platform.NA, "2:100", null, null, null);
+		assertHeldBack("application", list.acquire(MATCH, Platform.NA));
+	}
+
+	@Test
+	public void testWindowsMissingFromTheHeaderAreDropped() {
+		RateLimitList list = new RateLimitList();
+		list.updateWindows(MATCH, Platform.NA, "1:100", null, null, null);
+		assertSent(list.acquire(MATCH, Platform.NA));
+		list.updateWindows(MATCH, Platform.NA, "5:1", null, null, null);
+		assertSent(list.acquire(MATCH, Platform.NA));
+		// A header that can't be read leaves the windows as they are
+		list.updateWindows(MATCH, Platform.NA, "garbage", null, null, null);
+		assertSent(list.acquire(MATCH, Platform.NA));
+	}
+
+	@Test
+	public void testAnsweredMovesTheSendForward() {
+		RateLimitList list = new RateLimitList();
+		list.updateWindows(MATCH, Platform.NA, "1:100", null, "1:100", null);
+		RateLimit sent = list.acquire(MATCH, Platform.NA);
+		assertSent(sent);
+		long sendTime = sent.getRetryTime();
+		assertEquals(sendTime + 100000, list.peek(MATCH, Platform.NA).getRetryTime());
+
+		list.answered(MATCH, Platform.NA, sendTime, sendTime + 5000);
+		assertEquals(sendTime + 105000, list.peek(MATCH, Platform.NA).getRetryTime());
+		// Nothing else was sent at that time
+		list.answered(MATCH, Platform.NA, sendTime - 1, sendTime + 9000);
+		assertEquals(sendTime + 105000, list.peek(MATCH, Platform.NA).getRetryTime());
+	}
+
+	@Test
+	public void testRetryAfter() {
+		RateLimitList list = new RateLimitList();
+		list.setRateLimit(MATCH, Platform.NA, "method", 60);
+		assertTrue(list.isLimitExceeded(MATCH, Platform.NA));
+		assertEquals("method", list.getRateLimit(MATCH, Platform.NA).getType());
+		assertFalse(list.isLimitExceeded(SUMMONER, Platform.NA));
+
+		list.setRateLimit(MATCH, Platform.NA, "application", 60);
+		assertTrue(list.isLimitExceeded(SUMMONER, Platform.NA));
+		assertFalse(list.isLimitExceeded(SUMMONER, Platform.EUW));
+	}
+
+	private static void assertSent(RateLimit rateLimit) {
+		assertNull(rateLimit.getType());
+		assertFalse(rateLimit.isLimitExceeded());
+	}
+
+	private static void assertHeldBack(String type, RateLimit rateLimit) {
+		assertEquals(type, rateLimit.getType());
+		assertTrue(rateLimit.isLimitExceeded());
+	}
+}
@@ -0,0 +1,170 @@
+/*
+ * Copyright 2016 Taylor Caldwell
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.rithms.riot.api.request.ratelimit;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+/**
+ * Tests the log of send times kept by {@link RateLimitWindow}, with made up times.
+ */
+public class RateLimitWindowTest {
+
+	// Some time well after the epoch, the windows treat 0 as no send
+	private static final long NOW = 1500000000000L;
+	private static final int SECONDS = 10;
+	private static final long MILLIS = SECONDS * 1000L;
+
+	@Test
+	public void testEmptyWindow() {
+		RateLimitWindow window = new RateLimitWindow(3, SECONDS);
+		assertEquals(0, window.count(NOW));
+		assertEquals(NOW, window.getNextSendTime(NOW));
+	}
+
+	@Test
+	public void testWindowAtItsLimit() {
+		RateLimitWindow window = new RateLimitWindow(3, SECONDS);
+		window.record(NOW);
+		window.record(NOW + 100);
+		assertEquals(2, window.count(NOW + 200));
+		assertEquals(NOW + 200, window.getNextSendTime(NOW + 200));
+
+		window.record(NOW + 200);
+		assertEquals(3, window.count(NOW + 300));
+		// Once the oldest send leaves the window
+		assertEquals(NOW + MILLIS, window.getNextSendTime(NOW + 300));
+		assertEquals(2, window.count(NOW + MILLIS));
+
+		// In place of the oldest, the next one is held back by the one after it
+		window.record(NOW + MILLIS);
+		assertEquals(3, window.count(NOW + MILLIS));
+		assertEquals(NOW + 100 + MILLIS, window.getNextSendTime(NOW + MILLIS));
+	}
+
+	@Test
+	public void testCountAfterTheRingWrapsAround() {
+		RateLimitWindow window = new RateLimitWindow(3, SECONDS);
+		for (int i = 0; i < 7; i++) {
+			window.record(NOW + i * 4000L);
+		}
+		// The last three are at +16s, +20s and +24s
+		assertEquals(3, window.count(NOW + 24000));
+		assertEquals(2, window.count(NOW + 26000));
+		assertEquals(1, window.count(NOW + 30000));
+		assertEquals(0, window.count(NOW + 34000));
+		assertEquals(NOW + 26000, window.getNextSendTime(NOW + 24000));
+	}
+
+	@Test
+	public void testRecordKeepsTheLogSortedWhenTheClockGoesBack() {
+		RateLimitWindow window = new RateLimitWindow(3, SECONDS);
+		window.record(NOW + 2000);
+		window.record(NOW + 3000);
+		window.record(NOW + 1000);
+		assertEquals(NOW + 1000 + MILLIS, window.getNextSendTime(NOW + 3000));
+		assertEquals(2, window.count(NOW + 1000 + MILLIS));
+		assertEquals(1, window.count(NOW + 2000 + MILLIS));
+	}
+
+	@Test
+	public void testMoveRecordedRequestForward() {
+		RateLimitWindow window = new RateLimitWindow(2, SECONDS);
+		window.record(NOW);
+		window.record(NOW + 1000);
+		assertEquals(NOW + MILLIS, window.getNextSendTime(NOW + 1000));
+
+		// The first request was answered after the second was sent, so the second is now the oldest
+		window.move(NOW, NOW + 5000);
+		assertEquals(NOW + 1000 + MILLIS, window.getNextSendTime(NOW + 5000));
+		assertEquals(1, window.count(NOW + 1500 + MILLIS));
+		assertEquals(0, window.count(NOW + 5000 + MILLIS));
+	}
+
+	@Test
+	public void testMoveAfterTheRingWrapsAround() {
+		RateLimitWindow window = new RateLimitWindow(3, SECONDS);
+		for (int i = 0; i < 5; i++) {
+			window.record(NOW + i * 1000L);
+		}
+		// The log holds +2s, +3s and +4s, starting in the middle of the ring
+		window.move(NOW + 2000, NOW + 6000);
+		assertEquals(NOW + 3000 + MILLIS, window.getNextSendTime(NOW + 6000));
+		assertEquals(2, window.count(NOW + 3000 + MILLIS));
+		assertEquals(1, window.count(NOW + 4000 + MILLIS));
+		assertEquals(0, window.count(NOW + 6000 + MILLIS));
+	}
+
+	@Test
+	public void testMoveNeverMovesBackOrTouchesOthers() {
+		RateLimitWindow window = new RateLimitWindow(2, SECONDS);
+		window.record(NOW);
+		window.record(NOW + 1000);
+		window.move(NOW + 1000, NOW);
+		window.move(NOW + 500, NOW + 9000);
+		assertEquals(NOW + MILLIS, window.getNextSendTime(NOW + 1000));
+		assertEquals(1, window.count(NOW + MILLIS));
+	}
+
+	@Test
+	public void testSyncUpToHigherCount() {
+		RateLimitWindow window = new RateLimitWindow(5, SECONDS);
+		window.record(NOW);
+		window.sync(3, NOW + 1000);
+		assertEquals(3, window.count(NOW + 1000));
+		assertEquals(2, window.count(NOW + MILLIS));
+
+		// Never more than the limit, and a lower count changes nothing
+		window.sync(8, NOW + 2000);
+		assertEquals(5, window.count(NOW + 2000));
+		assertEquals(NOW + MILLIS, window.getNextSendTime(NOW + 2000));
+		window.sync(1, NOW + 2000);
+		assertEquals(5, window.count(NOW + 2000));
+	}
+
+	@Test
+	public void testShrinkingLimitKeepsNewestSends() {
+		RateLimitWindow window = new RateLimitWindow(4, SECONDS);
+		for (int i = 0; i < 6; i++) {
+			window.record(NOW + i * 1000L);
+		}
+		// The log holds +2s to +5s, starting in the middle of the ring
+		window.setLimit(2);
+		assertEquals(2, window.getLimit());
+		assertEquals(2, window.count(NOW + 5000));
+		assertEquals(NOW + 4000 + MILLIS, window.getNextSendTime(NOW + 5000));
+
+		window.record(NOW + 4000 + MILLIS);
+		assertEquals(NOW + 5000 + MILLIS, window.getNextSendTime(NOW + 4000 + MILLIS));
+	}
+
+	@Test
+	public void testGrowingLimitKeepsAllSends() {
+		RateLimitWindow window = new RateLimitWindow(2, SECONDS);
+		window.record(NOW);
+		window.record(NOW + 1000);
+		window.setLimit(4);
+		assertEquals(2, window.count(NOW + 1000));
+		assertEquals(NOW + 1000, window.getNextSendTime(NOW + 1000));
+
+		window.record(NOW + 2000);
+		window.record(NOW + 3000);
+		assertEquals(4, window.count(NOW + 3000));
+		assertEquals(NOW + MILLIS, window.getNextSendTime(NOW + 3000));
+	}
+}
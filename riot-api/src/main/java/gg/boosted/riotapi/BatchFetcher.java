@@ -0,0 +1,87 @@
+package gg.boosted.riotapi;
+
+import gg.boosted.riotapi.transport.SharedHttpClient;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.function.Function;
+
+/**
+ *
+ * Fetches a bunch of ids through the async api, keeping up to maxInFlight requests outstanding at any time,
+ * and hands out the results in the order they complete.
+ * The throttler still decides when each request actually goes out, this only makes sure it always has something
+ * waiting to go, so we're bounded by the rate limit and not by the round trip
+ */
+class BatchFetcher<T> implements Iterator<BatchResult<T>> {
+
+    private final Iterator<Long> pending ;
+
+    private final Function<Long, CompletableFuture<T>> fetch ;
+
+    private final BlockingQueue<BatchResult<T>> completed = new LinkedBlockingQueue<>() ;
+
+    private int remaining ;
+
+    BatchFetcher(Collection<Long> ids, Function<Long, CompletableFuture<T>> fetch, int maxInFlight) {
+        if (maxInFlight < 1) {
+            throw new IllegalArgumentException("maxInFlight must be at least 1") ;
+        }
+        //Copy the ids, we don't want to depend on someone else's collection while we're working
+        this.pending = new ArrayList<>(ids).iterator() ;
+        this.fetch = fetch ;
+        this.remaining = ids.size() ;
+        for (int i = 0; i < maxInFlight; i++) {
+            if (!submitNext()) break ;
+        }
+    }
+
+    private boolean submitNext() {
+        Long id ;
+        synchronized (pending) {
+            if (!pending.hasNext()) return false ;
+            id = pending.next() ;
+        }
+        CompletableFuture<T> future ;
+        try {
+            future = fetch.apply(id) ;
+        } catch (RuntimeException e) {
+            future = new CompletableFuture<>() ;
+            future.completeExceptionally(e) ;
+        }
+        //Async, so a run of futures that are already done doesn't turn into a deep recursion
+        future.whenCompleteAsync((value, error) -> {
+            completed.add(BatchResult.of(id, value, error));
+            submitNext() ;
+        }, SharedHttpClient.dispatcher()) ;
+        return true ;
+    }
+
+    @Override
+    public boolean hasNext() {
+        return remaining > 0 ;
+    }
+
+    /**
+     * Blocks until the next result is ready
+     */
+    @Override
+    public BatchResult<T> next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException() ;
+        }
+        try {
+            BatchResult<T> result = completed.take() ;
+            remaining-- ;
+            return result ;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while waiting for batch results", e) ;
+        }
+    }
+}
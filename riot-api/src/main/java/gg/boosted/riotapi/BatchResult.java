@@ -0,0 +1,40 @@
+package gg.boosted.riotapi;
+
+/**
+ *
+ * The result of fetching one id in a batch call. A batch never fails as a whole, every id gets its own result
+ */
+public class BatchResult<T> {
+
+    public enum Status {
+        OK,
+        NOT_FOUND,
+        FAILED
+    }
+
+    public final long id ;
+    public final Status status ;
+    public final T value ;
+    public final Throwable error ;
+
+    private BatchResult(long id, Status status, T value, Throwable error) {
+        this.id = id;
+        this.status = status;
+        this.value = value;
+        this.error = error;
+    }
+
+    static <T> BatchResult<T> of(long id, T value, Throwable error) {
+        if (error != null) {
+            return new BatchResult<>(id, Status.FAILED, null, error) ;
+        }
+        if (value == null) {
+            return new BatchResult<>(id, Status.NOT_FOUND, null, null) ;
+        }
+        return new BatchResult<>(id, Status.OK, value, null) ;
+    }
+
+    public boolean isOk() {
+        return status == Status.OK ;
+    }
+}
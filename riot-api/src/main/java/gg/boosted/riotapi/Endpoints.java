@@ -0,0 +1,75 @@
+package gg.boosted.riotapi;
+
+import java.util.regex.Pattern;
+
+/**
+ *
+ * Riot rate limits (and we measure) per api method, not per url.
+ * This turns a url into the method it calls
+ */
+public class Endpoints {
+
+    //service/version/resource, e.g. match/v3/timelines
+    private static final int METHOD_SEGMENTS = 3 ;
+
+    private static final Pattern VERSION = Pattern.compile("v\\d+(\\.\\d+)*") ;
+    private static final Pattern ID = Pattern.compile("-?\\d+") ;
+
+    /**
+     * The path up to the segment after the last version, so ids never end up in it (and the methods we keep a metric/ttl for stay few).
+     * Without a version it's the first {@link #METHOD_SEGMENTS} segments, with numbers replaced by {id}
+     *
+     * https://euw1.api.riotgames.com/lol/match/v3/timelines/by-match/12345 -> match/v3/timelines
+     * https://euw1.api.riotgames.com/lol/static-data/v3/realms -> static-data/v3/realms
+     * https://euw1.api.riotgames.com/lol/static-data/v3/v1.2/item?itemListData=gold -> static-data/v3/v1.2/item
+     * https://euw1.api.riotgames.com/lol/v2.2/match/12345?includeTimeline=true -> v2.2/match
+     */
+    public static String method(String url) {
+        String[] segments = segments(url) ;
+        StringBuilder method = new StringBuilder() ;
+        for (int i = 0; i < methodSegments(segments); i++) {
+            if (i > 0) method.append('/') ;
+            method.append(ID.matcher(segments[i]).matches() ? "{id}" : segments[i]) ;
+        }
+        return method.toString() ;
+    }
+
+    /**
+     * Whatever comes after the method, i.e. what the call is about
+     * https://euw1.api.riotgames.com/lol/match/v3/timelines/by-match/12345 -> by-match/12345
+     * https://euw1.api.riotgames.com/lol/match/v3/matchlists/by-account/1?queue=420 -> by-account/1?queue=420
+     * https://euw1.api.riotgames.com/lol/v2.2/match/12345?includeTimeline=true -> 12345?includeTimeline=true
+     */
+    public static String resource(String url) {
+        String[] segments = segments(url) ;
+        StringBuilder resource = new StringBuilder() ;
+        for (int i = methodSegments(segments); i < segments.length; i++) {
+            if (resource.length() > 0) resource.append('/') ;
+            resource.append(segments[i]) ;
+        }
+        int query = url.indexOf('?') ;
+        if (query >= 0) {
+            resource.append(url.substring(query)) ;
+        }
+        return resource.toString() ;
+    }
+
+    private static String[] segments(String url) {
+        int start = url.indexOf("/lol/") ;
+        String path = start < 0 ? url : url.substring(start + "/lol/".length()) ;
+        int query = path.indexOf('?') ;
+        if (query >= 0) {
+            path = path.substring(0, query) ;
+        }
+        return path.split("/") ;
+    }
+
+    private static int methodSegments(String[] segments) {
+        for (int i = segments.length - 1; i >= 0; i--) {
+            if (VERSION.matcher(segments[i]).matches()) {
+                return Math.min(i + 2, segments.length) ;
+            }
+        }
+        return Math.min(METHOD_SEGMENTS, segments.length) ;
+    }
+}
@@ -1,28 +1,44 @@
 package gg.boosted.riotapi;
 
+import com.fasterxml.jackson.core.JsonParser;
 import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.MappingIterator;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
 import com.fasterxml.jackson.databind.node.NullNode;
+import gg.boosted.riotapi.cache.ResponseCache;
 import gg.boosted.riotapi.constants.QueueType;
 import gg.boosted.riotapi.dtos.*;
 import gg.boosted.riotapi.dtos.match.Match;
 import gg.boosted.riotapi.dtos.match.MatchReference;
 import gg.boosted.riotapi.dtos.match.MatchTimeline;
+import gg.boosted.riotapi.metrics.ApiMetrics;
 import gg.boosted.riotapi.throttlers.DistributedThrottler;
 import gg.boosted.riotapi.throttlers.IThrottler;
+import gg.boosted.riotapi.throttlers.Priority;
+import gg.boosted.riotapi.throttlers.PriorityThrottler;
 import gg.boosted.riotapi.throttlers.SimpleThrottler;
+import gg.boosted.riotapi.transport.HttpTransport;
+import gg.boosted.riotapi.transport.SharedHttpClient;
+import gg.boosted.riotapi.transport.Transport;
+import gg.boosted.riotapi.transport.TransportResponse;
+import gg.boosted.riotapi.utilities.ByteStreams;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import javax.ws.rs.ClientErrorException;
-import javax.ws.rs.client.Client;
-import javax.ws.rs.client.ClientBuilder;
-import javax.ws.rs.client.WebTarget;
 import javax.ws.rs.core.MediaType;
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Created by ilan on 12/9/16.
@@ -31,20 +47,67 @@ public class RiotApi {
 
     private static Logger log = LoggerFactory.getLogger(RiotApi.class) ;
 
+    //How many requests a batch call keeps outstanding. should be more than (allowed rate * round trip)
+    public static final int DEFAULT_BATCH_IN_FLIGHT = 50 ;
+
     private Platform platform;
     private String riotApiKey ;
     private String regionEndpoint;
     private String staticEndpoint;
-    Client client = ClientBuilder.newClient() ;
-    ObjectMapper om = new ObjectMapper() ;
-    IThrottler throttler ;
+    private final Transport transport ;
+    private final Map<String, String> requestHeaders = new HashMap<>() ;
+    private final Priority priority ;
+    volatile IThrottler throttler ;
+    //Off unless RIOT_RESPONSE_CACHE_DIR is set (or someone sets one)
+    private volatile ResponseCache cache = ResponseCache.fromEnvironment() ;
+    private final ApiMetrics metrics = ApiMetrics.get() ;
+
+    //The mapper and the readers are thread safe and don't depend on the platform, so every instance shares them
+    static final ObjectMapper om = new ObjectMapper() ;
+    private static final Map<Class<?>, ObjectReader> readers = new ConcurrentHashMap<>() ;
+    private static final ObjectReader matchReferencesReader = om.readerFor(new TypeReference<List<MatchReference>>(){}) ;
+
+    //Waits between retries after errors and 5xx, doubling from the first to the last
+    private static final long FIRST_BACKOFF_MILLIS = 500 ;
+    private static final long MAX_BACKOFF_MILLIS = 30000 ;
+
+    //One per platform for the whole jvm, see forPlatform
+    private static final Map<Platform, RiotApi> apis = new ConcurrentHashMap<>() ;
+
+    //The same api with other priorities, see withPriority
+    private final Map<Priority, RiotApi> views = new ConcurrentHashMap<>() ;
+
+    //The async calls go through the throttler one at a time, each one chained to the previous one
+    private CompletableFuture<Void> asyncDispatchQueue = CompletableFuture.completedFuture(null) ;
 
     public RiotApi(Platform platform) {
+        this(platform, new HttpTransport()) ;
+    }
+
+    /**
+     * The api for the platform, created the first time it's asked for and shared by everyone in the jvm after that.
+     * It's thread safe, so use this instead of creating a new one every time (especially in spark closures,
+     * where it's created once per executor instead of once per task or per record)
+     */
+    public static RiotApi forPlatform(Platform platform) {
+        return apis.computeIfAbsent(platform, RiotApi::new) ;
+    }
+
+    /**
+     * @param transport Where the responses come from. See {@link gg.boosted.riotapi.transport.RecordingTransport}
+     *                  and {@link gg.boosted.riotapi.transport.ReplayTransport} for load testing without riot
+     */
+    public RiotApi(Platform platform, Transport transport) {
         this.platform = platform;
+        this.transport = transport;
         riotApiKey = System.getenv("RIOT_API_KEY") ;
-        if (riotApiKey == null) {
+        if (riotApiKey == null && transport.requiresApiKey()) {
             throw new RuntimeException("You need to set environment variable \"RIOT_API_KEY\" with your riot api key") ;
         }
+        requestHeaders.put("Accept", MediaType.APPLICATION_JSON) ;
+        if (riotApiKey != null) {
+            requestHeaders.put("X-Riot-Token", riotApiKey) ;
+        }
         regionEndpoint = "https://" +
                 platform.toString().toLowerCase() +
                 ".api.riotgames.com/lol" ;
@@ -52,12 +115,75 @@ public class RiotApi {
         staticEndpoint = "https://" +
                 platform.toString().toLowerCase() +
                 ".api.riotgames.com/lol/static-data/v3" ;
-        throttler = new DistributedThrottler(10, 500, platform) ;
+        throttler = new PriorityThrottler(new DistributedThrottler(10, 500, platform).setAdaptive(true)) ;
+        priority = Priority.CRAWL ;
     }
 
-    private String callApiJson(String endpoint) {
+    /**
+     * The same api (same throttler, cache and connections) calling with another priority
+     */
+    private RiotApi(RiotApi base, Priority priority) {
+        this.platform = base.platform;
+        this.transport = base.transport;
+        this.riotApiKey = base.riotApiKey;
+        this.requestHeaders.putAll(base.requestHeaders);
+        this.regionEndpoint = base.regionEndpoint;
+        this.staticEndpoint = base.staticEndpoint;
+        this.throttler = base.throttler;
+        this.cache = base.cache;
+        this.priority = priority;
+    }
+
+    /**
+     * This api, calling with the given priority. Calls of the same platform take turns by the weight of their
+     * priority (see {@link Priority}), as long as the throttler supports it. Everything else is shared,
+     * so throttlers and caches should be set on this api, not on the ones it returns
+     */
+    public RiotApi withPriority(Priority priority) {
+        if (priority == this.priority) {
+            return this ;
+        }
+        return views.computeIfAbsent(priority, p -> new RiotApi(this, p)) ;
+    }
+
+    public void setThrottler(IThrottler throttler) {
+        this.throttler = throttler;
+        views.values().forEach(view -> view.setThrottler(throttler));
+    }
+
+    /**
+     * Responses for the methods the cache keeps are served from it (without going through the throttler),
+     * and stored in it when they do come from riot. null turns the cache off
+     */
+    public void setResponseCache(ResponseCache cache) {
+        this.cache = cache;
+        views.values().forEach(view -> view.setResponseCache(cache));
+    }
+
+    /**
+     * Reads a successful response body. The stream is read once, straight into whatever the caller wants
+     * (a dto, a tree, raw bytes...) without going through a String first
+     */
+    @FunctionalInterface
+    private interface BodyReader<T> {
+        T read(InputStream body) throws IOException ;
+    }
 
-        WebTarget target = client.target(endpoint) ;
+    private <T> T callApi(String endpoint, BodyReader<T> bodyReader) {
+
+        boolean cached = cache != null && cache.isCached(endpoint) ;
+        if (cached) {
+            byte[] body = cache.get(platform, endpoint) ;
+            if (body != null) {
+                log.debug("From cache: {}", endpoint);
+                metrics.increment(ApiMetrics.CACHE_HITS, platform, Endpoints.method(endpoint));
+                try {
+                    return bodyReader.read(new ByteArrayInputStream(body)) ;
+                } catch (IOException e) {
+                    throw new RuntimeException(e) ;
+                }
+            }
+        }
 
         //I'm trying to shave off a few ms by taking into account that the roundtrip itself takes some time to finish
         //I think a good rough estimate is shaving off half the round trip.. we'll see...
@@ -67,78 +193,329 @@ public class RiotApi {
         if (endpoint.startsWith(staticEndpoint)) {
             statikk = true;
         }
+        String method = Endpoints.method(endpoint) ;
+        boolean firstTry = true ;
+        //Errors and 5xx in a row. A 429 doesn't count, we wait for its Retry-After instead
+        int failures = 0 ;
 
         //Don't stop believing
         while (true) {
+            if (!firstTry) {
+                metrics.increment(ApiMetrics.RETRIES, platform, method);
+            }
+            firstTry = false ;
+            boolean failed = false ;
             try {
                 //If it's a static endpoint, we don't need a throttler since we're allowed endless calls
                 if (!statikk) {
-                    throttler.waitFor();
+                    long beforeWait = System.nanoTime() ;
+                    throttler.waitFor(method, priority);
+                    metrics.recordSince(ApiMetrics.THROTTLE_WAIT, platform, method, beforeWait);
                 }
                 log.debug("API Called: {}", endpoint);
                 beforeApiCall = System.currentTimeMillis() ;
-                String response = target
-                        .request(MediaType.APPLICATION_JSON_TYPE)
-                        .header("X-Riot-Token", riotApiKey)
-                        .get(String.class);
+                long beforeNetwork = System.nanoTime() ;
+                TransportResponse response = transport.get(endpoint, requestHeaders) ;
+                metrics.recordSince(ApiMetrics.NETWORK, platform, method, beforeNetwork);
                 roundTrip = System.currentTimeMillis() - beforeApiCall;
                 log.trace("Roundtrip {}", roundTrip);
-                return response ;
-
-            } catch (ClientErrorException cer) {
-                int status = cer.getResponse().getStatus() ;
-                String error = String.format("Bad status: {%d} -> {%s}", status, cer.getResponse().getStatusInfo().getReasonPhrase());
-                if (status == 429) {
-                    error = error.concat(" : rateLimitCount {" + cer.getResponse().getHeaderString("X-Rate-Limit-Count") + "}") ;
-                    String retryAfter = cer.getResponse().getHeaderString("Retry-After") ;
-                    if (retryAfter != null) {
-                        error = error.concat(" : retryAfter {" + retryAfter + "}") ;
-                        long retryMillis = Long.parseLong(retryAfter) * 1000 ;
-                        log.warn("retryAfter header sent. will retry afterApiCall {} millis", retryMillis);
-                        try {
-                            Thread.sleep(retryMillis);
-                        } catch (InterruptedException e) {
-                            log.error("I shouldn't really be here");
+                try {
+                    int status = response.getStatus() ;
+                    if (!statikk) {
+                        throttler.onResponse(method, status, response::getHeader);
+                    }
+                    countStatus(status, method);
+                    if (status < 300) {
+                        if (cached) {
+                            //We need the bytes themselves for the cache, so this one can't be streamed
+                            byte[] body = response.readBody() ;
+                            cache.put(platform, endpoint, body);
+                            return decode(method, bodyReader, new ByteArrayInputStream(body)) ;
                         }
+                        return decode(method, bodyReader, response.getBody()) ;
                     }
-                } else if (status == 404) {
-                    log.error("GOT 404 from server!");
-                    return null;
+                    String error = String.format("Bad status: {%d} -> {%s}", status, response.getReason());
+                    if (status == 429) {
+                        error = error.concat(" : rateLimitCount {" + response.getHeader("X-Rate-Limit-Count") + "}") ;
+                        String retryAfter = response.getHeader("Retry-After") ;
+                        if (retryAfter != null) {
+                            error = error.concat(" : retryAfter {" + retryAfter + "}") ;
+                            long retryMillis = Long.parseLong(retryAfter) * 1000 ;
+                            log.warn("retryAfter header sent. will retry afterApiCall {} millis", retryMillis);
+                            try {
+                                Thread.sleep(retryMillis);
+                            } catch (InterruptedException e) {
+                                log.error("I shouldn't really be here");
+                            }
+                        }
+                    } else if (status == 404) {
+                        log.error("GOT 404 from server!");
+                        return null;
+                    } else {
+                        failed = true ;
+                    }
+                    log.error(error);
+                } finally {
+                    response.close();
                 }
-                log.error(error);
+            } catch (JsonProcessingException e) {
+                //Riot sent us something we can't read, calling again won't make it any better
+                log.error("Processing exception", e);
+                metrics.increment(ApiMetrics.ERRORS, platform, method);
+                throw new RuntimeException(e) ;
             } catch (Exception ex) {
                 log.error("Logged unknown error", ex) ;
+                metrics.increment(ApiMetrics.ERRORS, platform, method);
+                failed = true ;
                 //throw new RuntimeException(ex) ;
             } finally {
                 if (!statikk) {
                     throttler.releaseLock(System.currentTimeMillis() - roundTrip);
                 }
             }
+            if (failed) {
+                //Riot is down (or we can't reach it), calling again right away would only make it worse
+                try {
+                    Thread.sleep(backoffMillis(++failures));
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new RuntimeException(e) ;
+                }
+            }
         }
     }
 
-    private JsonNode callApi(String endpoint) {
+    /**
+     * How long to wait before the next retry, after this many failures in a row. It doubles every time up to
+     * MAX_BACKOFF_MILLIS, and a random half of it is taken off so the crawlers that failed together don't all
+     * come back together
+     */
+    static long backoffMillis(int failures) {
+        long delay = Math.min(MAX_BACKOFF_MILLIS, FIRST_BACKOFF_MILLIS << Math.min(failures - 1, 20)) ;
+        return delay / 2 + ThreadLocalRandom.current().nextLong(delay / 2 + 1) ;
+    }
+
+    /**
+     * Reads the body, timing it. For a streamed body that's also the time it takes the rest of it to come in
+     */
+    private <T> T decode(String method, BodyReader<T> bodyReader, InputStream body) throws IOException {
+        long beforeDecode = System.nanoTime() ;
         try {
-            String json = callApiJson(endpoint);
-            if (json == null) {
-                return NullNode.getInstance();
-            }
-            return om.readValue(json, JsonNode.class);
-        } catch (IOException ex) {
-            log.error("Logged unknown error", ex) ;
+            return bodyReader.read(body) ;
+        } finally {
+            metrics.recordSince(ApiMetrics.DECODE, platform, method, beforeDecode);
         }
-        throw new RuntimeException("How did i get here??");
+    }
+
+    private void countStatus(int status, String method) {
+        if (status == 429) {
+            metrics.increment(ApiMetrics.RATE_LIMITED, platform, method);
+        } else if (status == 404) {
+            metrics.increment(ApiMetrics.NOT_FOUND, platform, method);
+        } else if (status >= 500) {
+            metrics.increment(ApiMetrics.SERVER_ERROR, platform, method);
+        }
+    }
+
+    private String callApiJson(String endpoint) {
+        return callApi(endpoint, RiotApi::readString) ;
+    }
+
+    private byte[] callApiBytes(String endpoint) {
+        return callApi(endpoint, ByteStreams::readFully) ;
+    }
+
+    private JsonNode callApi(String endpoint) {
+        JsonNode node = callApi(endpoint, om::readTree) ;
+        return node == null ? NullNode.getInstance() : node ;
     }
 
     private <T> T callApi(String endpoint, Class<T> clazz)  {
-        JsonNode node = callApi(endpoint) ;
-        if (node instanceof NullNode) return null ;
-        try {
-            return om.treeToValue(node, clazz) ;
-        } catch (JsonProcessingException e) {
-            log.error("Processing exception", e);
-            throw new RuntimeException(e) ;
+        return callApi(endpoint, readerFor(clazz)::readValue) ;
+    }
+
+    /**
+     * ObjectReaders are immutable and thread safe, and hold on to the deserializers they have already resolved,
+     * so we keep one per type instead of going through the ObjectMapper every time
+     */
+    private ObjectReader readerFor(Class<?> clazz) {
+        return readers.computeIfAbsent(clazz, om::readerFor) ;
+    }
+
+    private static String readString(InputStream body) throws IOException {
+        return new String(ByteStreams.readFully(body), StandardCharsets.UTF_8) ;
+    }
+
+    /**
+     * The async twin of {@link #callApi(String, BodyReader)}
+     * The returned future completes with null on a 404, and retries (without holding any thread) on anything else
+     * that isn't a success
+     */
+    private <T> CompletableFuture<T> callApiAsync(String endpoint, BodyReader<T> bodyReader) {
+        CompletableFuture<T> result = new CompletableFuture<>() ;
+        if (cache != null && cache.isCached(endpoint)) {
+            byte[] body = cache.get(platform, endpoint) ;
+            if (body != null) {
+                log.debug("From cache (async): {}", endpoint);
+                metrics.increment(ApiMetrics.CACHE_HITS, platform, Endpoints.method(endpoint));
+                try {
+                    result.complete(bodyReader.read(new ByteArrayInputStream(body))) ;
+                } catch (IOException e) {
+                    result.completeExceptionally(e) ;
+                }
+                return result ;
+            }
         }
+        dispatchAsync(endpoint, bodyReader, result, 0);
+        return result ;
+    }
+
+    private CompletableFuture<byte[]> callApiBytesAsync(String endpoint) {
+        return callApiAsync(endpoint, ByteStreams::readFully) ;
+    }
+
+    private CompletableFuture<JsonNode> callApiAsync(String endpoint) {
+        return callApiAsync(endpoint, om::readTree).thenApply(node -> node == null ? NullNode.getInstance() : node) ;
+    }
+
+    private <T> CompletableFuture<T> callApiAsync(String endpoint, Class<T> clazz) {
+        return callApiAsync(endpoint, readerFor(clazz)::readValue) ;
+    }
+
+    /**
+     * @param failures Errors and 5xx in a row so far, see {@link #backoffMillis(int)}
+     */
+    private <T> void dispatchAsync(String endpoint, BodyReader<T> bodyReader, CompletableFuture<T> result, int failures) {
+        boolean statikk = endpoint.startsWith(staticEndpoint) ;
+        String method = Endpoints.method(endpoint) ;
+        synchronized (this) {
+            asyncDispatchQueue = asyncDispatchQueue.thenRunAsync(() -> {
+                //The lock is only held until the request is sent, we don't wait for the response
+                long beforeApiCall = 0 ;
+                try {
+                    if (!statikk) {
+                        long beforeWait = System.nanoTime() ;
+                        throttler.waitFor(method, priority);
+                        metrics.recordSince(ApiMetrics.THROTTLE_WAIT, platform, method, beforeWait);
+                    }
+                    log.debug("API Called (async): {}", endpoint);
+                    beforeApiCall = System.currentTimeMillis() ;
+                    long beforeNetwork = System.nanoTime() ;
+                    //Not on the http client's io thread, the response is decoded (and maybe cached to disk) here,
+                    //and whoever waits on the result carries on in this thread too
+                    transport.getAsync(endpoint, requestHeaders)
+                            .whenCompleteAsync((response, ex) -> {
+                                //Nobody looks at the future this returns, so anything thrown here has to end up in the result
+                                try {
+                                    metrics.recordSince(ApiMetrics.NETWORK, platform, method, beforeNetwork);
+                                    if (ex != null) {
+                                        log.error("Logged unknown error", ex);
+                                        metrics.increment(ApiMetrics.ERRORS, platform, method);
+                                        metrics.increment(ApiMetrics.RETRIES, platform, method);
+                                        retryAsync(endpoint, bodyReader, result, failures + 1, backoffMillis(failures + 1));
+                                    } else {
+                                        if (!statikk) {
+                                            throttler.onResponse(method, response.getStatus(), response::getHeader);
+                                        }
+                                        onAsyncResponse(endpoint, response, bodyReader, result, failures);
+                                    }
+                                } catch (Exception e) {
+                                    log.error("Logged unknown error", e) ;
+                                    metrics.increment(ApiMetrics.ERRORS, platform, method);
+                                    result.completeExceptionally(e) ;
+                                }
+                            }, SharedHttpClient.dispatcher()) ;
+                } catch (Exception ex) {
+                    //Don't let it fail the dispatch queue, or nothing after it will ever get called
+                    log.error("Logged unknown error", ex) ;
+                    result.completeExceptionally(ex) ;
+                } finally {
+                    if (!statikk) {
+                        throttler.releaseLock(beforeApiCall);
+                    }
+                }
+            }, SharedHttpClient.dispatcher()) ;
+        }
+    }
+
+    private <T> void onAsyncResponse(String endpoint, TransportResponse response,
+                                     BodyReader<T> bodyReader, CompletableFuture<T> result, int failures) {
+        int status = response.getStatus() ;
+        String method = Endpoints.method(endpoint) ;
+        countStatus(status, method);
+        if (status < 300) {
+            try {
+                if (cache != null && cache.isCached(endpoint)) {
+                    byte[] body = response.readBody() ;
+                    cache.put(platform, endpoint, body);
+                    result.complete(decode(method, bodyReader, new ByteArrayInputStream(body))) ;
+                } else {
+                    result.complete(decode(method, bodyReader, response.getBody())) ;
+                }
+            } catch (IOException e) {
+                log.error("Processing exception", e);
+                metrics.increment(ApiMetrics.ERRORS, platform, method);
+                result.completeExceptionally(e) ;
+            }
+            return ;
+        }
+        if (status == 404) {
+            log.error("GOT 404 from server!");
+            result.complete(null) ;
+            return ;
+        }
+        String error = String.format("Bad status: {%d} -> {%s}", status, response.getReason());
+        long retryMillis = 0 ;
+        if (status == 429) {
+            error = error.concat(" : rateLimitCount {" + response.getHeader("X-Rate-Limit-Count") + "}") ;
+            String retryAfter = response.getHeader("Retry-After") ;
+            if (retryAfter != null) {
+                error = error.concat(" : retryAfter {" + retryAfter + "}") ;
+                retryMillis = Long.parseLong(retryAfter) * 1000 ;
+                log.warn("retryAfter header sent. will retry afterApiCall {} millis", retryMillis);
+            }
+        }
+        log.error(error);
+        metrics.increment(ApiMetrics.RETRIES, platform, method);
+        if (status == 429) {
+            retryAsync(endpoint, bodyReader, result, failures, retryMillis);
+        } else {
+            retryAsync(endpoint, bodyReader, result, failures + 1, backoffMillis(failures + 1));
+        }
+    }
+
+    private <T> void retryAsync(String endpoint, BodyReader<T> bodyReader, CompletableFuture<T> result,
+                                int failures, long delayMillis) {
+        if (delayMillis > 0) {
+            SharedHttpClient.scheduler().schedule(() -> dispatchAsync(endpoint, bodyReader, result, failures), delayMillis, TimeUnit.MILLISECONDS) ;
+        } else {
+            dispatchAsync(endpoint, bodyReader, result, failures);
+        }
+    }
+
+    /**
+     * All the game versions riot knows about, latest first (same endpoint as riot-api-java's GetDataVersions)
+     */
+    public List<String> getVersions() {
+        String endpoint = staticEndpoint + "/versions" ;
+        return callApi(endpoint, body -> om.readValue(body, new TypeReference<List<String>>(){})) ;
+    }
+
+    /**
+     * The version of the static data currently live on this platform (same endpoint as riot-api-java's GetDataRealm)
+     */
+    public String getRealmVersion() {
+        String endpoint = staticEndpoint + "/realms" ;
+        JsonNode realm = callApi(endpoint) ;
+        if (realm.hasNonNull("v")) {
+            return realm.get("v").asText() ;
+        }
+        //No realm info, fall back to the latest version there is
+        List<String> versions = getVersions() ;
+        if (versions == null || versions.isEmpty()) {
+            throw new RuntimeException("Could not find the current static data version for " + platform) ;
+        }
+        return versions.get(0) ;
     }
 
     public List<Champion> getChampionsList() throws IOException {
@@ -157,22 +534,51 @@ public class RiotApi {
     }
 
     public Summoner getSummoner(long summonerId) throws IOException {
-        String endpoint = regionEndpoint + "/summoner/v3/summoners/" + String.valueOf(summonerId) ;
-        return callApi(endpoint, Summoner.class) ;
+        return callApi(summonerEndpoint(summonerId), Summoner.class) ;
+    }
+
+    public CompletableFuture<Summoner> getSummonerAsync(long summonerId) {
+        return callApiAsync(summonerEndpoint(summonerId), Summoner.class) ;
+    }
+
+    private String summonerEndpoint(long summonerId) {
+        return regionEndpoint + "/summoner/v3/summoners/" + String.valueOf(summonerId) ;
     }
 
     public List<MatchReference> getMatchList(long accountId, long beginTime) throws IOException {
+        List<MatchReference> matches = callApi(matchListEndpoint(accountId, beginTime), this::readMatchList) ;
+        return matches == null ? new LinkedList<>() : matches ;
+    }
+
+    public CompletableFuture<List<MatchReference>> getMatchListAsync(long accountId, long beginTime) {
+        return callApiAsync(matchListEndpoint(accountId, beginTime), this::readMatchList)
+                .thenApply(matches -> matches == null ? new LinkedList<>() : matches) ;
+    }
+
+    private String matchListEndpoint(long accountId, long beginTime) {
         String QUEUE = "420" ;
-        String endpoint = regionEndpoint + "/match/v3/matchlists/by-account/"
+        return regionEndpoint + "/match/v3/matchlists/by-account/"
                 + String.valueOf(accountId) +
                 "?queue=" + QUEUE +
                 "&beginTime=" + beginTime ;
+    }
 
-        JsonNode rootNode = callApi(endpoint) ;
-
-        if (rootNode.get("matches") == null) return new LinkedList<>() ;
-
-        return om.readValue(rootNode.get("matches").toString(), new TypeReference<List<MatchReference>>(){}) ;
+    /**
+     * Streams through the matchlist object and binds only the "matches" array, everything else is skipped
+     */
+    private List<MatchReference> readMatchList(InputStream body) throws IOException {
+        try (JsonParser parser = om.getFactory().createParser(body)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) return new LinkedList<>() ;
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.getCurrentName() ;
+                parser.nextToken() ;
+                if (field.equals("matches")) {
+                    return matchReferencesReader.readValue(parser) ;
+                }
+                parser.skipChildren() ;
+            }
+        }
+        return new LinkedList<>() ;
     }
 
     //public List<String> getChallengerIds
@@ -187,8 +593,15 @@ public class RiotApi {
     }
 
     public Summoner getSummonerByName(String name) throws IOException {
-        String endpoint = regionEndpoint + "/summoner/v3/summoners/by-name/" + name ;
-        return callApi(endpoint, Summoner.class) ;
+        return callApi(summonerByNameEndpoint(name), Summoner.class) ;
+    }
+
+    public CompletableFuture<Summoner> getSummonerByNameAsync(String name) {
+        return callApiAsync(summonerByNameEndpoint(name), Summoner.class) ;
+    }
+
+    private String summonerByNameEndpoint(String name) {
+        return regionEndpoint + "/summoner/v3/summoners/by-name/" + name ;
     }
 
 
@@ -222,23 +635,93 @@ public class RiotApi {
     }
 
     public Match getMatch(long matchId) {
-        String endpoint = String.format("%s/match/v3/matches/%s", regionEndpoint, matchId) ;
-        return callApi(endpoint, Match.class);
+        return callApi(matchEndpoint(matchId), Match.class);
+    }
+
+    public CompletableFuture<Match> getMatchAsync(long matchId) {
+        return callApiAsync(matchEndpoint(matchId), Match.class);
+    }
+
+    /**
+     * Fetches all the matches, returning them as they arrive (not in the order of the ids).
+     * A match that isn't found or can't be fetched gets a NOT_FOUND/FAILED result, it doesn't stop the rest of the batch
+     */
+    public Iterator<BatchResult<Match>> getMatches(Collection<Long> matchIds) {
+        return getMatches(matchIds, DEFAULT_BATCH_IN_FLIGHT) ;
+    }
+
+    public Iterator<BatchResult<Match>> getMatches(Collection<Long> matchIds, int maxInFlight) {
+        return new BatchFetcher<>(matchIds, this::getMatchAsync, maxInFlight) ;
+    }
+
+    private String matchEndpoint(long matchId) {
+        return String.format("%s/match/v3/matches/%s", regionEndpoint, matchId) ;
+    }
+
+    /**
+     * The match exactly as riot sent it, for when we just want to store it somewhere
+     */
+    public byte[] getMatchBytes(long matchId) {
+        return callApiBytes(matchEndpoint(matchId));
+    }
+
+    public CompletableFuture<byte[]> getMatchBytesAsync(long matchId) {
+        return callApiBytesAsync(matchEndpoint(matchId));
     }
 
     public MatchTimeline getMatchTimeline(long matchId) {
-        String endpoint = String.format("%s/match/v3/timelines/by-match/%s", regionEndpoint, matchId) ;
-        return callApi(endpoint, MatchTimeline.class);
+        return callApi(matchTimelineEndpoint(matchId), MatchTimeline.class);
+    }
+
+    public CompletableFuture<MatchTimeline> getMatchTimelineAsync(long matchId) {
+        return callApiAsync(matchTimelineEndpoint(matchId), MatchTimeline.class);
+    }
+
+    /**
+     * The timeline exactly as riot sent it, for when we just want to store it somewhere
+     */
+    public byte[] getMatchTimelineBytes(long matchId) {
+        return callApiBytes(matchTimelineEndpoint(matchId));
+    }
+
+    public CompletableFuture<byte[]> getMatchTimelineBytesAsync(long matchId) {
+        return callApiBytesAsync(matchTimelineEndpoint(matchId));
+    }
+
+    /**
+     * Same as {@link #getMatches(Collection)}, for timelines
+     */
+    public Iterator<BatchResult<MatchTimeline>> getMatchTimelines(Collection<Long> matchIds) {
+        return getMatchTimelines(matchIds, DEFAULT_BATCH_IN_FLIGHT) ;
+    }
+
+    public Iterator<BatchResult<MatchTimeline>> getMatchTimelines(Collection<Long> matchIds, int maxInFlight) {
+        return new BatchFetcher<>(matchIds, this::getMatchTimelineAsync, maxInFlight) ;
+    }
+
+    private String matchTimelineEndpoint(long matchId) {
+        return String.format("%s/match/v3/timelines/by-match/%s", regionEndpoint, matchId) ;
     }
 
     public LeaguePosition getLeaguePosition(Long summonerId) throws JsonProcessingException {
-        String endpoint = regionEndpoint + "/league/v3/positions/by-summoner/" + summonerId ;
-        JsonNode rootNode = callApi(endpoint);
-        Iterator<JsonNode> it = rootNode.elements() ;
-        while (it.hasNext()) {
-            JsonNode node = it.next();
-            if (node.get("queueType").asText().equals("RANKED_SOLO_5x5")) {
-                return om.treeToValue(node, LeaguePosition.class) ;
+        return callApi(leaguePositionEndpoint(summonerId), this::readSoloQueuePosition);
+    }
+
+    public CompletableFuture<LeaguePosition> getLeaguePositionAsync(Long summonerId) {
+        return callApiAsync(leaguePositionEndpoint(summonerId), this::readSoloQueuePosition) ;
+    }
+
+    private String leaguePositionEndpoint(Long summonerId) {
+        return regionEndpoint + "/league/v3/positions/by-summoner/" + summonerId ;
+    }
+
+    private LeaguePosition readSoloQueuePosition(InputStream body) throws IOException {
+        try (MappingIterator<LeaguePosition> it = readerFor(LeaguePosition.class).readValues(body)) {
+            while (it.hasNext()) {
+                LeaguePosition position = it.next() ;
+                if (position.queueType.equals("RANKED_SOLO_5x5")) {
+                    return position ;
+                }
             }
         }
         return null ;
@@ -0,0 +1,300 @@
+package gg.boosted.riotapi.cache;
+
+import gg.boosted.riotapi.Endpoints;
+import gg.boosted.riotapi.Platform;
+import gg.boosted.riotapi.utilities.ByteStreams;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.*;
+import java.lang.management.ManagementFactory;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ *
+ * Keeps the raw responses we got from riot on the local disk, so we don't have to ask for them again.
+ *
+ * Matches and timelines never change once the game is over, so they're kept forever. Other methods can be given
+ * a time to live (see {@link #setTtl(String, long)}), and methods that have neither aren't cached at all.
+ *
+ * Every response is addressed by (platform, method, resource), e.g. EUW1 match/v3/matches 12345.
+ * The payloads are deflated and appended to segment files, and each segment has an index file next to it
+ * with one line per payload: address, offset, length, crc, time stored.
+ * Nothing is ever rewritten, a newer payload for the same address just comes later in the index.
+ *
+ * Every process writes its own segments (the name has the pid in it), so several processes (crawlers, spark executors)
+ * can share the same directory. A process sees what the others have written the next time it opens the cache.
+ */
+public class ResponseCache {
+
+    private static Logger log = LoggerFactory.getLogger(ResponseCache.class) ;
+
+    public static final long FOREVER = Long.MAX_VALUE ;
+
+    static final long SEGMENT_SIZE_BYTES = 64L * 1024 * 1024 ;
+
+    private static final String SEGMENT_SUFFIX = ".seg" ;
+
+    private static final String INDEX_SUFFIX = ".idx" ;
+
+    //One per directory, two instances appending to the same directory from the same process would step on each other
+    private static final Map<Path, ResponseCache> caches = new ConcurrentHashMap<>() ;
+
+    private final Path directory ;
+
+    private final long segmentSizeBytes ;
+
+    //method -> how long a response stays good, in millis
+    private final Map<String, Long> ttls = new ConcurrentHashMap<>() ;
+
+    private final Map<String, Entry> index = new ConcurrentHashMap<>() ;
+
+    private final Map<String, FileChannel> readChannels = new ConcurrentHashMap<>() ;
+
+    //The segment this process is currently appending to
+    private String segmentName ;
+    private FileChannel segment ;
+    private Writer segmentIndex ;
+
+    /**
+     * The cache for the directory, opened the first time it's asked for
+     */
+    public static ResponseCache open(Path directory) throws IOException {
+        try {
+            return caches.computeIfAbsent(directory.toAbsolutePath().normalize(), dir -> {
+                try {
+                    return new ResponseCache(dir, SEGMENT_SIZE_BYTES) ;
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e) ;
+                }
+            }) ;
+        } catch (UncheckedIOException e) {
+            throw e.getCause() ;
+        }
+    }
+
+    ResponseCache(Path directory, long segmentSizeBytes) throws IOException {
+        this.directory = directory;
+        this.segmentSizeBytes = segmentSizeBytes;
+        ttls.put("match/v3/matches", FOREVER) ;
+        ttls.put("match/v3/timelines", FOREVER) ;
+        Files.createDirectories(directory) ;
+        loadIndex();
+    }
+
+    /**
+     * A cache in the directory given by the "RIOT_RESPONSE_CACHE_DIR" environment variable, or null if it isn't set
+     */
+    public static ResponseCache fromEnvironment() {
+        String dir = System.getenv("RIOT_RESPONSE_CACHE_DIR") ;
+        if (dir == null) {
+            return null ;
+        }
+        try {
+            return open(Paths.get(dir)) ;
+        } catch (IOException e) {
+            log.error("Could not open the response cache in {}, going without it", dir, e);
+            return null ;
+        }
+    }
+
+    /**
+     * Responses of the method are served from the cache for ttlMillis after they were stored.
+     * Use {@link #FOREVER} for things that never change, and 0 to stop caching the method
+     *
+     * @param method As given by {@link Endpoints#method(String)}, e.g. league/v3/positions
+     */
+    public ResponseCache setTtl(String method, long ttlMillis) {
+        if (ttlMillis <= 0) {
+            ttls.remove(method) ;
+        } else {
+            ttls.put(method, ttlMillis) ;
+        }
+        return this ;
+    }
+
+    public ResponseCache setTtl(String method, long ttl, TimeUnit unit) {
+        return setTtl(method, unit.toMillis(ttl)) ;
+    }
+
+    public boolean isCached(String endpoint) {
+        return ttls.containsKey(Endpoints.method(endpoint)) ;
+    }
+
+    /**
+     * @return The response as riot sent it, or null if we don't have it (or it's too old)
+     */
+    public byte[] get(Platform platform, String endpoint) {
+        Long ttl = ttls.get(Endpoints.method(endpoint)) ;
+        if (ttl == null) {
+            return null ;
+        }
+        Entry entry = index.get(address(platform, endpoint)) ;
+        if (entry == null) {
+            return null ;
+        }
+        if (ttl != FOREVER && System.currentTimeMillis() - entry.storedAt > ttl) {
+            return null ;
+        }
+        try {
+            ByteBuffer buffer = ByteBuffer.allocate(entry.length) ;
+            FileChannel channel = readChannel(entry.segment) ;
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer, entry.offset + buffer.position()) < 0) {
+                    throw new EOFException("Segment " + entry.segment + " is shorter than its index") ;
+                }
+            }
+            byte[] compressed = buffer.array() ;
+            if (crc(compressed) != entry.crc) {
+                log.warn("Bad checksum for {} in {}, ignoring it", address(platform, endpoint), entry.segment);
+                index.remove(address(platform, endpoint), entry) ;
+                return null ;
+            }
+            return ByteStreams.readFully(new InflaterInputStream(new ByteArrayInputStream(compressed))) ;
+        } catch (IOException e) {
+            log.warn("Could not read {} from the response cache", address(platform, endpoint), e);
+            return null ;
+        }
+    }
+
+    /**
+     * Stores the response, if its method is cached at all
+     */
+    public void put(Platform platform, String endpoint, byte[] payload) {
+        if (!isCached(endpoint)) {
+            return ;
+        }
+        String address = address(platform, endpoint) ;
+        try {
+            ByteArrayOutputStream compressed = new ByteArrayOutputStream(payload.length / 4) ;
+            try (DeflaterOutputStream out = new DeflaterOutputStream(compressed)) {
+                out.write(payload);
+            }
+            byte[] bytes = compressed.toByteArray() ;
+            long now = System.currentTimeMillis() ;
+            synchronized (this) {
+                if (segment == null || segment.size() + bytes.length > segmentSizeBytes) {
+                    rollSegment();
+                }
+                long offset = segment.size() ;
+                ByteBuffer buffer = ByteBuffer.wrap(bytes) ;
+                while (buffer.hasRemaining()) {
+                    segment.write(buffer, offset + buffer.position()) ;
+                }
+                //The payload is on disk before the index points at it
+                Entry entry = new Entry(segmentName, offset, bytes.length, crc(bytes), now) ;
+                segmentIndex.write(address + "\t" + entry.offset + "\t" + entry.length + "\t" + entry.crc + "\t" + entry.storedAt + "\n");
+                segmentIndex.flush();
+                index.put(address, entry) ;
+            }
+        } catch (IOException e) {
+            log.warn("Could not write {} to the response cache", address, e);
+        }
+    }
+
+    public synchronized void close() throws IOException {
+        if (segmentIndex != null) {
+            segmentIndex.close();
+            segmentIndex = null ;
+        }
+        segment = null ;
+        for (FileChannel channel : readChannels.values()) {
+            channel.close();
+        }
+        readChannels.clear();
+    }
+
+    static String address(Platform platform, String endpoint) {
+        return platform + " " + Endpoints.method(endpoint) + " " + Endpoints.resource(endpoint) ;
+    }
+
+    private void rollSegment() throws IOException {
+        if (segmentIndex != null) {
+            segmentIndex.close();
+        }
+        segmentName = System.currentTimeMillis() + "-" + ManagementFactory.getRuntimeMXBean().getName().replaceAll("[^A-Za-z0-9]", "_") ;
+        segment = readChannel(segmentName) ;
+        segmentIndex = Files.newBufferedWriter(directory.resolve(segmentName + INDEX_SUFFIX), StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND) ;
+        log.debug("Response cache now writing to segment {}", segmentName);
+    }
+
+    private FileChannel readChannel(String segmentName) throws IOException {
+        try {
+            return readChannels.computeIfAbsent(segmentName, name -> {
+                try {
+                    return FileChannel.open(directory.resolve(name + SEGMENT_SUFFIX),
+                            StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE) ;
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e) ;
+                }
+            }) ;
+        } catch (UncheckedIOException e) {
+            throw e.getCause() ;
+        }
+    }
+
+    /**
+     * The segments are named by the time they were started, so going through them in order leaves the newest
+     * payload of every address in the index
+     */
+    private void loadIndex() throws IOException {
+        try (DirectoryStream<Path> indexFiles = Files.newDirectoryStream(directory, "*" + INDEX_SUFFIX)) {
+            List<Path> sorted = new ArrayList<>() ;
+            indexFiles.forEach(sorted::add);
+            sorted.sort(null);
+            for (Path indexFile : sorted) {
+                String name = indexFile.getFileName().toString() ;
+                String segment = name.substring(0, name.length() - INDEX_SUFFIX.length()) ;
+                try (BufferedReader reader = Files.newBufferedReader(indexFile, StandardCharsets.UTF_8)) {
+                    String line ;
+                    while ((line = reader.readLine()) != null) {
+                        String[] fields = line.split("\t") ;
+                        //A process that died in the middle of a write can leave a torn last line
+                        if (fields.length != 5) continue ;
+                        try {
+                            index.put(fields[0], new Entry(segment, Long.parseLong(fields[1]), Integer.parseInt(fields[2]),
+                                    Long.parseLong(fields[3]), Long.parseLong(fields[4]))) ;
+                        } catch (NumberFormatException e) {
+                            log.warn("Bad line in {}: {}", indexFile, line);
+                        }
+                    }
+                }
+            }
+        }
+        log.info("Response cache in {} has {} responses", directory, index.size());
+    }
+
+    private static long crc(byte[] bytes) {
+        CRC32 crc = new CRC32() ;
+        crc.update(bytes);
+        return crc.getValue() ;
+    }
+
+    private static class Entry {
+        final String segment ;
+        final long offset ;
+        final int length ;
+        final long crc ;
+        final long storedAt ;
+
+        Entry(String segment, long offset, int length, long crc, long storedAt) {
+            this.segment = segment;
+            this.offset = offset;
+            this.length = length;
+            this.crc = crc;
+            this.storedAt = storedAt;
+        }
+    }
+}
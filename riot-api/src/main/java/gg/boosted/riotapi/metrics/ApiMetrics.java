@@ -0,0 +1,161 @@
+package gg.boosted.riotapi.metrics;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import gg.boosted.riotapi.Platform;
+import gg.boosted.riotapi.transport.SharedHttpClient;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.management.ObjectName;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ *
+ * Where the time of an api call goes, per platform and method (e.g. "network EUW1 match/v3/matches"):
+ * - throttle.wait - waiting for the throttler to let us call
+ * - throttle.lock - the part of that wait spent reserving a slot in redis (method is always "*")
+ * - network - from sending the request until we have the response status
+ * - decode - reading the body into whatever the caller wants
+ * And how often things go wrong: status.429, status.404, status.5xx, retries, errors
+ *
+ * There's one of these per JVM. It's registered over jmx as gg.boosted.riotapi:type=ApiMetrics,
+ * and if the "RIOT_METRICS_FILE" environment variable is set it's also dumped there (as json) every minute.
+ */
+public class ApiMetrics implements ApiMetricsMXBean {
+
+    private static Logger log = LoggerFactory.getLogger(ApiMetrics.class) ;
+
+    public static final String THROTTLE_WAIT = "throttle.wait" ;
+    public static final String THROTTLE_LOCK = "throttle.lock" ;
+    public static final String NETWORK = "network" ;
+    public static final String DECODE = "decode" ;
+
+    public static final String RATE_LIMITED = "status.429" ;
+    public static final String NOT_FOUND = "status.404" ;
+    public static final String SERVER_ERROR = "status.5xx" ;
+    public static final String RETRIES = "retries" ;
+    public static final String ERRORS = "errors" ;
+    public static final String CACHE_HITS = "cache.hits" ;
+
+    static final String OBJECT_NAME = "gg.boosted.riotapi:type=ApiMetrics" ;
+
+    private static final long DUMP_INTERVAL_SECONDS = 60 ;
+
+    private static final ApiMetrics instance = new ApiMetrics() ;
+
+    static {
+        try {
+            ManagementFactory.getPlatformMBeanServer().registerMBean(instance, new ObjectName(OBJECT_NAME)) ;
+        } catch (Exception e) {
+            log.warn("Could not register the api metrics over jmx", e);
+        }
+        String file = System.getenv("RIOT_METRICS_FILE") ;
+        if (file != null) {
+            SharedHttpClient.scheduler().scheduleWithFixedDelay(() -> {
+                try {
+                    instance.dump(Paths.get(file));
+                } catch (Exception e) {
+                    log.warn("Could not dump the api metrics to {}", file, e);
+                }
+            }, DUMP_INTERVAL_SECONDS, DUMP_INTERVAL_SECONDS, TimeUnit.SECONDS) ;
+        }
+    }
+
+    private final ObjectMapper om = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT) ;
+
+    private final Map<String, Histogram> histograms = new ConcurrentHashMap<>() ;
+
+    private final Map<String, LongAdder> counters = new ConcurrentHashMap<>() ;
+
+    ApiMetrics() {
+    }
+
+    public static ApiMetrics get() {
+        return instance ;
+    }
+
+    static String key(String name, Platform platform, String method) {
+        return name + " " + platform + " " + method ;
+    }
+
+    public Histogram histogram(String name, Platform platform, String method) {
+        return histograms.computeIfAbsent(key(name, platform, method), k -> new Histogram()) ;
+    }
+
+    /**
+     * Records the time that passed since startNanos (a System.nanoTime())
+     */
+    public void recordSince(String name, Platform platform, String method, long startNanos) {
+        histogram(name, platform, method).record(TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - startNanos));
+    }
+
+    public void increment(String name, Platform platform, String method) {
+        counters.computeIfAbsent(key(name, platform, method), k -> new LongAdder()).increment();
+    }
+
+    public long getCount(String name, Platform platform, String method) {
+        LongAdder counter = counters.get(key(name, platform, method)) ;
+        return counter == null ? 0 : counter.sum() ;
+    }
+
+    @Override
+    public Map<String, Long> getCounters() {
+        Map<String, Long> snapshot = new TreeMap<>() ;
+        counters.forEach((key, counter) -> snapshot.put(key, counter.sum()));
+        return snapshot ;
+    }
+
+    @Override
+    public Map<String, String> getHistograms() {
+        Map<String, String> snapshot = new TreeMap<>() ;
+        histograms.forEach((key, histogram) -> snapshot.put(key, histogram.toString()));
+        return snapshot ;
+    }
+
+    @Override
+    public String dump(String file) {
+        Path path = Paths.get(file) ;
+        try {
+            dump(path);
+        } catch (IOException e) {
+            throw new RuntimeException("Could not dump the api metrics to " + file, e) ;
+        }
+        return path.toAbsolutePath().toString() ;
+    }
+
+    /**
+     * Written to a temp file and then moved, so whoever reads the file never sees half of it
+     */
+    public void dump(Path file) throws IOException {
+        Map<String, Object> snapshot = new LinkedHashMap<>() ;
+        snapshot.put("time", System.currentTimeMillis()) ;
+        snapshot.put("counters", getCounters()) ;
+        Map<String, Object> histogramSnapshots = new TreeMap<>() ;
+        histograms.forEach((key, histogram) -> histogramSnapshots.put(key, histogram.snapshot()));
+        snapshot.put("histograms", histogramSnapshots) ;
+
+        Path absolute = file.toAbsolutePath() ;
+        Files.createDirectories(absolute.getParent()) ;
+        Path tmp = Files.createTempFile(absolute.getParent(), absolute.getFileName().toString(), ".tmp") ;
+        om.writeValue(tmp.toFile(), snapshot);
+        Files.move(tmp, absolute, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE) ;
+    }
+
+    @Override
+    public void reset() {
+        histograms.clear();
+        counters.clear();
+    }
+}
@@ -0,0 +1,22 @@
+package gg.boosted.riotapi.metrics;
+
+import java.util.Map;
+
+/**
+ *
+ * What {@link ApiMetrics} shows over jmx, under gg.boosted.riotapi:type=ApiMetrics
+ */
+public interface ApiMetricsMXBean {
+
+    Map<String, Long> getCounters() ;
+
+    Map<String, String> getHistograms() ;
+
+    /**
+     * Writes everything to the file (as json)
+     * @return Where it was written
+     */
+    String dump(String file) ;
+
+    void reset() ;
+}
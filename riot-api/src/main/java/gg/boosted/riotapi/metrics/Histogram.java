@@ -0,0 +1,92 @@
+package gg.boosted.riotapi.metrics;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ *
+ * A latency histogram with power of two buckets (in micros), cheap enough to record every api call into
+ * from any number of threads. The percentiles are the upper bound of the bucket they fall in, so they're
+ * at most 2x off, which is plenty to tell a 20ms call from a 2s one
+ */
+public class Histogram {
+
+    //Bucket i holds values below 2^i micros, the last one is everything above ~9 hours
+    private static final int BUCKETS = 36 ;
+
+    private final LongAdder[] buckets = new LongAdder[BUCKETS] ;
+
+    private final LongAdder count = new LongAdder() ;
+
+    private final LongAdder sum = new LongAdder() ;
+
+    private final LongAccumulator max = new LongAccumulator(Long::max, 0) ;
+
+    public Histogram() {
+        for (int i = 0; i < BUCKETS; i++) {
+            buckets[i] = new LongAdder() ;
+        }
+    }
+
+    public void record(long micros) {
+        long value = Math.max(0, micros) ;
+        int bucket = Math.min(BUCKETS - 1, 64 - Long.numberOfLeadingZeros(value)) ;
+        buckets[bucket].increment();
+        count.increment();
+        sum.add(value);
+        max.accumulate(value);
+    }
+
+    public long getCount() {
+        return count.sum() ;
+    }
+
+    public double getMeanMillis() {
+        long count = getCount() ;
+        return count == 0 ? 0 : sum.sum() / 1000.0 / count ;
+    }
+
+    public double getMaxMillis() {
+        return max.get() / 1000.0 ;
+    }
+
+    /**
+     * @param percentile between 0 and 100
+     */
+    public double getPercentileMillis(double percentile) {
+        long count = getCount() ;
+        if (count == 0) {
+            return 0 ;
+        }
+        long rank = (long)Math.ceil(count * percentile / 100) ;
+        long seen = 0 ;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += buckets[i].sum() ;
+            if (seen >= rank) {
+                //Never claim more than the largest value we've actually seen
+                return Math.min(1L << i, max.get()) / 1000.0 ;
+            }
+        }
+        return getMaxMillis() ;
+    }
+
+    public Map<String, Object> snapshot() {
+        Map<String, Object> snapshot = new LinkedHashMap<>() ;
+        snapshot.put("count", getCount()) ;
+        snapshot.put("meanMillis", getMeanMillis()) ;
+        snapshot.put("p50Millis", getPercentileMillis(50)) ;
+        snapshot.put("p90Millis", getPercentileMillis(90)) ;
+        snapshot.put("p99Millis", getPercentileMillis(99)) ;
+        snapshot.put("maxMillis", getMaxMillis()) ;
+        return snapshot ;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("count=%d mean=%.1fms p50=%.1fms p90=%.1fms p99=%.1fms max=%.1fms",
+                getCount(), getMeanMillis(), getPercentileMillis(50), getPercentileMillis(90),
+                getPercentileMillis(99), getMaxMillis()) ;
+    }
+}
@@ -0,0 +1,23 @@
+package gg.boosted.riotapi.staticdata;
+
+import gg.boosted.riotapi.dtos.Champion;
+import gg.boosted.riotapi.dtos.Item;
+import gg.boosted.riotapi.dtos.Mastery;
+import gg.boosted.riotapi.dtos.RuneDef;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ *
+ * Everything we need from the static data endpoints, for one game version
+ */
+public class StaticData {
+
+    public String version ;
+    public List<Champion> champions ;
+    public Map<String, Item> items ;
+    public Map<String, RuneDef> runes ;
+    public List<Mastery> masteries ;
+
+}
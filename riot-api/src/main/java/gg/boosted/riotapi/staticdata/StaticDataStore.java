@@ -0,0 +1,190 @@
+package gg.boosted.riotapi.staticdata;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import gg.boosted.riotapi.Platform;
+import gg.boosted.riotapi.RiotApi;
+import gg.boosted.riotapi.utilities.ByteStreams;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.nio.file.attribute.FileTime;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ *
+ * Keeps the static data (champions, items, runes, masteries) on the local disk, one snapshot file per game version.
+ *
+ * The snapshots are written in smile (binary json) and memory mapped when they're loaded. Riot is only asked for the
+ * realm version once every {@link #VERSION_CHECK_INTERVAL_MILLIS}, and the data itself is only downloaded when that
+ * version changes, so processes (and spark executors) normally start without touching the network at all.
+ *
+ * Files in the directory:
+ * {platform}-{version}.smile - the snapshot itself
+ * {platform}.version - the latest version we know of. its modification time is the last time we asked riot about it
+ */
+public class StaticDataStore {
+
+    private static Logger log = LoggerFactory.getLogger(StaticDataStore.class) ;
+
+    static final long VERSION_CHECK_INTERVAL_MILLIS = TimeUnit.HOURS.toMillis(6) ;
+
+    private static final ObjectMapper smile = new ObjectMapper(new SmileFactory()) ;
+
+    private static final Map<Platform, StaticDataStore> stores = new ConcurrentHashMap<>() ;
+
+    private final Platform platform ;
+
+    private final Path directory ;
+
+    private volatile StaticData current ;
+
+    private volatile long lastVersionCheck = 0 ;
+
+    StaticDataStore(Platform platform, Path directory) {
+        this.platform = platform;
+        this.directory = directory;
+    }
+
+    /**
+     * The static data for the platform, from memory if we have it, from disk if we don't, and from riot only
+     * if the game version has changed
+     */
+    public static StaticData get(Platform platform) {
+        return stores.computeIfAbsent(platform, p -> new StaticDataStore(p, defaultDirectory())).get() ;
+    }
+
+    /**
+     * The directory is taken from the "RIOT_STATIC_DATA_DIR" environment variable, if it isn't there, it's under the tmp dir
+     */
+    static Path defaultDirectory() {
+        String dir = System.getenv("RIOT_STATIC_DATA_DIR") ;
+        if (dir == null) {
+            return Paths.get(System.getProperty("java.io.tmpdir"), "riot-static-data") ;
+        }
+        return Paths.get(dir) ;
+    }
+
+    synchronized StaticData get() {
+        long now = System.currentTimeMillis() ;
+        if (current != null && now - lastVersionCheck < VERSION_CHECK_INTERVAL_MILLIS) {
+            return current ;
+        }
+
+        //Someone (maybe another process) has checked the version recently enough, just take whatever is on disk
+        try {
+            if (Files.exists(versionFile())) {
+                long lastChecked = Files.getLastModifiedTime(versionFile()).toMillis() ;
+                if (now - lastChecked < VERSION_CHECK_INTERVAL_MILLIS) {
+                    String version = readVersion() ;
+                    if (current == null || !current.version.equals(version)) {
+                        current = load(version) ;
+                    }
+                    lastVersionCheck = lastChecked ;
+                    return current ;
+                }
+            }
+        } catch (IOException e) {
+            log.warn("Could not read the static data snapshot for {}, will download it again", platform, e);
+        }
+
+        refresh() ;
+        return current ;
+    }
+
+    private void refresh() {
+        String version ;
+        RiotApi api ;
+        try {
+            api = RiotApi.forPlatform(platform) ;
+            version = api.getRealmVersion() ;
+        } catch (RuntimeException e) {
+            //We can live with a stale snapshot, but not with nothing at all
+            StaticData stale = loadLatestQuietly() ;
+            if (stale == null) {
+                throw e ;
+            }
+            log.warn("Could not get the current version for {}, using the snapshot for {}", platform, stale.version, e);
+            current = stale ;
+            lastVersionCheck = System.currentTimeMillis() ;
+            return ;
+        }
+
+        try {
+            if (Files.exists(snapshotFile(version))) {
+                log.debug("Static data for {} is still at version {}", platform, version);
+                current = load(version) ;
+            } else {
+                log.info("Downloading static data for {} version {}", platform, version);
+                StaticData data = new StaticData() ;
+                data.version = version ;
+                data.champions = api.getChampionsList() ;
+                data.items = api.getItems() ;
+                data.runes = api.getRuneDefs() ;
+                data.masteries = api.getMasteries() ;
+                write(data) ;
+                current = data ;
+            }
+            writeVersion(version) ;
+            lastVersionCheck = System.currentTimeMillis() ;
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to refresh static data for " + platform, e) ;
+        }
+    }
+
+    StaticData load(String version) throws IOException {
+        try (FileChannel channel = FileChannel.open(snapshotFile(version), StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()) ;
+            return smile.readValue(ByteStreams.asInputStream(buffer), StaticData.class) ;
+        }
+    }
+
+    private StaticData loadLatestQuietly() {
+        try {
+            if (Files.exists(versionFile())) {
+                return load(readVersion()) ;
+            }
+        } catch (IOException e) {
+            log.warn("Could not read the static data snapshot for {}", platform, e);
+        }
+        return null ;
+    }
+
+    /**
+     * Written to a temp file first and then moved, so no one ever maps a half written snapshot
+     */
+    void write(StaticData data) throws IOException {
+        Files.createDirectories(directory) ;
+        Path tmp = Files.createTempFile(directory, platform.toString(), ".tmp") ;
+        try (OutputStream out = Files.newOutputStream(tmp)) {
+            smile.writeValue(out, data);
+        }
+        Files.move(tmp, snapshotFile(data.version), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE) ;
+    }
+
+    void writeVersion(String version) throws IOException {
+        Files.createDirectories(directory) ;
+        Files.write(versionFile(), version.getBytes(StandardCharsets.UTF_8)) ;
+        Files.setLastModifiedTime(versionFile(), FileTime.fromMillis(System.currentTimeMillis())) ;
+    }
+
+    private String readVersion() throws IOException {
+        return new String(Files.readAllBytes(versionFile()), StandardCharsets.UTF_8).trim() ;
+    }
+
+    private Path versionFile() {
+        return directory.resolve(platform.toString() + ".version") ;
+    }
+
+    private Path snapshotFile(String version) {
+        return directory.resolve(platform.toString() + "-" + version + ".smile") ;
+    }
+}
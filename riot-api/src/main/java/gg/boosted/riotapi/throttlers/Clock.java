@@ -0,0 +1,78 @@
+package gg.boosted.riotapi.throttlers;
+
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ *
+ * Where the throttlers get the time from, and how they wait for it to pass.
+ * It's the system clock, unless they're being run in a simulation (see {@link gg.boosted.riotapi.throttlers.simulation.VirtualClock}).
+ *
+ * A throttler that wants to run in a simulation has to do all of its waiting through the clock,
+ * and must never sleep or park while holding a monitor (await is fine, it lets go of the monitor while it waits)
+ */
+public interface Clock {
+
+    long millis() ;
+
+    void sleep(long millis) throws InterruptedException ;
+
+    /**
+     * {@link Object#wait(long)} on a monitor the caller holds, for up to millis (0 waits until signalled)
+     */
+    void await(Object monitor, long millis) throws InterruptedException ;
+
+    /**
+     * {@link Object#notifyAll()} on a monitor the caller holds
+     */
+    void signalAll(Object monitor) ;
+
+    /**
+     * {@link LockSupport#park()}s the calling thread until someone unparks it. Like LockSupport it can return
+     * for no reason, so call it in a loop that checks what you're waiting for
+     *
+     * @throws InterruptedException If the thread was interrupted (the interrupt status is cleared)
+     */
+    void park() throws InterruptedException ;
+
+    /**
+     * {@link LockSupport#unpark(Thread)}s the thread, if it's not parked its next park returns right away
+     */
+    void unpark(Thread thread) ;
+
+    Clock SYSTEM = new Clock() {
+        @Override
+        public long millis() {
+            return System.currentTimeMillis() ;
+        }
+
+        @Override
+        public void sleep(long millis) throws InterruptedException {
+            if (millis > 0) {
+                Thread.sleep(millis);
+            }
+        }
+
+        @Override
+        public void await(Object monitor, long millis) throws InterruptedException {
+            monitor.wait(Math.max(millis, 0));
+        }
+
+        @Override
+        public void signalAll(Object monitor) {
+            monitor.notifyAll();
+        }
+
+        @Override
+        public void park() throws InterruptedException {
+            LockSupport.park(this);
+            if (Thread.interrupted()) {
+                throw new InterruptedException() ;
+            }
+        }
+
+        @Override
+        public void unpark(Thread thread) {
+            LockSupport.unpark(thread);
+        }
+    } ;
+}
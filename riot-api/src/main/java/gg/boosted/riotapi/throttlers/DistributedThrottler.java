@@ -1,17 +1,33 @@
 package gg.boosted.riotapi.throttlers;
 
 import gg.boosted.riotapi.Platform;
+import gg.boosted.riotapi.metrics.ApiMetrics;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import redis.clients.jedis.Jedis;
-import redis.clients.jedis.JedisPool;
-import redis.clients.jedis.JedisPoolConfig;
 
-import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
 
 /**
- * This throttler is based on the "redlock" algorithm (https://redis.io/topics/distlock)
- * It is used to coordinate API calls between several processes using redis as a lockRes mechanism
+ * Coordinates API calls between several processes using redis.
+ *
+ * Redis keeps the time at which the next call is allowed. Every call reserves the next free slot with one atomic
+ * script (see {@link RedisSlotStore}) that moves that time forward and says how long to wait until the slot comes,
+ * then just sleeps that long. Nothing is locked, so there's nothing to release and nothing to poll, and any number of
+ * threads and processes can share the same budget.
+ *
+ * Riot limits every platform separately, and so do we: everything in redis is kept per platform,
+ * so calls on KR never wait for calls on EUW1, and one process can crawl all the platforms at full speed.
+ *
+ * A busy process can lease permits instead (see {@link #setLeaseSize(int)}): one call to redis reserves the next
+ * few slots, and the process hands them out to its threads from memory. Other processes still get the slots after
+ * the lease, so nobody gets more than their share. Permits whose time passed without being used expire,
+ * and {@link #returnUnused()} gives the rest back if nobody reserved anything after them yet.
+ *
+ * In adaptive mode (see {@link #setAdaptive(boolean)}) a 429 halves the rate of the platform for everyone
+ * (and nobody calls until its Retry-After is over), and the rate then creeps back up by a little every second
+ * until it's back to the configured one. That's AIMD, like tcp does it. The current rate lives in redis too.
  *
  * Created by ilan on 12/12/16.
  */
@@ -19,95 +35,233 @@ public class DistributedThrottler implements IThrottler{
 
     private static Logger log = LoggerFactory.getLogger(DistributedThrottler.class);
 
-    //private static Jedis jedis = new Jedis("10.0.0.3");
-    private static JedisPool jedisPool = new JedisPool(new JedisPoolConfig(), "10.0.0.3") ;
+    //This keeps the time (redis millis) where the next call is allowed, per platform
+    private static String nextSlotRes = "riotApiNextSlot" ;
+
+    //The rate we backed off to (calls per second) and when we did it, per platform. Gone when we're back to full rate
+    private static String backoffRes = "riotApiBackoff" ;
+
+    //The rate after a 429 is this much of what it was
+    static final double DECREASE_FACTOR = 0.5 ;
 
-    //The name of the redis resource used to do the locking
-    private static String lockRes = "riotApiLock" ;
+    //And it never goes below this much of the configured rate
+    static final double MIN_RATE_FACTOR = 1.0 / 16 ;
 
-    //This keeps the time where the api was called last
-    private static String lastTimeCalledRes = "lastapicall" ;
+    //Every second without a 429 we get back this much of the configured rate
+    static final double RECOVERY_PER_SECOND = 1.0 / 60 ;
 
-    private static int lockExpirationInSeconds = 5 ;
+    //The 429s of requests that were already on their way when the first one came back don't count again
+    static final long DECREASE_COOLDOWN_MILLIS = 1000 ;
 
-    private Random random = new Random() ;
+    private final long millisBetweenRequests ;
 
-    private Long randomValue ;
+    private final Platform platform;
 
-    private long millisBetweenRequests ;
+    private final SlotStore store ;
 
-    private long lastTimeCalled = 0;
+    private final Clock clock ;
 
-    private Platform platform;
+    private volatile int leaseSize = 1 ;
+
+    private volatile boolean adaptive = false ;
+
+    //The permits we currently hold, null before the first lease
+    private final AtomicReference<Lease> lease = new AtomicReference<>() ;
+
+    //Guards refilling, only one thread at a time goes to redis for a new lease
+    private final Object leaseLock = new Object() ;
+    private boolean refilling = false ;
 
     public DistributedThrottler(int requestsPer10Seconds, int requestsPer10Minutes, Platform platform) {
+        this(requestsPer10Seconds, requestsPer10Minutes, platform, new RedisSlotStore(), Clock.SYSTEM) ;
+    }
+
+    public DistributedThrottler(int requestsPer10Seconds, int requestsPer10Minutes, Platform platform,
+                                SlotStore store, Clock clock) {
         millisBetweenRequests = Double.valueOf(Math.max(10.0/requestsPer10Seconds, 600.0/requestsPer10Minutes) * 1000).longValue();
         this.platform = platform;
+        this.store = store;
+        this.clock = clock;
+    }
+
+    /**
+     * How many permits to take from redis at a time. 1 (the default) goes to redis for every call.
+     * A good size is about what the process uses in a second or two: bigger leases save more round trips,
+     * but hold on to more of the budget the other processes are waiting for
+     */
+    public DistributedThrottler setLeaseSize(int permits) {
+        if (permits < 1) {
+            throw new IllegalArgumentException("A lease must have at least one permit") ;
+        }
+        this.leaseSize = permits;
+        return this ;
+    }
+
+    /**
+     * Back off on 429s (for every thread and process calling the platform), and slowly come back
+     */
+    public DistributedThrottler setAdaptive(boolean adaptive) {
+        this.adaptive = adaptive;
+        return this ;
     }
 
     @Override
     public void waitFor() {
-        //Generate a random value to store as a lockRes
-        randomValue = random.nextLong() ;
-        String regionLock = lockRes + ":" + platform.toString() ;
-        String result ;
-        try (Jedis jedis = jedisPool.getResource()) {
-            result = jedis.set(regionLock, randomValue.toString(), "NX", "EX", lockExpirationInSeconds);
+        try {
+            while (true) {
+                Lease current = lease.get() ;
+                if (current != null) {
+                    int permit = current.taken.getAndIncrement() ;
+                    if (permit < current.size) {
+                        long slot = current.localStart + permit * current.interval ;
+                        //A permit whose time passed a whole interval ago expired, using it now would make a burst
+                        if (clock.millis() - slot < current.interval) {
+                            sleepUntil(slot);
+                            return ;
+                        }
+                        continue ;
+                    }
+                }
+                refill(current);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while waiting for a slot", e) ;
         }
+    }
 
-        //We did not acquire the lockRes
-        while (result == null) {
-            //log.debug("Waiting for lock...");
-            try {
-                //Sleep for some random time
-                Thread.sleep(random.nextInt(5));
-            } catch (InterruptedException e) {
-                e.printStackTrace();
+    /**
+     * Gets a new lease, unless someone already replaced the one we saw used up.
+     * Redis isn't called while holding the lock, the others wait on it (through the clock) for the new lease
+     */
+    private void refill(Lease used) throws InterruptedException {
+        synchronized (leaseLock) {
+            while (refilling) {
+                clock.await(leaseLock, 0);
             }
-            try (Jedis jedis = jedisPool.getResource()) {
-                result = jedis.set(regionLock, randomValue.toString(), "NX", "EX", lockExpirationInSeconds);
+            if (lease.get() != used) {
+                return ;
             }
+            refilling = true ;
         }
-        log.debug("Locked '" + regionLock + "' with value " + randomValue);
-
-        //Get the last time called
-        try (Jedis jedis = jedisPool.getResource()) {
-            String lastTimeCalledString = jedis.get(lastTimeCalledRes);
-            if (lastTimeCalledString == null) {
-                lastTimeCalled = 0;
-            } else {
-                lastTimeCalled = Long.parseLong(lastTimeCalledString);
+        Lease fresh = null ;
+        try {
+            fresh = newLease() ;
+        } finally {
+            synchronized (leaseLock) {
+                if (fresh != null) {
+                    lease.set(fresh);
+                }
+                refilling = false ;
+                clock.signalAll(leaseLock);
             }
         }
-        sleepUntilAllowedToCall();
     }
 
-    private void sleepUntilAllowedToCall() {
-        while (System.currentTimeMillis() - lastTimeCalled < millisBetweenRequests) {
+    private Lease newLease() {
+        long beforeReserve = System.nanoTime() ;
+        int size = leaseSize ;
+        long[] reserved = store.reserve(slotKey(), backoffKey(), millisBetweenRequests, recoveryPerSecond(), size) ;
+        //The whole wait is measured by RiotApi, this is just the part spent talking to redis
+        ApiMetrics.get().recordSince(ApiMetrics.THROTTLE_LOCK, platform, "*", beforeReserve);
+        return new Lease(clock.millis() + reserved[0], reserved[1], reserved[2], size) ;
+    }
+
+    private void sleepUntil(long time) throws InterruptedException {
+        long waitMillis = time - clock.millis() ;
+        if (waitMillis > 0) {
+            log.debug("Can't call API yet, sleeping for {} ms", waitMillis);
+            clock.sleep(waitMillis);
+        }
+    }
+
+    @Override
+    public void onResponse(String method, int status, Function<String, String> headers) {
+        if (status != 429 || !adaptive) {
+            return ;
+        }
+        long retryAfterMillis = 0 ;
+        String retryAfter = headers.apply("Retry-After") ;
+        if (retryAfter != null) {
             try {
-                long sleepTime = millisBetweenRequests + lastTimeCalled - System.currentTimeMillis() ;
-                log.debug("Can't call API yet, sleeping for {} ms", sleepTime);
-                Thread.sleep(sleepTime);
-            } catch (InterruptedException e) {
-                log.error("This code shouldn't be reached");
-                throw new RuntimeException("This code shouldn't be reached");
+                retryAfterMillis = Long.parseLong(retryAfter.trim()) * 1000 ;
+            } catch (NumberFormatException e) {
+                log.warn("Can't read Retry-After '{}'", retryAfter);
             }
         }
+        //Whatever is left of our lease was reserved for the rate we no longer have
+        Lease current = lease.get() ;
+        if (current != null) {
+            current.taken.set(current.size) ;
+        }
+        double fullRate = 1000.0 / millisBetweenRequests ;
+        long interval ;
+        try {
+            interval = store.backoff(slotKey(), backoffKey(), millisBetweenRequests, recoveryPerSecond(),
+                    retryAfterMillis, fullRate * MIN_RATE_FACTOR, DECREASE_FACTOR, DECREASE_COOLDOWN_MILLIS) ;
+        } catch (RuntimeException e) {
+            //Redis is down or out of connections. The caller still has to retry its 429, we'll slow down next time
+            log.error("Could not back off for the 429 on " + platform, e);
+            return ;
+        }
+        log.warn("Got a 429 for {} on {} ({} {}), backing off to a call every {} ms",
+                method, platform, headers.apply("X-Rate-Limit-Type"), retryAfter, interval);
+    }
+
+    /**
+     * Gives the permits of the current lease that weren't handed out back to redis, for when the process
+     * is done calling for a while. They're only given back if no one reserved anything after them,
+     * otherwise they just expire
+     */
+    public void returnUnused() {
+        Lease current = lease.getAndSet(null) ;
+        if (current == null) {
+            return ;
+        }
+        int used = Math.min(current.taken.getAndSet(current.size), current.size) ;
+        if (used == current.size) {
+            return ;
+        }
+        long end = current.storeStart + current.size * current.interval ;
+        long firstUnused = current.storeStart + used * current.interval ;
+        boolean returned = store.giveBack(slotKey(), end, firstUnused) ;
+        log.debug("{} {} unused permits", returned ? "Returned" : "Could not return", current.size - used);
     }
 
+    private String slotKey() {
+        return nextSlotRes + ":" + platform ;
+    }
+
+    private String backoffKey() {
+        return backoffRes + ":" + platform ;
+    }
+
+    private double recoveryPerSecond() {
+        return 1000.0 / millisBetweenRequests * RECOVERY_PER_SECOND ;
+    }
+
+    /**
+     * Nothing to release, the slot was ours the moment it was reserved
+     */
     public void releaseLock(long lastTimeCalled) {
-        String regionLock = lockRes + ":" + platform.toString() ;
-        try (Jedis jedis = jedisPool.getResource()) {
-            String lockValue = jedis.get(regionLock);
-            if (lockValue != null && Long.parseLong(lockValue) == randomValue) {
-                jedis.set(lastTimeCalledRes, String.valueOf(lastTimeCalled));
-                jedis.del(regionLock);
-                log.debug("Released lock at '" + regionLock + "' with my value (" + randomValue + ")");
-            } else {
-                log.warn("Lock at '" + regionLock +
-                        "' is null or not mine (my value is " + randomValue +
-                        ", the lock value is " + lockValue + ")");
-            }
+    }
+
+    /**
+     * Consecutive slots reserved in one go. Permits are handed out in order by bumping taken, without locking
+     */
+    private static class Lease {
+        //When the first slot comes, by our clock and by the store's
+        final long localStart ;
+        final long storeStart ;
+        final long interval ;
+        final int size ;
+        final AtomicInteger taken = new AtomicInteger() ;
+
+        Lease(long localStart, long storeStart, long interval, int size) {
+            this.localStart = localStart;
+            this.storeStart = storeStart;
+            this.interval = interval;
+            this.size = size;
         }
     }
 
@@ -0,0 +1,113 @@
+package gg.boosted.riotapi.throttlers;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ *
+ * A throttler for a single process with lots of threads calling it at once.
+ *
+ * The callers line up (a lock free swap of the tail of the line, like a CLH queue) and each one waits,
+ * on its own, for the one in front of it to go through. Only the first in line waits for the time to pass,
+ * and it wakes up exactly when its slot comes, then wakes the one behind it. So the callers go through
+ * in the order they came, one every millisBetweenRequests, and nobody polls or sleeps on a guess.
+ * The waiting is done by parking, not on a monitor, so a virtual thread in line doesn't pin its carrier.
+ *
+ * A caller that's interrupted while in line steps out of it and the one behind it waits for the one in front instead.
+ */
+public class FifoThrottler implements IThrottler {
+
+    private final long millisBetweenRequests ;
+
+    private final Clock clock ;
+
+    //The last one in line
+    private final AtomicReference<Node> tail ;
+
+    public FifoThrottler(int requestsPer10Seconds, int requestsPer10Minutes) {
+        this(requestsPer10Seconds, requestsPer10Minutes, Clock.SYSTEM) ;
+    }
+
+    public FifoThrottler(int requestsPer10Seconds, int requestsPer10Minutes, Clock clock) {
+        millisBetweenRequests = Double.valueOf(Math.max(10.0/requestsPer10Seconds, 600.0/requestsPer10Minutes) * 1000).longValue();
+        this.clock = clock;
+        //Nobody went through yet, so whoever comes first goes right away
+        Node start = new Node() ;
+        start.slot = Long.MIN_VALUE ;
+        start.passed = true ;
+        tail = new AtomicReference<>(start) ;
+    }
+
+    @Override
+    public void waitFor() {
+        Node node = new Node() ;
+        Node ahead = tail.getAndSet(node) ;
+        //Wait until the one in front of us went through, skipping the ones that stepped out of the line
+        while (!ahead.passed) {
+            //Tell it who to unpark before checking again, so it can't go through in between unnoticed
+            ahead.behind = Thread.currentThread() ;
+            try {
+                while (!ahead.passed && ahead.gaveUpTo == null) {
+                    clock.park();
+                }
+            } catch (InterruptedException e) {
+                giveUp(node, ahead, e);
+            }
+            if (!ahead.passed) {
+                ahead = ahead.gaveUpTo ;
+            }
+        }
+
+        long slot = Math.max(clock.millis(), ahead.slot + millisBetweenRequests) ;
+        InterruptedException interrupted = null ;
+        long sleepTime ;
+        while ((sleepTime = slot - clock.millis()) > 0 && interrupted == null) {
+            try {
+                clock.sleep(sleepTime);
+            } catch (InterruptedException e) {
+                interrupted = e ;
+            }
+        }
+
+        //Even if we were interrupted the slot is ours, the one behind us takes the one after it
+        node.slot = slot ;
+        node.passed = true ;
+        wakeBehind(node);
+        if (interrupted != null) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while waiting for the throttler", interrupted) ;
+        }
+    }
+
+    /**
+     * Steps out of the line, whoever is behind us waits for the one we waited for
+     */
+    private void giveUp(Node node, Node ahead, InterruptedException e) {
+        node.gaveUpTo = ahead ;
+        wakeBehind(node);
+        Thread.currentThread().interrupt();
+        throw new RuntimeException("Interrupted while waiting for the throttler", e) ;
+    }
+
+    private void wakeBehind(Node node) {
+        Thread behind = node.behind ;
+        if (behind != null) {
+            clock.unpark(behind);
+        }
+    }
+
+    //DO nothing
+    @Override
+    public void releaseLock(long lastTimeCalled) {
+
+    }
+
+    private static class Node {
+        //When its owner went through, once passed is set
+        volatile long slot ;
+        volatile boolean passed = false ;
+        //Set if its owner stepped out of the line instead
+        volatile Node gaveUpTo ;
+        //Whoever is waiting for its owner, to unpark once it goes through or steps out
+        volatile Thread behind ;
+    }
+}
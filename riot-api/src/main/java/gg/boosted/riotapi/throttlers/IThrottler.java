@@ -1,5 +1,7 @@
 package gg.boosted.riotapi.throttlers;
 
+import java.util.function.Function;
+
 /**
  *
  * An interface that throttles the calls to the riot api
@@ -15,4 +17,40 @@ public interface IThrottler {
 
     void releaseLock(long lastTimeCalled) ;
 
+    /**
+     * Same as {@link #waitFor()}, for throttlers that keep separate limits per api method
+     *
+     * @param method The method being called (see {@link gg.boosted.riotapi.Endpoints#method(String)})
+     */
+    default void waitFor(String method) {
+        waitFor();
+    }
+
+    /**
+     * Same as {@link #waitFor(String)}, for throttlers that let more urgent calls go first (see {@link PriorityThrottler})
+     *
+     * @param priority Who's calling
+     */
+    default void waitFor(String method, Priority priority) {
+        waitFor(method);
+    }
+
+    /**
+     * Called with the headers of every response we got from riot, so throttlers can learn the actual limits
+     *
+     * @param method The method that was called
+     * @param headers Header name -> header value (null if the header wasn't sent)
+     */
+    default void onResponse(String method, Function<String, String> headers) {
+    }
+
+    /**
+     * Same as {@link #onResponse(String, Function)}, for throttlers that care what the answer was (e.g. backing off on 429s)
+     *
+     * @param status The http status riot answered with
+     */
+    default void onResponse(String method, int status, Function<String, String> headers) {
+        onResponse(method, headers);
+    }
+
 }
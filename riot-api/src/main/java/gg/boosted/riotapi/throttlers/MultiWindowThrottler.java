@@ -0,0 +1,202 @@
+package gg.boosted.riotapi.throttlers;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.*;
+import java.util.function.Function;
+
+/**
+ *
+ * A throttler that keeps every rate limit window riot tells us about, instead of collapsing them into one fixed
+ * spacing between calls. Calls go out in bursts, for as long as every window still has budget.
+ *
+ * There's one set of windows for the application (the key) and one set per method.
+ * They start from the limits given in the constructor and are then kept up to date from the
+ * X-App-Rate-Limit(-Count) and X-Method-Rate-Limit(-Count) headers of each response,
+ * so calls made by other processes with the same key are accounted for too.
+ *
+ * Thread safe, but only within a single JVM.
+ */
+public class MultiWindowThrottler implements IThrottler {
+
+    private static Logger log = LoggerFactory.getLogger(MultiWindowThrottler.class) ;
+
+    static final String APP_LIMIT_HEADER = "X-App-Rate-Limit" ;
+    static final String APP_COUNT_HEADER = "X-App-Rate-Limit-Count" ;
+    static final String METHOD_LIMIT_HEADER = "X-Method-Rate-Limit" ;
+    static final String METHOD_COUNT_HEADER = "X-Method-Rate-Limit-Count" ;
+
+    //Keyed by the window size in seconds
+    private final Map<Integer, RateWindow> appWindows = new HashMap<>() ;
+
+    private final Map<String, Map<Integer, RateWindow>> methodWindows = new HashMap<>() ;
+
+    private final Clock clock ;
+
+    public MultiWindowThrottler(int requestsPer10Seconds, int requestsPer10Minutes) {
+        this(requestsPer10Seconds, requestsPer10Minutes, Clock.SYSTEM) ;
+    }
+
+    public MultiWindowThrottler(int requestsPer10Seconds, int requestsPer10Minutes, Clock clock) {
+        this.clock = clock;
+        appWindows.put(10, new RateWindow(requestsPer10Seconds, 10)) ;
+        appWindows.put(600, new RateWindow(requestsPer10Minutes, 600)) ;
+    }
+
+    @Override
+    public void waitFor() {
+        waitFor(null);
+    }
+
+    @Override
+    public synchronized void waitFor(String method) {
+        while (true) {
+            //Looked up every time around, the headers may have told us about new method limits while we waited
+            Collection<RateWindow> forMethod = method == null ?
+                    Collections.emptyList() : methodWindows.getOrDefault(method, Collections.emptyMap()).values() ;
+            long now = clock.millis() ;
+            long sleepTime = Math.max(delay(appWindows.values(), now), delay(forMethod, now)) ;
+            if (sleepTime <= 0) {
+                appWindows.values().forEach(window -> window.record(now));
+                forMethod.forEach(window -> window.record(now));
+                return ;
+            }
+            log.debug("Can't call API yet, sleeping for {} ms", sleepTime);
+            try {
+                //Not a sleep, so new limits from the headers (or a freed window) wake us up
+                clock.await(this, sleepTime);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException("Interrupted while waiting for the throttler", e) ;
+            }
+        }
+    }
+
+    private static long delay(Collection<RateWindow> windows, long now) {
+        long delay = 0 ;
+        for (RateWindow window : windows) {
+            delay = Math.max(delay, window.delay(now)) ;
+        }
+        return delay ;
+    }
+
+    //Nothing to release, we don't hold anything across the call
+    @Override
+    public void releaseLock(long lastTimeCalled) {
+
+    }
+
+    @Override
+    public synchronized void onResponse(String method, Function<String, String> headers) {
+        long now = clock.millis() ;
+        update(appWindows, headers.apply(APP_LIMIT_HEADER), headers.apply(APP_COUNT_HEADER), now) ;
+        if (method != null && headers.apply(METHOD_LIMIT_HEADER) != null) {
+            update(methodWindows.computeIfAbsent(method, m -> new HashMap<>()),
+                    headers.apply(METHOD_LIMIT_HEADER), headers.apply(METHOD_COUNT_HEADER), now) ;
+        }
+        clock.signalAll(this);
+    }
+
+    /**
+     * Makes the windows match the limits header (adding and removing windows as needed) and
+     * brings their counts up to what riot has counted
+     */
+    private static void update(Map<Integer, RateWindow> windows, String limitsHeader, String countsHeader, long now) {
+        if (limitsHeader == null) {
+            return ;
+        }
+        Map<Integer, Integer> limits = parse(limitsHeader) ;
+        if (limits.isEmpty()) {
+            return ;
+        }
+        windows.keySet().retainAll(limits.keySet()) ;
+        limits.forEach((seconds, limit) -> windows.computeIfAbsent(seconds, s -> new RateWindow(limit, s)).limit = Math.max(limit, 1));
+
+        if (countsHeader != null) {
+            parse(countsHeader).forEach((seconds, count) -> {
+                RateWindow window = windows.get(seconds) ;
+                if (window != null) {
+                    window.sync(count, now);
+                }
+            });
+        }
+    }
+
+    /**
+     * "20:1,100:120" -> {1 -> 20, 120 -> 100}
+     */
+    static Map<Integer, Integer> parse(String header) {
+        Map<Integer, Integer> parsed = new HashMap<>() ;
+        for (String pair : header.split(",")) {
+            String[] parts = pair.trim().split(":") ;
+            if (parts.length != 2) continue ;
+            try {
+                parsed.put(Integer.parseInt(parts[1].trim()), Integer.parseInt(parts[0].trim())) ;
+            } catch (NumberFormatException e) {
+                log.warn("Could not parse rate limit '{}'", pair);
+            }
+        }
+        return parsed ;
+    }
+
+    /**
+     * A sliding log of the calls made in the last windowMillis.
+     * Riot's windows are fixed (they start at the first call), a sliding window is always at least as strict
+     */
+    static class RateWindow {
+
+        int limit ;
+
+        final long windowMillis ;
+
+        private final Deque<Long> calls = new ArrayDeque<>() ;
+
+        RateWindow(int limit, int windowSeconds) {
+            this.limit = Math.max(limit, 1);
+            this.windowMillis = windowSeconds * 1000L;
+        }
+
+        private void expire(long now) {
+            while (!calls.isEmpty() && calls.peekFirst() <= now - windowMillis) {
+                calls.pollFirst() ;
+            }
+        }
+
+        /**
+         * How long until there's room for another call (0 if there's room now)
+         */
+        long delay(long now) {
+            expire(now);
+            if (calls.size() < limit) {
+                return 0 ;
+            }
+            //We need the oldest (calls.size() - limit + 1) calls to expire
+            Iterator<Long> it = calls.iterator() ;
+            long call = 0 ;
+            for (int i = 0; i <= calls.size() - limit; i++) {
+                call = it.next() ;
+            }
+            return call + windowMillis - now ;
+        }
+
+        void record(long now) {
+            calls.addLast(now);
+        }
+
+        /**
+         * Riot counted more calls than we did (someone else is using the key), count them as if they were made now
+         */
+        void sync(int count, long now) {
+            expire(now);
+            while (calls.size() < count) {
+                calls.addLast(now);
+            }
+        }
+
+        int count(long now) {
+            expire(now);
+            return calls.size() ;
+        }
+    }
+}
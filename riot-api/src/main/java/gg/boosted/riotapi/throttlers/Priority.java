@@ -0,0 +1,35 @@
+package gg.boosted.riotapi.throttlers;
+
+/**
+ *
+ * Who's calling, so the calls someone is waiting for can go before the ones nobody is.
+ * The weight is the share of the calls a lane gets when every lane has calls waiting,
+ * a lane with nothing waiting leaves its share to the others.
+ */
+public enum Priority {
+
+    /**
+     * Lookups something is waiting on right now (summoner names, lol scores)
+     */
+    INTERACTIVE(8),
+
+    /**
+     * Filling in what's missing for summoners we already know about (match backfills)
+     */
+    BACKFILL(3),
+
+    /**
+     * The crawler, which will take whatever is left
+     */
+    CRAWL(1) ;
+
+    private final int weight ;
+
+    Priority(int weight) {
+        this.weight = weight;
+    }
+
+    public int getWeight() {
+        return weight;
+    }
+}
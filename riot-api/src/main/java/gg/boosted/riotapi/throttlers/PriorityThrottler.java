@@ -0,0 +1,130 @@
+package gg.boosted.riotapi.throttlers;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.function.Function;
+
+/**
+ *
+ * Puts the callers of another throttler in lanes by their {@link Priority} and lets them at it one at a time,
+ * weighted fair: when all lanes are waiting, INTERACTIVE gets 8 turns for every 3 of BACKFILL and 1 of CRAWL,
+ * and a lane that has nobody waiting doesn't hold anyone up.
+ *
+ * The turns are handed out by stride scheduling: every lane has a "pass" that moves forward by 1/weight
+ * with every turn it takes, and the waiting lane with the lowest pass goes next.
+ * A lane that was idle starts from where the others are, so it can't save up turns while nobody's looking.
+ *
+ * Only one caller at a time is inside the wrapped throttler, the rest wait here for their turn.
+ */
+public class PriorityThrottler implements IThrottler {
+
+    private final IThrottler delegate ;
+
+    private final Clock clock ;
+
+    private final Lane[] lanes = new Lane[Priority.values().length] ;
+
+    //The pass of the last lane that took a turn
+    private double virtualTime = 0 ;
+
+    //Someone is inside the wrapped throttler
+    private boolean busy = false ;
+
+    public PriorityThrottler(IThrottler delegate) {
+        this(delegate, Clock.SYSTEM) ;
+    }
+
+    /**
+     * @param clock Only used for waiting, for running in a simulation
+     */
+    public PriorityThrottler(IThrottler delegate, Clock clock) {
+        this.delegate = delegate;
+        this.clock = clock;
+        for (Priority priority : Priority.values()) {
+            lanes[priority.ordinal()] = new Lane() ;
+        }
+    }
+
+    @Override
+    public void waitFor() {
+        waitFor(null, Priority.CRAWL);
+    }
+
+    @Override
+    public void waitFor(String method) {
+        waitFor(method, Priority.CRAWL);
+    }
+
+    @Override
+    public void waitFor(String method, Priority priority) {
+        awaitTurn(priority);
+        try {
+            if (method == null) {
+                delegate.waitFor();
+            } else {
+                delegate.waitFor(method);
+            }
+        } finally {
+            synchronized (this) {
+                busy = false ;
+                clock.signalAll(this);
+            }
+        }
+    }
+
+    private synchronized void awaitTurn(Priority priority) {
+        Lane lane = lanes[priority.ordinal()] ;
+        Object ticket = new Object() ;
+        if (lane.waiting.isEmpty()) {
+            lane.pass = Math.max(lane.pass, virtualTime) ;
+        }
+        lane.waiting.addLast(ticket);
+        try {
+            while (busy || next() != lane || lane.waiting.peekFirst() != ticket) {
+                clock.await(this, 0);
+            }
+        } catch (InterruptedException e) {
+            lane.waiting.remove(ticket) ;
+            clock.signalAll(this);
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while waiting for a turn", e) ;
+        }
+        lane.waiting.removeFirst() ;
+        virtualTime = lane.pass ;
+        lane.pass += 1.0 / priority.getWeight() ;
+        busy = true ;
+    }
+
+    /**
+     * The waiting lane with the lowest pass, ties go to the more important one
+     */
+    private Lane next() {
+        Lane next = null ;
+        for (Lane lane : lanes) {
+            if (!lane.waiting.isEmpty() && (next == null || lane.pass < next.pass)) {
+                next = lane ;
+            }
+        }
+        return next ;
+    }
+
+    @Override
+    public void releaseLock(long lastTimeCalled) {
+        delegate.releaseLock(lastTimeCalled);
+    }
+
+    @Override
+    public void onResponse(String method, Function<String, String> headers) {
+        delegate.onResponse(method, headers);
+    }
+
+    @Override
+    public void onResponse(String method, int status, Function<String, String> headers) {
+        delegate.onResponse(method, status, headers);
+    }
+
+    private static class Lane {
+        final Deque<Object> waiting = new ArrayDeque<>() ;
+        double pass = 0 ;
+    }
+}
@@ -0,0 +1,146 @@
+package gg.boosted.riotapi.throttlers;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.JedisPool;
+import redis.clients.jedis.JedisPoolConfig;
+import redis.clients.jedis.exceptions.JedisDataException;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ *
+ * The budget of {@link DistributedThrottler} in redis. Every operation is a single lua script,
+ * so it's atomic no matter how many processes share the keys, and the times are redis' own
+ * (so the clocks of the machines the crawlers run on don't matter).
+ */
+public class RedisSlotStore implements SlotStore {
+
+    private static Logger log = LoggerFactory.getLogger(RedisSlotStore.class) ;
+
+    //Every platform (and with leases off, every call) takes a connection, jedis' default of 8 is too few
+    private static final int MAX_REDIS_CONNECTIONS = 64 ;
+
+    private static JedisPool jedisPool = new JedisPool(poolConfig(), "10.0.0.3") ;
+
+    //Finds out the current interval, recovering the rate for the time that passed since the last backoff.
+    //TIME makes the scripts non deterministic, which redis before 5 only accepts with replicate_commands
+    private static final String NOW_AND_INTERVAL =
+            "if redis.replicate_commands then redis.replicate_commands() end\n" +
+            "local base = tonumber(ARGV[1])\n" +
+            "local recovery = tonumber(ARGV[2])\n" +
+            "local time = redis.call('TIME')\n" +
+            "local now = tonumber(time[1]) * 1000 + math.floor(tonumber(time[2]) / 1000)\n" +
+            "local full = 1000 / base\n" +
+            "local rate = full\n" +
+            "local backoff = redis.call('HMGET', KEYS[2], 'rate', 'at')\n" +
+            "local at = tonumber(backoff[2])\n" +
+            "if backoff[1] then rate = math.min(full, tonumber(backoff[1]) + recovery * (now - at) / 1000) end\n" +
+            "local interval = math.max(base, math.ceil(1000 / rate))\n" ;
+
+    /**
+     * KEYS[1] - the next slot, KEYS[2] - the backoff.
+     * ARGV[1] - millis between requests, ARGV[2] - recovery in calls per second per second, ARGV[3] - how many slots.
+     * Returns how many millis until the first reserved slot, the time (in redis millis) of that slot,
+     * and the millis between the slots (more than ARGV[1] while we're backing off).
+     * The key expires once the slot after ours has passed, so an idle budget leaves nothing behind.
+     */
+    static final String RESERVE_SCRIPT = NOW_AND_INTERVAL +
+            "local count = tonumber(ARGV[3])\n" +
+            "local slot = tonumber(redis.call('GET', KEYS[1])) or now\n" +
+            "if slot < now then slot = now end\n" +
+            "local after = slot + count * interval\n" +
+            "redis.call('SET', KEYS[1], after, 'PX', after - now)\n" +
+            "return {slot - now, slot, interval}\n" ;
+
+    /**
+     * KEYS and ARGV[1], ARGV[2] like the reserve script. ARGV[3] - retry after millis, ARGV[4] - lowest rate,
+     * ARGV[5] - decrease factor, ARGV[6] - cooldown millis.
+     * Cuts the rate (unless it was just cut) and pushes the next slot to after the Retry-After
+     */
+    static final String BACKOFF_SCRIPT = NOW_AND_INTERVAL +
+            "if not (at and now - at < tonumber(ARGV[6])) then\n" +
+            "  rate = math.max(rate * tonumber(ARGV[5]), tonumber(ARGV[4]))\n" +
+            "  redis.call('HMSET', KEYS[2], 'rate', rate, 'at', now)\n" +
+            "  redis.call('PEXPIRE', KEYS[2], math.ceil((full - rate) / recovery * 1000) + 1)\n" +
+            "end\n" +
+            "local resume = now + tonumber(ARGV[3])\n" +
+            "local slot = tonumber(redis.call('GET', KEYS[1])) or now\n" +
+            "if slot < resume then redis.call('SET', KEYS[1], resume, 'PX', resume - now + 1) end\n" +
+            "return math.ceil(1000 / rate)\n" ;
+
+    /**
+     * KEYS[1] - the next slot, ARGV[1] - where our lease ended, ARGV[2] - the first slot we didn't use.
+     * Only moves the next slot back if nobody reserved anything after our lease. Returns 1 if it did
+     */
+    static final String RETURN_SCRIPT =
+            "if redis.replicate_commands then redis.replicate_commands() end\n" +
+            "if redis.call('GET', KEYS[1]) ~= ARGV[1] then return 0 end\n" +
+            "local time = redis.call('TIME')\n" +
+            "local now = tonumber(time[1]) * 1000 + math.floor(tonumber(time[2]) / 1000)\n" +
+            "local slot = tonumber(ARGV[2])\n" +
+            "if slot <= now then redis.call('DEL', KEYS[1]) else redis.call('SET', KEYS[1], slot, 'PX', slot - now) end\n" +
+            "return 1\n" ;
+
+    //script -> its sha, loaded into redis the first time it's needed (and again if redis forgets it)
+    private static final Map<String, String> shas = new ConcurrentHashMap<>() ;
+
+    private static JedisPoolConfig poolConfig() {
+        JedisPoolConfig config = new JedisPoolConfig() ;
+        config.setMaxTotal(MAX_REDIS_CONNECTIONS);
+        config.setMaxIdle(MAX_REDIS_CONNECTIONS);
+        return config ;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public long[] reserve(String slotKey, String backoffKey, long millisBetweenRequests, double recoveryPerSecond, int slots) {
+        List<Long> reserved = (List<Long>) run(RESERVE_SCRIPT, Arrays.asList(slotKey, backoffKey),
+                Arrays.asList(String.valueOf(millisBetweenRequests), String.valueOf(recoveryPerSecond), String.valueOf(slots))) ;
+        return new long[] {reserved.get(0), reserved.get(1), reserved.get(2)} ;
+    }
+
+    @Override
+    public long backoff(String slotKey, String backoffKey, long millisBetweenRequests, double recoveryPerSecond,
+                        long retryAfterMillis, double minRate, double decreaseFactor, long cooldownMillis) {
+        return (Long) run(BACKOFF_SCRIPT, Arrays.asList(slotKey, backoffKey),
+                Arrays.asList(String.valueOf(millisBetweenRequests), String.valueOf(recoveryPerSecond),
+                        String.valueOf(retryAfterMillis), String.valueOf(minRate),
+                        String.valueOf(decreaseFactor), String.valueOf(cooldownMillis))) ;
+    }
+
+    @Override
+    public boolean giveBack(String slotKey, long leaseEnd, long firstUnused) {
+        return (Long) run(RETURN_SCRIPT, Collections.singletonList(slotKey),
+                Arrays.asList(String.valueOf(leaseEnd), String.valueOf(firstUnused))) == 1 ;
+    }
+
+    /**
+     * Runs the script by its sha if redis already has it
+     */
+    private static Object run(String script, List<String> keys, List<String> args) {
+        try (Jedis jedis = jedisPool.getResource()) {
+            String sha = shas.get(script) ;
+            if (sha == null) {
+                sha = jedis.scriptLoad(script) ;
+                shas.put(script, sha) ;
+            }
+            try {
+                return jedis.evalsha(sha, keys, args) ;
+            } catch (JedisDataException e) {
+                if (e.getMessage() == null || !e.getMessage().startsWith("NOSCRIPT")) {
+                    throw e ;
+                }
+                //Redis was restarted (or flushed its scripts)
+                log.debug("Script is gone from redis, loading it again");
+                shas.put(script, jedis.scriptLoad(script)) ;
+                return jedis.eval(script, keys, args) ;
+            }
+        }
+    }
+}
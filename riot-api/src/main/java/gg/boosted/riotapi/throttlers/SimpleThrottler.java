@@ -5,7 +5,9 @@ import org.slf4j.LoggerFactory;
 
 /**
  *
- * A simple, non-threadsafe throttler
+ * A simple throttler, for a single process.
+ * Every caller takes the next slot (one every millisBetweenRequests) and sleeps until it comes.
+ * With lots of callers at once, {@link FifoThrottler} keeps them in order and only has one of them waiting on a timer
  *
  * Created by ilan on 12/10/16.
  */
@@ -15,28 +17,38 @@ public class SimpleThrottler implements IThrottler {
 
     private long millisBetweenRequests ;
 
-    private long lastTimeCalled = 0;
+    //The time the next call is allowed, guarded by this
+    private long nextSlot = 0;
+
+    private final Clock clock ;
 
     public SimpleThrottler(int requestsPer10Seconds, int requestsPer10Minutes) {
+        this(requestsPer10Seconds, requestsPer10Minutes, Clock.SYSTEM) ;
+    }
+
+    public SimpleThrottler(int requestsPer10Seconds, int requestsPer10Minutes, Clock clock) {
         millisBetweenRequests = Double.valueOf(Math.max(10.0/requestsPer10Seconds, 600.0/requestsPer10Minutes) * 1000).longValue();
+        this.clock = clock;
     }
 
-    /**
-     * I could probably make this better....
-     */
     @Override
     public void waitFor() {
-        while (System.currentTimeMillis() - lastTimeCalled < millisBetweenRequests) {
+        long slot ;
+        //The slot is taken under the lock, the sleep is outside of it so the others can take theirs meanwhile
+        synchronized (this) {
+            slot = Math.max(clock.millis(), nextSlot) ;
+            nextSlot = slot + millisBetweenRequests ;
+        }
+        long sleepTime = slot - clock.millis() ;
+        if (sleepTime > 0) {
+            log.debug("Can't call API yet, sleeping for {} ms", sleepTime);
             try {
-                long sleepTime = millisBetweenRequests + lastTimeCalled - System.currentTimeMillis() ;
-                log.debug("Can't call API yet, sleeping for {} ms", sleepTime);
-                Thread.sleep(sleepTime);
+                clock.sleep(sleepTime);
             } catch (InterruptedException e) {
-                log.error("This code shouldn't be reached");
-                throw new RuntimeException("This code shouldn't be reached");
+                Thread.currentThread().interrupt();
+                throw new RuntimeException("Interrupted while waiting for the throttler", e) ;
             }
         }
-        lastTimeCalled = System.currentTimeMillis() ;
     }
 
     //DO nothing
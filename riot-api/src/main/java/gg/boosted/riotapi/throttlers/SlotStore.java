@@ -0,0 +1,35 @@
+package gg.boosted.riotapi.throttlers;
+
+/**
+ *
+ * Where {@link DistributedThrottler} keeps the budget it shares with the other processes.
+ * Every operation is atomic, and the times are the store's own (not the caller's).
+ * That's {@link RedisSlotStore}, or an in memory one for simulations
+ * (see {@link gg.boosted.riotapi.throttlers.simulation.InMemorySlotStore})
+ */
+public interface SlotStore {
+
+    /**
+     * Reserves the next slots, spaced by the current interval (more than millisBetweenRequests while backing off)
+     *
+     * @param recoveryPerSecond How many calls per second the backed off rate gets back every second
+     * @return Millis until the first reserved slot, the time of the first slot (store millis), and the interval
+     */
+    long[] reserve(String slotKey, String backoffKey, long millisBetweenRequests, double recoveryPerSecond, int slots) ;
+
+    /**
+     * Cuts the rate by decreaseFactor (not below minRate, and not again within cooldownMillis of the last cut),
+     * and pushes the next slot to retryAfterMillis from now
+     *
+     * @return The interval we're backing off to
+     */
+    long backoff(String slotKey, String backoffKey, long millisBetweenRequests, double recoveryPerSecond,
+                 long retryAfterMillis, double minRate, double decreaseFactor, long cooldownMillis) ;
+
+    /**
+     * Moves the next slot back to firstUnused, but only if it's still leaseEnd (nobody reserved after us)
+     *
+     * @return Whether it did
+     */
+    boolean giveBack(String slotKey, long leaseEnd, long firstUnused) ;
+}
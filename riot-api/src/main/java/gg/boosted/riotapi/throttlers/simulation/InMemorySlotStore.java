@@ -0,0 +1,141 @@
+package gg.boosted.riotapi.throttlers.simulation;
+
+import gg.boosted.riotapi.throttlers.Clock;
+import gg.boosted.riotapi.throttlers.RedisSlotStore;
+import gg.boosted.riotapi.throttlers.SlotStore;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ *
+ * Stands in for redis in simulations. Does what the scripts of {@link RedisSlotStore} do (keys expire the same way),
+ * and every call takes a round trip on the clock, half of it on the way there and half on the way back.
+ */
+public class InMemorySlotStore implements SlotStore {
+
+    private final Clock clock ;
+
+    private final long roundTripMillis ;
+
+    //key -> {next slot, expires at}
+    private final Map<String, long[]> slots = new HashMap<>() ;
+
+    //key -> {rate, at, expires at}
+    private final Map<String, double[]> backoffs = new HashMap<>() ;
+
+    private long calls = 0 ;
+
+    public InMemorySlotStore(Clock clock, long roundTripMillis) {
+        this.clock = clock;
+        this.roundTripMillis = roundTripMillis;
+    }
+
+    @Override
+    public long[] reserve(String slotKey, String backoffKey, long millisBetweenRequests, double recoveryPerSecond, int slots) {
+        travel(roundTripMillis / 2);
+        long[] reserved ;
+        synchronized (this) {
+            calls++ ;
+            long now = clock.millis() ;
+            long interval = Math.max(millisBetweenRequests,
+                    (long)Math.ceil(1000 / rate(backoffKey, millisBetweenRequests, recoveryPerSecond, now))) ;
+            long slot = Math.max(now, slot(slotKey, now)) ;
+            long after = slot + slots * interval ;
+            this.slots.put(slotKey, new long[] {after, after}) ;
+            reserved = new long[] {slot - now, slot, interval} ;
+        }
+        travel(roundTripMillis - roundTripMillis / 2);
+        return reserved ;
+    }
+
+    @Override
+    public long backoff(String slotKey, String backoffKey, long millisBetweenRequests, double recoveryPerSecond,
+                        long retryAfterMillis, double minRate, double decreaseFactor, long cooldownMillis) {
+        travel(roundTripMillis / 2);
+        double rate ;
+        synchronized (this) {
+            calls++ ;
+            long now = clock.millis() ;
+            rate = rate(backoffKey, millisBetweenRequests, recoveryPerSecond, now) ;
+            double[] backoff = live(backoffs, backoffKey, now) ;
+            if (backoff == null || now - backoff[1] >= cooldownMillis) {
+                double full = 1000.0 / millisBetweenRequests ;
+                rate = Math.max(rate * decreaseFactor, minRate) ;
+                backoffs.put(backoffKey, new double[] {rate, now, now + Math.ceil((full - rate) / recoveryPerSecond * 1000) + 1}) ;
+            }
+            long resume = now + retryAfterMillis ;
+            if (slot(slotKey, now) < resume) {
+                slots.put(slotKey, new long[] {resume, resume + 1}) ;
+            }
+        }
+        travel(roundTripMillis - roundTripMillis / 2);
+        return (long)Math.ceil(1000 / rate) ;
+    }
+
+    @Override
+    public boolean giveBack(String slotKey, long leaseEnd, long firstUnused) {
+        travel(roundTripMillis / 2);
+        boolean returned = false ;
+        synchronized (this) {
+            calls++ ;
+            long now = clock.millis() ;
+            long[] slot = slots.get(slotKey) ;
+            if (slot != null && slot[1] > now && slot[0] == leaseEnd) {
+                if (firstUnused <= now) {
+                    slots.remove(slotKey) ;
+                } else {
+                    slots.put(slotKey, new long[] {firstUnused, firstUnused}) ;
+                }
+                returned = true ;
+            }
+        }
+        travel(roundTripMillis - roundTripMillis / 2);
+        return returned ;
+    }
+
+    /**
+     * How many times the store was called, i.e. how many round trips to redis there would have been
+     */
+    public synchronized long getCalls() {
+        return calls ;
+    }
+
+    private double rate(String backoffKey, long millisBetweenRequests, double recoveryPerSecond, long now) {
+        double full = 1000.0 / millisBetweenRequests ;
+        double[] backoff = live(backoffs, backoffKey, now) ;
+        if (backoff == null) {
+            return full ;
+        }
+        return Math.min(full, backoff[0] + recoveryPerSecond * (now - backoff[1]) / 1000) ;
+    }
+
+    //The next slot, or now if there's none
+    private long slot(String slotKey, long now) {
+        long[] slot = slots.get(slotKey) ;
+        if (slot == null || slot[1] <= now) {
+            slots.remove(slotKey) ;
+            return now ;
+        }
+        return slot[0] ;
+    }
+
+    private static double[] live(Map<String, double[]> values, String key, long now) {
+        double[] value = values.get(key) ;
+        if (value != null && value[2] <= now) {
+            values.remove(key) ;
+            return null ;
+        }
+        return value ;
+    }
+
+    //Not while holding the lock, the clock may let someone else run meanwhile
+    private void travel(long millis) {
+        try {
+            clock.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while talking to the store", e) ;
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package gg.boosted.riotapi.throttlers.simulation;
+
+import java.util.Arrays;
+
+/**
+ *
+ * How a throttler did in a {@link ThrottlerSimulation}
+ */
+public class SimulationReport {
+
+    public final long durationMillis ;
+
+    //Calls riot answered
+    public final long calls ;
+
+    //Calls riot would have answered with a 429, because they broke one of its limits
+    public final long violations ;
+
+    //The most calls the limits allow in that time
+    public final double allowed ;
+
+    //Round trips to the (stand in) redis
+    public final long storeCalls ;
+
+    //How long the callers waited for the throttler, sorted
+    private final long[] waits ;
+
+    SimulationReport(long durationMillis, long calls, long violations, double allowed, long storeCalls, long[] waits) {
+        this.durationMillis = durationMillis;
+        this.calls = calls;
+        this.violations = violations;
+        this.allowed = allowed;
+        this.storeCalls = storeCalls;
+        this.waits = waits.clone() ;
+        Arrays.sort(this.waits);
+    }
+
+    /**
+     * Calls per second
+     */
+    public double getRate() {
+        return calls * 1000.0 / durationMillis ;
+    }
+
+    /**
+     * How much of what the limits allow we actually used
+     */
+    public double getUtilization() {
+        return allowed == 0 ? 0 : calls / allowed ;
+    }
+
+    /**
+     * @param percentile 0-100
+     */
+    public long getWaitPercentile(double percentile) {
+        if (waits.length == 0) {
+            return 0 ;
+        }
+        int index = (int)Math.ceil(percentile / 100 * waits.length) - 1 ;
+        return waits[Math.max(0, Math.min(index, waits.length - 1))] ;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%d calls in %ds (%.3f/s, %.1f%% of the allowance), %d violations, %d store calls, " +
+                        "wait ms p50 %d p90 %d p99 %d max %d",
+                calls, durationMillis / 1000, getRate(), getUtilization() * 100, violations, storeCalls,
+                getWaitPercentile(50), getWaitPercentile(90), getWaitPercentile(99), getWaitPercentile(100)) ;
+    }
+}
@@ -0,0 +1,221 @@
+package gg.boosted.riotapi.throttlers.simulation;
+
+import gg.boosted.riotapi.Platform;
+import gg.boosted.riotapi.throttlers.*;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ *
+ * Runs a throttler against a pretend riot, on a {@link VirtualClock}, to see how close it gets to the limits
+ * without breaking them. Minutes of crawling take a second or so, and the same settings always give the same report.
+ *
+ * There are a few processes, each with its own throttler (from the factory) and a few threads that call riot
+ * through it as fast as it lets them, like the crawlers do. The processes share an {@link InMemorySlotStore}
+ * in place of redis. Riot takes between minLatency and maxLatency to answer, the calls arrive half way through,
+ * and the ones that break its limits get a 429 with a Retry-After (which the callers sleep through, like RiotApi does).
+ *
+ * The throttler has to do its waiting through the clock it's given, see {@link VirtualClock}.
+ */
+public class ThrottlerSimulation {
+
+    /**
+     * Makes the throttler of one process
+     */
+    @FunctionalInterface
+    public interface ThrottlerFactory {
+        IThrottler create(Clock clock, SlotStore store) ;
+    }
+
+    private static final String METHOD = "match/v3/matches" ;
+
+    private int processes = 1 ;
+    private int threadsPerProcess = 1 ;
+    private long minLatencyMillis = 50 ;
+    private long maxLatencyMillis = 150 ;
+    private long storeRoundTripMillis = 1 ;
+    private long durationMillis = TimeUnit.MINUTES.toMillis(10) ;
+    private long seed = 1 ;
+
+    //{calls, window millis}, riot's development key limits unless told otherwise
+    private final List<long[]> limits = new ArrayList<>(Arrays.asList(new long[] {10, 10000}, new long[] {500, 600000})) ;
+
+    public ThrottlerSimulation setProcesses(int processes, int threadsPerProcess) {
+        this.processes = processes;
+        this.threadsPerProcess = threadsPerProcess;
+        return this ;
+    }
+
+    /**
+     * Riot's round trip
+     */
+    public ThrottlerSimulation setLatency(long minMillis, long maxMillis) {
+        if (minMillis < 0 || maxMillis < minMillis) {
+            throw new IllegalArgumentException("Bad latency range " + minMillis + "-" + maxMillis) ;
+        }
+        this.minLatencyMillis = minMillis;
+        this.maxLatencyMillis = maxMillis;
+        return this ;
+    }
+
+    /**
+     * Redis' round trip
+     */
+    public ThrottlerSimulation setStoreRoundTrip(long millis) {
+        this.storeRoundTripMillis = millis;
+        return this ;
+    }
+
+    public ThrottlerSimulation setDuration(long duration, TimeUnit unit) {
+        this.durationMillis = unit.toMillis(duration);
+        return this ;
+    }
+
+    public ThrottlerSimulation setSeed(long seed) {
+        this.seed = seed;
+        return this ;
+    }
+
+    /**
+     * Replaces riot's limits with these, e.g. setLimits(20, 1, 100, 120) for 20 per second and 100 per 2 minutes
+     */
+    public ThrottlerSimulation setLimits(int... callsAndSeconds) {
+        if (callsAndSeconds.length == 0 || callsAndSeconds.length % 2 != 0) {
+            throw new IllegalArgumentException("Limits come in pairs of calls and seconds") ;
+        }
+        limits.clear();
+        for (int i = 0; i < callsAndSeconds.length; i += 2) {
+            limits.add(new long[] {callsAndSeconds[i], TimeUnit.SECONDS.toMillis(callsAndSeconds[i + 1])}) ;
+        }
+        return this ;
+    }
+
+    public SimulationReport run(ThrottlerFactory factory) throws InterruptedException {
+        VirtualClock clock = new VirtualClock() ;
+        InMemorySlotStore store = new InMemorySlotStore(clock, storeRoundTripMillis) ;
+        Riot riot = new Riot(limits) ;
+        //Only one simulated thread runs at a time, and always in the same order, so sharing these is deterministic
+        Random random = new Random(seed) ;
+        List<Long> waits = new ArrayList<>() ;
+
+        List<Runnable> callers = new ArrayList<>() ;
+        for (int process = 0; process < processes; process++) {
+            IThrottler throttler = factory.create(clock, store) ;
+            for (int thread = 0; thread < threadsPerProcess; thread++) {
+                callers.add(() -> call(throttler, clock, riot, random, waits)) ;
+            }
+        }
+        clock.run(callers);
+
+        double allowed = Double.MAX_VALUE ;
+        for (long[] limit : limits) {
+            allowed = Math.min(allowed, (double)limit[0] * durationMillis / limit[1]) ;
+        }
+        long[] sortedWaits = new long[waits.size()] ;
+        for (int i = 0; i < sortedWaits.length; i++) {
+            sortedWaits[i] = waits.get(i) ;
+        }
+        return new SimulationReport(durationMillis, riot.accepted, riot.rejected, allowed, store.getCalls(), sortedWaits) ;
+    }
+
+    private void call(IThrottler throttler, Clock clock, Riot riot, Random random, List<Long> waits) {
+        try {
+            while (clock.millis() < durationMillis) {
+                long beforeWait = clock.millis() ;
+                throttler.waitFor(METHOD);
+                long sent = clock.millis() ;
+                if (sent >= durationMillis) {
+                    return ;
+                }
+                waits.add(sent - beforeWait) ;
+                long latency = minLatencyMillis + (long)(random.nextDouble() * (maxLatencyMillis - minLatencyMillis + 1)) ;
+                clock.sleep(latency / 2);
+                long retryAfterMillis = riot.call(clock.millis()) ;
+                clock.sleep(latency - latency / 2);
+
+                Map<String, String> headers = new HashMap<>() ;
+                int status = 200 ;
+                if (retryAfterMillis > 0) {
+                    status = 429 ;
+                    headers.put("Retry-After", String.valueOf(TimeUnit.MILLISECONDS.toSeconds(retryAfterMillis + 999))) ;
+                    headers.put("X-Rate-Limit-Type", "application") ;
+                }
+                throttler.onResponse(METHOD, status, headers::get);
+                throttler.releaseLock(sent);
+                if (status == 429) {
+                    clock.sleep(TimeUnit.SECONDS.toMillis(Long.parseLong(headers.get("Retry-After"))));
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e) ;
+        }
+    }
+
+    /**
+     * Riot's limits as sliding windows, which is at least as strict as riot's own fixed ones.
+     * Calls that get a 429 don't count
+     */
+    private static class Riot {
+
+        private final List<long[]> limits ;
+
+        private final List<Deque<Long>> windows = new ArrayList<>() ;
+
+        long accepted = 0 ;
+        long rejected = 0 ;
+
+        Riot(List<long[]> limits) {
+            this.limits = limits;
+            for (int i = 0; i < limits.size(); i++) {
+                windows.add(new ArrayDeque<>()) ;
+            }
+        }
+
+        /**
+         * @return 0 if the call is answered, otherwise millis until it would have been
+         */
+        long call(long now) {
+            long retryAfter = 0 ;
+            for (int i = 0; i < limits.size(); i++) {
+                long[] limit = limits.get(i) ;
+                Deque<Long> window = windows.get(i) ;
+                while (!window.isEmpty() && window.peekFirst() <= now - limit[1]) {
+                    window.pollFirst() ;
+                }
+                if (window.size() >= limit[0]) {
+                    retryAfter = Math.max(retryAfter, window.peekFirst() + limit[1] - now) ;
+                }
+            }
+            if (retryAfter > 0) {
+                rejected++ ;
+                return retryAfter ;
+            }
+            windows.forEach(window -> window.addLast(now));
+            accepted++ ;
+            return 0 ;
+        }
+    }
+
+    /**
+     * Compares the throttlers we have, with 3 crawler processes of 4 threads each
+     */
+    public static void main(String[] args) throws InterruptedException {
+        ThrottlerSimulation simulation = new ThrottlerSimulation().setProcesses(3, 4) ;
+        Map<String, ThrottlerFactory> throttlers = new LinkedHashMap<>() ;
+        throttlers.put("simple (one per process)", (clock, store) -> new SimpleThrottler(10, 500, clock)) ;
+        throttlers.put("fifo (one per process)", (clock, store) -> new FifoThrottler(10, 500, clock)) ;
+        throttlers.put("distributed", (clock, store) -> new DistributedThrottler(10, 500, Platform.EUW1, store, clock)) ;
+        throttlers.put("distributed, leases of 5", (clock, store) ->
+                new DistributedThrottler(10, 500, Platform.EUW1, store, clock).setLeaseSize(5)) ;
+        throttlers.put("distributed, adaptive", (clock, store) ->
+                new DistributedThrottler(10, 500, Platform.EUW1, store, clock).setAdaptive(true)) ;
+        throttlers.put("priority over distributed", (clock, store) ->
+                new PriorityThrottler(new DistributedThrottler(10, 500, Platform.EUW1, store, clock), clock)) ;
+        throttlers.put("multi window (one per process)", (clock, store) -> new MultiWindowThrottler(10, 500, clock)) ;
+        for (Map.Entry<String, ThrottlerFactory> throttler : throttlers.entrySet()) {
+            System.out.println(throttler.getKey() + ": " + simulation.run(throttler.getValue()));
+        }
+    }
+}
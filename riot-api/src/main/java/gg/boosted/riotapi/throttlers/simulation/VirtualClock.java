@@ -0,0 +1,290 @@
+package gg.boosted.riotapi.throttlers.simulation;
+
+import gg.boosted.riotapi.throttlers.Clock;
+
+import java.util.*;
+import java.util.concurrent.CountDownLatch;
+
+/**
+ *
+ * A clock where time only moves when every simulated thread is waiting for it, so ten minutes of crawling
+ * take as long as the code takes to run, and every run comes out the same.
+ *
+ * The simulated threads are real threads, but only one of them runs at a time. The running thread keeps going
+ * until it sleeps, awaits or parks through this clock (or finishes), and then the thread with the earliest wakeup
+ * (the one that asked first, on a tie) gets to run, with the clock moved forward to its wakeup.
+ *
+ * That only works if the code under simulation does all of its waiting through the clock, and never sleeps
+ * while holding a monitor: another simulated thread blocking on that monitor would block the whole simulation.
+ */
+public class VirtualClock implements Clock {
+
+    private long now = 0 ;
+
+    private long sequence = 0 ;
+
+    private final PriorityQueue<Wakeup> wakeups = new PriorityQueue<>(
+            Comparator.comparingLong((Wakeup wakeup) -> wakeup.time).thenComparingLong(wakeup -> wakeup.sequence)) ;
+
+    private final Map<Thread, Actor> actors = new HashMap<>() ;
+
+    //monitor -> the wakeups of whoever is awaiting it
+    private final Map<Object, List<Wakeup>> awaiting = new IdentityHashMap<>() ;
+
+    private int alive = 0 ;
+
+    private Throwable failure ;
+
+    private final CountDownLatch done = new CountDownLatch(1) ;
+
+    @Override
+    public synchronized long millis() {
+        return now ;
+    }
+
+    /**
+     * Runs every task in its own simulated thread, all of them starting at the current time, until they all finish
+     *
+     * @throws IllegalStateException If they're all waiting for each other
+     */
+    public void run(List<Runnable> tasks) throws InterruptedException {
+        List<Thread> threads = new ArrayList<>() ;
+        synchronized (this) {
+            if (alive > 0) {
+                throw new IllegalStateException("Already running") ;
+            }
+            for (Runnable task : tasks) {
+                Thread thread = new Thread(() -> {
+                    Actor me = current() ;
+                    try {
+                        waitForTurn(me) ;
+                        task.run();
+                    } catch (Throwable e) {
+                        fail(e);
+                    } finally {
+                        finish(me);
+                    }
+                }, "simulated-" + threads.size()) ;
+                thread.setDaemon(true);
+                Actor actor = new Actor() ;
+                actor.waitingOn = actor ;
+                actors.put(thread, actor) ;
+                schedule(new Wakeup(now, actor, null));
+                threads.add(thread) ;
+                alive++ ;
+            }
+        }
+        threads.forEach(Thread::start);
+        Actor first ;
+        synchronized (this) {
+            first = next() ;
+        }
+        if (first != null) {
+            grant(first);
+            done.await();
+        }
+        synchronized (this) {
+            if (failure != null) {
+                throw new IllegalStateException("A simulated thread failed", failure) ;
+            }
+        }
+    }
+
+    @Override
+    public void sleep(long millis) throws InterruptedException {
+        if (millis <= 0) {
+            return ;
+        }
+        Actor me = current() ;
+        synchronized (this) {
+            me.waitingOn = me ;
+            schedule(new Wakeup(now + millis, me, null));
+        }
+        handOff(me);
+    }
+
+    @Override
+    public void await(Object monitor, long millis) throws InterruptedException {
+        Actor me = current() ;
+        synchronized (this) {
+            me.waitingOn = monitor ;
+            Wakeup wakeup = new Wakeup(millis > 0 ? now + millis : Long.MAX_VALUE, me, monitor) ;
+            awaiting.computeIfAbsent(monitor, m -> new ArrayList<>()).add(wakeup) ;
+            if (millis > 0) {
+                schedule(wakeup);
+            }
+        }
+        handOff(me);
+    }
+
+    @Override
+    public synchronized void signalAll(Object monitor) {
+        List<Wakeup> signalled = awaiting.remove(monitor) ;
+        if (signalled == null) {
+            return ;
+        }
+        for (Wakeup wakeup : signalled) {
+            wakeup.cancelled = true ;
+            schedule(new Wakeup(now, wakeup.actor, null));
+        }
+    }
+
+    @Override
+    public void park() throws InterruptedException {
+        Actor me = current() ;
+        synchronized (this) {
+            if (me.permit) {
+                me.permit = false ;
+                return ;
+            }
+            //Nothing to wake us up but an unpark
+            me.waitingOn = me ;
+            me.parked = true ;
+        }
+        handOff(me);
+    }
+
+    @Override
+    public synchronized void unpark(Thread thread) {
+        Actor actor = actors.get(thread) ;
+        if (actor == null) {
+            return ;
+        }
+        if (actor.parked) {
+            actor.parked = false ;
+            schedule(new Wakeup(now, actor, null));
+        } else {
+            actor.permit = true ;
+        }
+    }
+
+    private Actor current() {
+        Actor actor ;
+        synchronized (this) {
+            actor = actors.get(Thread.currentThread()) ;
+        }
+        if (actor == null) {
+            throw new IllegalStateException(Thread.currentThread().getName() + " is not a simulated thread") ;
+        }
+        return actor ;
+    }
+
+    private void schedule(Wakeup wakeup) {
+        wakeup.sequence = sequence++ ;
+        wakeups.add(wakeup) ;
+    }
+
+    /**
+     * The next one to run, with the clock moved to its wakeup. null if nobody is waiting for the time to pass
+     */
+    private Actor next() {
+        Wakeup wakeup ;
+        do {
+            wakeup = wakeups.poll() ;
+        } while (wakeup != null && wakeup.cancelled) ;
+        if (wakeup == null) {
+            return null ;
+        }
+        if (wakeup.monitor != null) {
+            //Timed out before anyone signalled
+            List<Wakeup> waiting = awaiting.get(wakeup.monitor) ;
+            if (waiting != null) {
+                waiting.remove(wakeup) ;
+                if (waiting.isEmpty()) {
+                    awaiting.remove(wakeup.monitor) ;
+                }
+            }
+        }
+        now = Math.max(now, wakeup.time) ;
+        return wakeup.actor ;
+    }
+
+    /**
+     * Lets the next one run and waits for our turn to come again.
+     * When awaiting, we wait on the monitor itself, which lets go of it until then
+     */
+    private void handOff(Actor me) throws InterruptedException {
+        Actor next ;
+        synchronized (this) {
+            next = next() ;
+        }
+        if (next == null) {
+            throw new IllegalStateException("Every simulated thread is waiting for another one") ;
+        }
+        grant(next);
+        waitForTurn(me);
+    }
+
+    private void grant(Actor actor) {
+        Object on ;
+        synchronized (this) {
+            on = actor.waitingOn ;
+        }
+        synchronized (on) {
+            actor.turn = true ;
+            on.notifyAll();
+        }
+    }
+
+    private void waitForTurn(Actor me) throws InterruptedException {
+        Object on ;
+        synchronized (this) {
+            on = me.waitingOn ;
+        }
+        synchronized (on) {
+            while (!me.turn) {
+                on.wait();
+            }
+            me.turn = false ;
+        }
+    }
+
+    private synchronized void fail(Throwable e) {
+        if (failure == null) {
+            failure = e ;
+        } else {
+            failure.addSuppressed(e);
+        }
+    }
+
+    private void finish(Actor me) {
+        Actor next ;
+        synchronized (this) {
+            actors.remove(Thread.currentThread()) ;
+            alive-- ;
+            next = next() ;
+            if (next == null) {
+                if (alive > 0) {
+                    fail(new IllegalStateException(alive + " simulated threads are waiting for each other"));
+                }
+                done.countDown();
+                return ;
+            }
+        }
+        grant(next);
+    }
+
+    private static class Actor {
+        //What the actor is waiting for its turn on: itself when sleeping or parked, the monitor when awaiting
+        Object waitingOn ;
+        boolean turn = false ;
+        //Parked until someone unparks it, and whether it was unparked before it parked
+        boolean parked = false ;
+        boolean permit = false ;
+    }
+
+    private static class Wakeup {
+        final long time ;
+        final Actor actor ;
+        //Set for a timed await, so it can be taken off the monitor's list when it times out
+        final Object monitor ;
+        long sequence ;
+        boolean cancelled = false ;
+
+        Wakeup(long time, Actor actor, Object monitor) {
+            this.time = time;
+            this.actor = actor;
+            this.monitor = monitor;
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package gg.boosted.riotapi.transport;
+
+import org.asynchttpclient.BoundRequestBuilder;
+
+import javax.ws.rs.client.Client;
+import javax.ws.rs.client.ClientBuilder;
+import javax.ws.rs.client.Invocation;
+import javax.ws.rs.core.Response;
+import java.io.InputStream;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ *
+ * Goes to riot over http. The blocking calls go through jax-rs, the async ones through the {@link SharedHttpClient}
+ */
+public class HttpTransport implements Transport {
+
+    //Clients are heavy (each one has its own connection pool) and thread safe, so there's one for the whole jvm
+    private static final Client client = ClientBuilder.newClient() ;
+
+    @Override
+    public TransportResponse get(String url, Map<String, String> headers) {
+        Invocation.Builder request = client.target(url).request() ;
+        headers.forEach(request::header);
+        Response response = request.get() ;
+        Map<String, String> responseHeaders = new HashMap<>() ;
+        for (String name : response.getStringHeaders().keySet()) {
+            responseHeaders.put(name, response.getHeaderString(name)) ;
+        }
+        InputStream body = response.hasEntity() ? response.readEntity(InputStream.class) : null ;
+        return new TransportResponse(response.getStatus(), response.getStatusInfo().getReasonPhrase(),
+                responseHeaders, body, response::close) ;
+    }
+
+    @Override
+    public CompletableFuture<TransportResponse> getAsync(String url, Map<String, String> headers) {
+        BoundRequestBuilder request = SharedHttpClient.get().prepareGet(url) ;
+        headers.forEach(request::addHeader);
+        return request.execute().toCompletableFuture().thenApply(response -> {
+            Map<String, String> responseHeaders = new HashMap<>() ;
+            for (Map.Entry<String, String> header : response.getHeaders()) {
+                responseHeaders.merge(header.getKey(), header.getValue(), (first, second) -> first + "," + second) ;
+            }
+            return new TransportResponse(response.getStatusCode(), response.getStatusText(),
+                    responseHeaders, response.getResponseBodyAsStream()) ;
+        }) ;
+    }
+}
@@ -0,0 +1,21 @@
+package gg.boosted.riotapi.transport;
+
+import java.util.Map;
+
+/**
+ *
+ * One request and the response we got for it, as kept in a recording (one json object per line).
+ * The request headers are never kept, they have the api key in them
+ */
+public class RecordedExchange {
+
+    public String url ;
+
+    public int status ;
+
+    public String reason ;
+
+    public Map<String, String> headers ;
+
+    public byte[] body ;
+}
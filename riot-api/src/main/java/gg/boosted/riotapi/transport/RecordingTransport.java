@@ -0,0 +1,94 @@
+package gg.boosted.riotapi.transport;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ *
+ * Passes everything on to another transport (normally {@link HttpTransport}) and appends every exchange
+ * to a recording file, so it can be played back later by a {@link ReplayTransport}
+ */
+public class RecordingTransport implements Transport {
+
+    private static Logger log = LoggerFactory.getLogger(RecordingTransport.class) ;
+
+    private static final ObjectMapper om = new ObjectMapper() ;
+
+    private final Transport delegate ;
+
+    private final Writer recording ;
+
+    public RecordingTransport(Transport delegate, Path recording) throws IOException {
+        this.delegate = delegate;
+        if (recording.getParent() != null) {
+            Files.createDirectories(recording.getParent()) ;
+        }
+        this.recording = Files.newBufferedWriter(recording, StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND) ;
+    }
+
+    @Override
+    public TransportResponse get(String url, Map<String, String> headers) throws IOException {
+        try (TransportResponse response = delegate.get(url, headers)) {
+            return record(url, response) ;
+        }
+    }
+
+    @Override
+    public CompletableFuture<TransportResponse> getAsync(String url, Map<String, String> headers) {
+        return delegate.getAsync(url, headers).thenApply(response -> {
+            try (TransportResponse r = response) {
+                return record(url, r) ;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e) ;
+            }
+        }) ;
+    }
+
+    @Override
+    public boolean requiresApiKey() {
+        return delegate.requiresApiKey() ;
+    }
+
+    /**
+     * Reads the whole body, writes it down and hands back a response over the bytes we read
+     */
+    private TransportResponse record(String url, TransportResponse response) throws IOException {
+        byte[] body = response.readBody() ;
+        //Being throttled (or riot having a bad day) says nothing about the url, the replay makes up its own
+        if (response.getStatus() != 429 && response.getStatus() < 500) {
+            RecordedExchange exchange = new RecordedExchange() ;
+            exchange.url = url ;
+            exchange.status = response.getStatus() ;
+            exchange.reason = response.getReason() ;
+            exchange.headers = response.getHeaders() ;
+            exchange.body = body ;
+            String line = om.writeValueAsString(exchange) ;
+            synchronized (recording) {
+                recording.write(line);
+                recording.write("\n");
+                recording.flush();
+            }
+            log.trace("Recorded {}", url);
+        }
+        return new TransportResponse(response.getStatus(), response.getReason(), response.getHeaders(), new ByteArrayInputStream(body)) ;
+    }
+
+    public void close() throws IOException {
+        synchronized (recording) {
+            recording.close();
+        }
+    }
+}
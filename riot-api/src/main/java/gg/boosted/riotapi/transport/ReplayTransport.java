@@ -0,0 +1,202 @@
+package gg.boosted.riotapi.transport;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ *
+ * Plays back a recording made by {@link RecordingTransport}, without any network (and without an api key),
+ * so the crawler and the throttlers can be load tested on a laptop.
+ *
+ * To make it look like riot it can:
+ * - Take its time answering ({@link #setLatency(long, long)})
+ * - Enforce a rate limit, answering 429 with a Retry-After when it's broken ({@link #setRateLimit(int, int)}).
+ *   The X-App-Rate-Limit(-Count) headers are sent with every response, like riot does
+ * - Throw in 429s at random, for no reason at all ({@link #setThrottleProbability(double, int)})
+ *
+ * Urls that aren't in the recording get a 404.
+ */
+public class ReplayTransport implements Transport {
+
+    private static Logger log = LoggerFactory.getLogger(ReplayTransport.class) ;
+
+    private static final ObjectMapper om = new ObjectMapper() ;
+
+    //url -> the last exchange recorded for it
+    private final Map<String, RecordedExchange> exchanges = new ConcurrentHashMap<>() ;
+
+    private volatile long minLatencyMillis = 0 ;
+    private volatile long maxLatencyMillis = 0 ;
+
+    private volatile double throttleProbability = 0 ;
+    private volatile int retryAfterSeconds = 1 ;
+
+    //The rate limit we pretend to have, 0 for none. riot's windows are fixed, they start with the first call
+    private int rateLimitRequests = 0 ;
+    private long rateLimitWindowMillis = 0 ;
+    private long windowStart = 0 ;
+    private int windowCount = 0 ;
+
+    private final AtomicLong served = new AtomicLong() ;
+    private final AtomicLong throttled = new AtomicLong() ;
+    private final AtomicLong notFound = new AtomicLong() ;
+
+    public ReplayTransport(Path recording) throws IOException {
+        try (BufferedReader reader = Files.newBufferedReader(recording, StandardCharsets.UTF_8)) {
+            String line ;
+            while ((line = reader.readLine()) != null) {
+                if (line.isEmpty()) continue ;
+                RecordedExchange exchange = om.readValue(line, RecordedExchange.class) ;
+                exchanges.put(exchange.url, exchange) ;
+            }
+        }
+        log.info("Replaying {} urls from {}", exchanges.size(), recording);
+    }
+
+    /**
+     * Every response takes between min and max millis to arrive
+     */
+    public ReplayTransport setLatency(long minMillis, long maxMillis) {
+        if (minMillis < 0 || maxMillis < minMillis) {
+            throw new IllegalArgumentException("Bad latency range " + minMillis + "-" + maxMillis) ;
+        }
+        this.minLatencyMillis = minMillis;
+        this.maxLatencyMillis = maxMillis;
+        return this ;
+    }
+
+    /**
+     * Answer up to requests calls every seconds, and 429 for everything above that. 0 requests for no limit
+     */
+    public synchronized ReplayTransport setRateLimit(int requests, int seconds) {
+        this.rateLimitRequests = requests;
+        this.rateLimitWindowMillis = TimeUnit.SECONDS.toMillis(seconds);
+        this.windowStart = 0 ;
+        this.windowCount = 0 ;
+        return this ;
+    }
+
+    /**
+     * Answer a random share of the calls with a 429 and a Retry-After of retryAfterSeconds
+     */
+    public ReplayTransport setThrottleProbability(double probability, int retryAfterSeconds) {
+        if (probability < 0 || probability > 1) {
+            throw new IllegalArgumentException("Probability must be between 0 and 1") ;
+        }
+        this.throttleProbability = probability;
+        this.retryAfterSeconds = retryAfterSeconds;
+        return this ;
+    }
+
+    @Override
+    public TransportResponse get(String url, Map<String, String> headers) throws IOException {
+        long latency = latency() ;
+        if (latency > 0) {
+            try {
+                Thread.sleep(latency);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Interrupted while replaying " + url, e) ;
+            }
+        }
+        return respond(url) ;
+    }
+
+    @Override
+    public CompletableFuture<TransportResponse> getAsync(String url, Map<String, String> headers) {
+        CompletableFuture<TransportResponse> result = new CompletableFuture<>() ;
+        SharedHttpClient.scheduler().schedule(() -> result.complete(respond(url)), latency(), TimeUnit.MILLISECONDS) ;
+        return result ;
+    }
+
+    @Override
+    public boolean requiresApiKey() {
+        return false ;
+    }
+
+    private long latency() {
+        if (maxLatencyMillis == 0) {
+            return 0 ;
+        }
+        return ThreadLocalRandom.current().nextLong(minLatencyMillis, maxLatencyMillis + 1) ;
+    }
+
+    private TransportResponse respond(String url) {
+        Map<String, String> headers = new HashMap<>() ;
+        long retryAfterMillis = countCall(headers) ;
+        if (retryAfterMillis > 0) {
+            return throttle(headers, (int)Math.max(1, TimeUnit.MILLISECONDS.toSeconds(retryAfterMillis + 999))) ;
+        }
+        if (throttleProbability > 0 && ThreadLocalRandom.current().nextDouble() < throttleProbability) {
+            return throttle(headers, retryAfterSeconds) ;
+        }
+        RecordedExchange exchange = exchanges.get(url) ;
+        if (exchange == null) {
+            notFound.incrementAndGet() ;
+            return new TransportResponse(404, "Not Found", headers, null) ;
+        }
+        served.incrementAndGet() ;
+        //Our own rate limit headers win over the recorded ones
+        Map<String, String> responseHeaders = exchange.headers == null ? new HashMap<>() : new HashMap<>(exchange.headers) ;
+        responseHeaders.putAll(headers);
+        return new TransportResponse(exchange.status, exchange.reason, responseHeaders,
+                exchange.body == null ? null : new ByteArrayInputStream(exchange.body)) ;
+    }
+
+    /**
+     * Counts the call against the rate limit and fills in the rate limit headers
+     *
+     * @return 0 if the call is allowed, otherwise how long until the window is over
+     */
+    private synchronized long countCall(Map<String, String> headers) {
+        if (rateLimitRequests <= 0) {
+            return 0 ;
+        }
+        long now = System.currentTimeMillis() ;
+        if (now - windowStart >= rateLimitWindowMillis) {
+            windowStart = now ;
+            windowCount = 0 ;
+        }
+        windowCount++ ;
+        long windowSeconds = TimeUnit.MILLISECONDS.toSeconds(rateLimitWindowMillis) ;
+        headers.put("X-App-Rate-Limit", rateLimitRequests + ":" + windowSeconds) ;
+        headers.put("X-App-Rate-Limit-Count", windowCount + ":" + windowSeconds) ;
+        if (windowCount > rateLimitRequests) {
+            return windowStart + rateLimitWindowMillis - now ;
+        }
+        return 0 ;
+    }
+
+    private TransportResponse throttle(Map<String, String> headers, int retryAfterSeconds) {
+        throttled.incrementAndGet() ;
+        headers.put("Retry-After", String.valueOf(retryAfterSeconds)) ;
+        return new TransportResponse(429, "Too Many Requests", headers, null) ;
+    }
+
+    public long getServed() {
+        return served.get();
+    }
+
+    public long getThrottled() {
+        return throttled.get();
+    }
+
+    public long getNotFound() {
+        return notFound.get();
+    }
+}
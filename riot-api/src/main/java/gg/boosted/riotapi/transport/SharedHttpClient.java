@@ -0,0 +1,73 @@
+package gg.boosted.riotapi.transport;
+
+import org.asynchttpclient.AsyncHttpClient;
+import org.asynchttpclient.Dsl;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ *
+ * Holds the process wide non blocking http client used by the async api calls.
+ * There is exactly one of these per JVM so all the RiotApi instances share the same connection pool
+ * (and we don't pay for a TLS handshake every time someone creates a new RiotApi)
+ */
+public class SharedHttpClient {
+
+    //Riot allows a lot more concurrent connections than that, but the throttler won't let us use them anyway
+    private static final int MAX_CONNECTIONS_PER_HOST = 64 ;
+
+    private static final int CONNECT_TIMEOUT_MILLIS = 5000 ;
+
+    private static final int REQUEST_TIMEOUT_MILLIS = 30000 ;
+
+    private static final int POOLED_CONNECTION_IDLE_TIMEOUT_MILLIS = 60000 ;
+
+    private static volatile AsyncHttpClient client ;
+
+    //Runs the (blocking) throttler waits, so the callers of the async api never block
+    private static final ExecutorService dispatcher = Executors.newCachedThreadPool(daemonThreadFactory("riot-api-dispatcher")) ;
+
+    //Used to retry requests later (when riot tells us to back off)
+    private static final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(daemonThreadFactory("riot-api-retry")) ;
+
+    public static AsyncHttpClient get() {
+        if (client == null) {
+            synchronized (SharedHttpClient.class) {
+                if (client == null) {
+                    client = Dsl.asyncHttpClient(Dsl.config()
+                            .setKeepAlive(true)
+                            .setMaxConnectionsPerHost(MAX_CONNECTIONS_PER_HOST)
+                            .setConnectTimeout(CONNECT_TIMEOUT_MILLIS)
+                            .setRequestTimeout(REQUEST_TIMEOUT_MILLIS)
+                            .setPooledConnectionIdleTimeout(POOLED_CONNECTION_IDLE_TIMEOUT_MILLIS)
+                            .setThreadFactory(daemonThreadFactory("riot-api-http"))) ;
+                }
+            }
+        }
+        return client ;
+    }
+
+    public static ExecutorService dispatcher() {
+        return dispatcher ;
+    }
+
+    public static ScheduledExecutorService scheduler() {
+        return scheduler ;
+    }
+
+    /**
+     * Daemon threads, so a process that forgot about its futures can still exit
+     */
+    private static ThreadFactory daemonThreadFactory(String name) {
+        AtomicInteger counter = new AtomicInteger() ;
+        return runnable -> {
+            Thread thread = new Thread(runnable, name + "-" + counter.incrementAndGet()) ;
+            thread.setDaemon(true);
+            return thread ;
+        } ;
+    }
+}
@@ -0,0 +1,28 @@
+package gg.boosted.riotapi.transport;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ *
+ * How RiotApi gets its responses. Normally that's {@link HttpTransport}, going to riot over http,
+ * but it can also be a {@link RecordingTransport} that keeps everything it sees,
+ * or a {@link ReplayTransport} that plays a recording back without any network at all.
+ */
+public interface Transport {
+
+    /**
+     * Blocks until the response arrives. The caller must close the response
+     */
+    TransportResponse get(String url, Map<String, String> headers) throws IOException ;
+
+    CompletableFuture<TransportResponse> getAsync(String url, Map<String, String> headers) ;
+
+    /**
+     * Whether RiotApi has to have a riot api key to use this transport
+     */
+    default boolean requiresApiKey() {
+        return true ;
+    }
+}
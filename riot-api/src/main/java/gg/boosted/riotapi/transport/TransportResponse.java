@@ -0,0 +1,82 @@
+package gg.boosted.riotapi.transport;
+
+import gg.boosted.riotapi.utilities.ByteStreams;
+
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ *
+ * A response, whatever transport it came from.
+ * The body can only be read once, and closing the response releases whatever is behind it (a pooled connection, usually)
+ */
+public class TransportResponse implements Closeable {
+
+    private final int status ;
+
+    private final String reason ;
+
+    private final Map<String, String> headers ;
+
+    private final InputStream body ;
+
+    private final Closeable onClose ;
+
+    public TransportResponse(int status, String reason, Map<String, String> headers, InputStream body) {
+        this(status, reason, headers, body, null) ;
+    }
+
+    public TransportResponse(int status, String reason, Map<String, String> headers, InputStream body, Closeable onClose) {
+        this.status = status;
+        this.reason = reason;
+        //Header names aren't case sensitive
+        TreeMap<String, String> copy = new TreeMap<>(String.CASE_INSENSITIVE_ORDER) ;
+        copy.putAll(headers);
+        this.headers = Collections.unmodifiableMap(copy) ;
+        this.body = body == null ? new ByteArrayInputStream(new byte[0]) : body;
+        this.onClose = onClose;
+    }
+
+    public int getStatus() {
+        return status;
+    }
+
+    public String getReason() {
+        return reason;
+    }
+
+    /**
+     * @return The header, or null if it wasn't sent
+     */
+    public String getHeader(String name) {
+        return headers.get(name) ;
+    }
+
+    public Map<String, String> getHeaders() {
+        return headers;
+    }
+
+    public InputStream getBody() {
+        return body;
+    }
+
+    public byte[] readBody() throws IOException {
+        return ByteStreams.readFully(body) ;
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            body.close();
+        } finally {
+            if (onClose != null) {
+                onClose.close();
+            }
+        }
+    }
+}
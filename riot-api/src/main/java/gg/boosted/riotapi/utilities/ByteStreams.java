@@ -0,0 +1,53 @@
+package gg.boosted.riotapi.utilities;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+
+public class ByteStreams {
+
+    private static final int BUFFER_SIZE = 8192 ;
+
+    /**
+     * Reads the stream to the end (and closes it)
+     */
+    public static byte[] readFully(InputStream in) throws IOException {
+        try (InputStream is = in) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream(BUFFER_SIZE) ;
+            byte[] buffer = new byte[BUFFER_SIZE] ;
+            int read ;
+            while ((read = is.read(buffer)) != -1) {
+                out.write(buffer, 0, read);
+            }
+            return out.toByteArray() ;
+        }
+    }
+
+    /**
+     * An InputStream view over a buffer (a memory mapped file, usually), so we can parse it without copying it first
+     */
+    public static InputStream asInputStream(ByteBuffer buffer) {
+        ByteBuffer source = buffer.duplicate() ;
+        return new InputStream() {
+            @Override
+            public int read() {
+                return source.hasRemaining() ? source.get() & 0xFF : -1 ;
+            }
+
+            @Override
+            public int read(byte[] bytes, int offset, int length) {
+                if (length == 0) return 0 ;
+                if (!source.hasRemaining()) return -1 ;
+                int toRead = Math.min(length, source.remaining()) ;
+                source.get(bytes, offset, toRead) ;
+                return toRead ;
+            }
+
+            @Override
+            public int available() {
+                return source.remaining() ;
+            }
+        } ;
+    }
+}
@@ -1,7 +1,9 @@
 package gg.boosted.riotapi;
 
 import gg.boosted.riotapi.dtos.Summoner;
+import gg.boosted.riotapi.dtos.match.Match;
 import gg.boosted.riotapi.dtos.match.MatchReference;
+import gg.boosted.riotapi.dtos.match.MatchTimeline;
 import gg.boosted.riotapi.throttlers.SimpleThrottler;
 import org.junit.Before;
 import org.junit.Test;
@@ -10,6 +12,10 @@ import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
 
 /**
  * Created by Angel on 09-Jun-17.
@@ -35,6 +41,19 @@ public class APITests {
         api.getMatch(matches.get(0).gameId) ;
     }
 
+    @Test
+    public void testAsync() throws Exception {
+        Long challenger = api.getChallengersIds().get(0) ;
+        Summoner s = api.getSummonerAsync(challenger).get() ;
+        log.info("Account for summoner " + challenger + " is " + s.accountId);
+        List<MatchReference> matches = api.getMatchListAsync(s.accountId, 11).get() ;
+        long gameId = matches.get(0).gameId ;
+        CompletableFuture<Match> match = api.getMatchAsync(gameId) ;
+        CompletableFuture<MatchTimeline> timeline = api.getMatchTimelineAsync(gameId) ;
+        assertEquals(gameId, match.get().gameId);
+        assertNotNull(timeline.get());
+    }
+
     public void test2() throws IOException {
         RiotApi r = new RiotApi(Platform.EUW1) ;
         r.throttler = new SimpleThrottler(10, 500) ;
@@ -0,0 +1,68 @@
+package gg.boosted.riotapi;
+
+import org.junit.Test;
+
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class BatchFetcherTest {
+
+    @Test
+    public void testEveryIdGetsItsOwnResult() {
+        List<Long> ids = Arrays.asList(1L, 2L, 3L, 4L) ;
+        Iterator<BatchResult<String>> it = new BatchFetcher<>(ids, id -> {
+            CompletableFuture<String> future = new CompletableFuture<>() ;
+            if (id == 2L) {
+                future.complete(null) ;
+            } else if (id == 3L) {
+                future.completeExceptionally(new RuntimeException("boom")) ;
+            } else {
+                future.complete("match" + id) ;
+            }
+            return future ;
+        }, 2) ;
+
+        Map<Long, BatchResult<String>> results = new HashMap<>() ;
+        while (it.hasNext()) {
+            BatchResult<String> result = it.next() ;
+            results.put(result.id, result) ;
+        }
+        assertEquals(4, results.size());
+        assertEquals("match1", results.get(1L).value);
+        assertEquals(BatchResult.Status.NOT_FOUND, results.get(2L).status);
+        assertEquals(BatchResult.Status.FAILED, results.get(3L).status);
+        assertTrue(results.get(4L).isOk());
+    }
+
+    @Test
+    public void testNeverMoreThanMaxInFlight() {
+        AtomicInteger inFlight = new AtomicInteger() ;
+        AtomicInteger maxSeen = new AtomicInteger() ;
+        Map<Long, CompletableFuture<Long>> futures = new ConcurrentHashMap<>() ;
+        List<Long> ids = new ArrayList<>() ;
+        for (long i = 0; i < 100; i++) ids.add(i) ;
+
+        Iterator<BatchResult<Long>> it = new BatchFetcher<>(ids, id -> {
+            maxSeen.accumulateAndGet(inFlight.incrementAndGet(), Math::max) ;
+            CompletableFuture<Long> future = CompletableFuture.supplyAsync(() -> {
+                inFlight.decrementAndGet() ;
+                return id ;
+            }) ;
+            futures.put(id, future) ;
+            return future ;
+        }, 5) ;
+
+        int count = 0 ;
+        while (it.hasNext()) {
+            it.next() ;
+            count++ ;
+        }
+        assertEquals(100, count);
+        assertTrue(maxSeen.get() <= 5);
+    }
+}
@@ -0,0 +1,47 @@
+package gg.boosted.riotapi;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class EndpointsTest {
+
+    private static final String LOL = "https://euw1.api.riotgames.com/lol/" ;
+
+    @Test
+    public void testMethodIsServiceVersionResource() {
+        assertEquals("match/v3/timelines", Endpoints.method(LOL + "match/v3/timelines/by-match/12345"));
+        assertEquals("match/v3/matchlists", Endpoints.method(LOL + "match/v3/matchlists/by-account/1?queue=420"));
+        assertEquals("summoner/v3/summoners", Endpoints.method(LOL + "summoner/v3/summoners/by-name/foo"));
+        assertEquals("static-data/v3/realms", Endpoints.method(LOL + "static-data/v3/realms"));
+    }
+
+    @Test
+    public void testLegacyMatchDoesNotTakeTheId() {
+        String url = LOL + "v2.2/match/12345?includeTimeline=true" ;
+        assertEquals("v2.2/match", Endpoints.method(url));
+        assertEquals("v2.2/match", Endpoints.method(LOL + "v2.2/match/67890?includeTimeline=false"));
+        assertEquals("12345?includeTimeline=true", Endpoints.resource(url));
+    }
+
+    @Test
+    public void testStaticDataListsAreMethodsOfTheirOwn() {
+        assertEquals("static-data/v3/v1.2/item", Endpoints.method(LOL + "static-data/v3/v1.2/item?itemListData=gold,stats"));
+        assertEquals("static-data/v3/v1.2/rune", Endpoints.method(LOL + "static-data/v3/v1.2/rune?runeListData=stats"));
+        assertEquals("static-data/v3/v1.2/mastery", Endpoints.method(LOL + "static-data/v3/v1.2/mastery?masteryListData=all"));
+        assertEquals("?itemListData=gold,stats", Endpoints.resource(LOL + "static-data/v3/v1.2/item?itemListData=gold,stats"));
+    }
+
+    @Test
+    public void testIdsWithoutAVersionAreNotMethods() {
+        assertEquals("match/{id}/timeline", Endpoints.method(LOL + "match/12345/timeline"));
+        assertEquals("match/{id}/timeline", Endpoints.method(LOL + "match/67890/timeline"));
+    }
+
+    @Test
+    public void testResourceIsWhatComesAfterTheMethod() {
+        assertEquals("by-match/12345", Endpoints.resource(LOL + "match/v3/timelines/by-match/12345"));
+        assertEquals("by-account/1?queue=420", Endpoints.resource(LOL + "match/v3/matchlists/by-account/1?queue=420"));
+        assertEquals("", Endpoints.resource(LOL + "static-data/v3/realms"));
+    }
+}
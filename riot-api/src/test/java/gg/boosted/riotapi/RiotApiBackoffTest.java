@@ -0,0 +1,26 @@
+package gg.boosted.riotapi;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertTrue;
+
+public class RiotApiBackoffTest {
+
+    @Test
+    public void testBackoffDoublesWithJitter() {
+        for (int i = 0; i < 1000; i++) {
+            long first = RiotApi.backoffMillis(1) ;
+            assertTrue(first >= 250 && first <= 500);
+            long third = RiotApi.backoffMillis(3) ;
+            assertTrue(third >= 1000 && third <= 2000);
+        }
+    }
+
+    @Test
+    public void testBackoffIsCapped() {
+        for (int failures : new int[] {7, 30, 1000}) {
+            long backoff = RiotApi.backoffMillis(failures) ;
+            assertTrue(backoff >= 15000 && backoff <= 30000);
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package gg.boosted.riotapi.cache;
+
+import gg.boosted.riotapi.Platform;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class ResponseCacheTest {
+
+    static final String MATCH = "https://euw1.api.riotgames.com/lol/match/v3/matches/12345" ;
+    static final String SUMMONER = "https://euw1.api.riotgames.com/lol/summoner/v3/summoners/81198228" ;
+
+    Path directory ;
+
+    @Before
+    public void before() throws IOException {
+        directory = Files.createTempDirectory("response-cache-test") ;
+    }
+
+    @Test
+    public void testRoundTripAndReopen() throws IOException {
+        ResponseCache cache = new ResponseCache(directory, ResponseCache.SEGMENT_SIZE_BYTES) ;
+        byte[] match = "{\"gameId\":12345}".getBytes(StandardCharsets.UTF_8) ;
+        cache.put(Platform.EUW1, MATCH, match);
+        assertArrayEquals(match, cache.get(Platform.EUW1, MATCH));
+        //Same id, other platform
+        assertNull(cache.get(Platform.NA1, MATCH));
+        cache.close();
+
+        ResponseCache reopened = new ResponseCache(directory, ResponseCache.SEGMENT_SIZE_BYTES) ;
+        assertArrayEquals(match, reopened.get(Platform.EUW1, MATCH));
+        reopened.close();
+    }
+
+    @Test
+    public void testOnlyCachedMethodsAreKept() throws IOException {
+        ResponseCache cache = new ResponseCache(directory, ResponseCache.SEGMENT_SIZE_BYTES) ;
+        byte[] summoner = "{\"id\":81198228}".getBytes(StandardCharsets.UTF_8) ;
+        assertFalse(cache.isCached(SUMMONER));
+        cache.put(Platform.EUW1, SUMMONER, summoner);
+        assertNull(cache.get(Platform.EUW1, SUMMONER));
+
+        cache.setTtl("summoner/v3/summoners", 1, TimeUnit.HOURS) ;
+        cache.put(Platform.EUW1, SUMMONER, summoner);
+        assertArrayEquals(summoner, cache.get(Platform.EUW1, SUMMONER));
+
+        cache.setTtl("summoner/v3/summoners", 1) ;
+        sleep(10);
+        assertNull(cache.get(Platform.EUW1, SUMMONER));
+        cache.close();
+    }
+
+    @Test
+    public void testSegmentsRoll() throws IOException {
+        ResponseCache cache = new ResponseCache(directory, 64) ;
+        for (int i = 0; i < 20; i++) {
+            cache.put(Platform.EUW1, MATCH + i, ("{\"gameId\":" + i + "}").getBytes(StandardCharsets.UTF_8));
+            sleep(2);
+        }
+        cache.close();
+        ResponseCache reopened = new ResponseCache(directory, 64) ;
+        for (int i = 0; i < 20; i++) {
+            assertEquals("{\"gameId\":" + i + "}", new String(reopened.get(Platform.EUW1, MATCH + i), StandardCharsets.UTF_8));
+        }
+        assertTrue(Files.list(directory).count() > 2);
+        reopened.close();
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            throw new RuntimeException(e) ;
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package gg.boosted.riotapi.metrics;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import gg.boosted.riotapi.Platform;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class ApiMetricsTest {
+
+    @Test
+    public void testHistogram() {
+        Histogram histogram = new Histogram() ;
+        for (int i = 0; i < 99; i++) {
+            histogram.record(1000);
+        }
+        histogram.record(2_000_000);
+        assertEquals(100, histogram.getCount());
+        //1ms falls in the [512, 1024) micros bucket
+        assertEquals(1.024, histogram.getPercentileMillis(50), 0.001);
+        assertEquals(1.024, histogram.getPercentileMillis(99), 0.001);
+        assertEquals(2000, histogram.getPercentileMillis(100), 0.001);
+        assertEquals(2000, histogram.getMaxMillis(), 0.001);
+    }
+
+    @Test
+    public void testDump() throws IOException {
+        ApiMetrics metrics = new ApiMetrics() ;
+        metrics.increment(ApiMetrics.RATE_LIMITED, Platform.EUW1, "match/v3/matches");
+        metrics.increment(ApiMetrics.RATE_LIMITED, Platform.EUW1, "match/v3/matches");
+        metrics.histogram(ApiMetrics.NETWORK, Platform.EUW1, "match/v3/matches").record(20_000);
+
+        Path file = Files.createTempDirectory("metrics-test").resolve("metrics.json") ;
+        metrics.dump(file);
+        JsonNode dump = new ObjectMapper().readTree(file.toFile()) ;
+        assertEquals(2, dump.get("counters").get("status.429 EUW1 match/v3/matches").asLong());
+        JsonNode network = dump.get("histograms").get("network EUW1 match/v3/matches") ;
+        assertEquals(1, network.get("count").asLong());
+        assertTrue(network.get("maxMillis").asDouble() == 20.0);
+
+        metrics.reset();
+        assertTrue(metrics.getCounters().isEmpty());
+    }
+}
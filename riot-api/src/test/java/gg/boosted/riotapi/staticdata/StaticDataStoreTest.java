@@ -0,0 +1,72 @@
+package gg.boosted.riotapi.staticdata;
+
+import gg.boosted.riotapi.Platform;
+import gg.boosted.riotapi.dtos.Champion;
+import gg.boosted.riotapi.dtos.Item;
+import gg.boosted.riotapi.dtos.Stats;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.HashMap;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+public class StaticDataStoreTest {
+
+    Path directory ;
+
+    StaticData data ;
+
+    @Before
+    public void before() throws IOException {
+        directory = Files.createTempDirectory("static-data-test") ;
+
+        Champion champion = new Champion() ;
+        champion.id = 23 ;
+        champion.name = "Tryndamere" ;
+
+        Item item = new Item() ;
+        item.id = 3031 ;
+        item.name = "Infinity Edge" ;
+        item.gold = 3400 ;
+        item.stats = new Stats() ;
+        item.stats.FlatPhysicalDamageMod = 70 ;
+
+        data = new StaticData() ;
+        data.version = "7.13.1" ;
+        data.champions = Collections.singletonList(champion) ;
+        data.items = new HashMap<>() ;
+        data.items.put("3031", item) ;
+        data.runes = new HashMap<>() ;
+        data.masteries = Collections.emptyList() ;
+    }
+
+    @Test
+    public void testRoundTrip() throws IOException {
+        StaticDataStore store = new StaticDataStore(Platform.EUW1, directory) ;
+        store.write(data);
+        StaticData loaded = store.load("7.13.1") ;
+        assertEquals("Tryndamere", loaded.champions.get(0).name);
+        assertEquals(3400, loaded.items.get("3031").gold.intValue());
+        assertEquals(70, loaded.items.get("3031").stats.FlatPhysicalDamageMod, 0.0);
+    }
+
+    @Test
+    public void testRecentlyCheckedSnapshotIsLoadedWithoutRiot() throws IOException {
+        StaticDataStore writer = new StaticDataStore(Platform.EUW1, directory) ;
+        writer.write(data);
+        writer.writeVersion("7.13.1");
+
+        //A fresh store (a new process) should get everything from the disk, and keep it in memory afterwards
+        StaticDataStore store = new StaticDataStore(Platform.EUW1, directory) ;
+        StaticData loaded = store.get() ;
+        assertEquals("7.13.1", loaded.version);
+        assertEquals(23, loaded.champions.get(0).id.intValue());
+        assertSame(loaded, store.get());
+    }
+}
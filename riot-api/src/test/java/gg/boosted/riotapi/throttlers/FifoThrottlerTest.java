@@ -0,0 +1,99 @@
+package gg.boosted.riotapi.throttlers;
+
+import gg.boosted.riotapi.throttlers.simulation.VirtualClock;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class FifoThrottlerTest {
+
+    @Test
+    public void testCallersGoInOrderOneSlotApart() throws InterruptedException {
+        VirtualClock clock = new VirtualClock() ;
+        //A call every 100 millis
+        FifoThrottler throttler = new FifoThrottler(100, 6000, clock) ;
+        List<Integer> order = new ArrayList<>() ;
+        List<Long> times = new ArrayList<>() ;
+        List<Runnable> callers = new ArrayList<>() ;
+        for (int i = 0; i < 200; i++) {
+            int caller = i ;
+            callers.add(() -> {
+                throttler.waitFor();
+                order.add(caller) ;
+                times.add(clock.millis()) ;
+            }) ;
+        }
+        clock.run(callers);
+
+        assertEquals(200, order.size());
+        for (int i = 0; i < order.size(); i++) {
+            assertEquals((Integer)i, order.get(i));
+            assertEquals(i * 100L, (long)times.get(i));
+        }
+    }
+
+    @Test
+    public void testIdleThrottlerDoesNotWait() throws InterruptedException {
+        VirtualClock clock = new VirtualClock() ;
+        FifoThrottler throttler = new FifoThrottler(100, 6000, clock) ;
+        List<Long> times = new ArrayList<>() ;
+        List<Runnable> callers = new ArrayList<>() ;
+        callers.add(() -> {
+            try {
+                for (int i = 0; i < 3; i++) {
+                    throttler.waitFor();
+                    times.add(clock.millis()) ;
+                    clock.sleep(250);
+                }
+            } catch (InterruptedException e) {
+                throw new RuntimeException(e) ;
+            }
+        }) ;
+        clock.run(callers);
+
+        assertEquals(0L, (long)times.get(0));
+        assertEquals(250L, (long)times.get(1));
+        assertEquals(500L, (long)times.get(2));
+    }
+
+    @Test
+    public void testInterruptedCallerStepsOutOfLine() throws InterruptedException {
+        //A call every 200 millis
+        FifoThrottler throttler = new FifoThrottler(50, 3000) ;
+        throttler.waitFor();
+
+        AtomicBoolean gaveUp = new AtomicBoolean() ;
+        //Waits for the slot
+        Thread first = new Thread(throttler::waitFor) ;
+        //Waits for the first one, until interrupted
+        Thread second = new Thread(() -> {
+            try {
+                throttler.waitFor();
+            } catch (RuntimeException e) {
+                gaveUp.set(true);
+            }
+        }) ;
+        //Waits for the second one, which means the first once it's interrupted
+        Thread third = new Thread(throttler::waitFor) ;
+        first.start();
+        Thread.sleep(20);
+        second.start();
+        Thread.sleep(20);
+        third.start();
+        Thread.sleep(20);
+        second.interrupt();
+
+        long start = System.currentTimeMillis() ;
+        third.join(2000);
+        first.join(2000);
+        assertTrue(gaveUp.get());
+        assertTrue(!third.isAlive());
+        //The first call took the slot at 200, so the third one took the one at 400
+        assertTrue(System.currentTimeMillis() - start >= 250);
+    }
+}
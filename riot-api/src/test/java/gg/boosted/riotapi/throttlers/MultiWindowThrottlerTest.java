@@ -0,0 +1,59 @@
+package gg.boosted.riotapi.throttlers;
+
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class MultiWindowThrottlerTest {
+
+    @Test
+    public void testParse() {
+        Map<Integer, Integer> parsed = MultiWindowThrottler.parse("20:1,100:120") ;
+        assertEquals(2, parsed.size());
+        assertEquals(20, (int)parsed.get(1));
+        assertEquals(100, (int)parsed.get(120));
+    }
+
+    @Test
+    public void testBurstWithinLimit() {
+        MultiWindowThrottler throttler = new MultiWindowThrottler(10, 500) ;
+        long start = System.currentTimeMillis() ;
+        for (int i = 0; i < 10; i++) {
+            throttler.waitFor("match/v3/matches");
+        }
+        assertTrue(System.currentTimeMillis() - start < 500);
+    }
+
+    @Test
+    public void testWindowDelay() {
+        MultiWindowThrottler.RateWindow window = new MultiWindowThrottler.RateWindow(2, 1) ;
+        window.record(1000);
+        window.record(1500);
+        assertEquals(0, window.delay(2000));
+        window.record(2000);
+        //The call at 1500 has to leave the window
+        assertEquals(500, window.delay(2000));
+    }
+
+    @Test
+    public void testHeadersTightenTheLimits() {
+        MultiWindowThrottler throttler = new MultiWindowThrottler(10, 500) ;
+        Map<String, String> headers = new HashMap<>() ;
+        headers.put(MultiWindowThrottler.METHOD_LIMIT_HEADER, "3:1") ;
+        headers.put(MultiWindowThrottler.METHOD_COUNT_HEADER, "3:1") ;
+        throttler.onResponse("match/v3/matches", headers::get);
+
+        long start = System.currentTimeMillis() ;
+        throttler.waitFor("match/v3/matches");
+        assertTrue(System.currentTimeMillis() - start >= 900);
+
+        //Other methods aren't affected
+        start = System.currentTimeMillis() ;
+        throttler.waitFor("summoner/v3/summoners");
+        assertTrue(System.currentTimeMillis() - start < 500);
+    }
+}
@@ -0,0 +1,79 @@
+package gg.boosted.riotapi.throttlers;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class PriorityThrottlerTest {
+
+    //Lets a call through every couple of millis
+    private static class SlowThrottler implements IThrottler {
+        final AtomicInteger inside = new AtomicInteger() ;
+        volatile boolean overlapped = false ;
+
+        @Override
+        public void waitFor() {
+            if (inside.incrementAndGet() > 1) {
+                overlapped = true ;
+            }
+            try {
+                Thread.sleep(2);
+            } catch (InterruptedException e) {
+                throw new RuntimeException(e) ;
+            } finally {
+                inside.decrementAndGet() ;
+            }
+        }
+
+        @Override
+        public void releaseLock(long lastTimeCalled) {
+        }
+    }
+
+    private int[] run(PriorityThrottler throttler, int total, Priority... callers) throws InterruptedException {
+        AtomicInteger calls = new AtomicInteger() ;
+        int[] counts = new int[Priority.values().length] ;
+        List<Thread> threads = new ArrayList<>() ;
+        for (Priority priority : callers) {
+            Thread thread = new Thread(() -> {
+                while (calls.incrementAndGet() <= total) {
+                    throttler.waitFor("match/v3/matches", priority);
+                    synchronized (counts) {
+                        counts[priority.ordinal()]++ ;
+                    }
+                }
+            }) ;
+            threads.add(thread) ;
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        return counts ;
+    }
+
+    @Test
+    public void testLanesShareByWeight() throws InterruptedException {
+        SlowThrottler slow = new SlowThrottler() ;
+        int[] counts = run(new PriorityThrottler(slow), 180,
+                Priority.INTERACTIVE, Priority.INTERACTIVE, Priority.CRAWL, Priority.CRAWL) ;
+        int interactive = counts[Priority.INTERACTIVE.ordinal()] ;
+        int crawl = counts[Priority.CRAWL.ordinal()] ;
+        assertEquals(180, interactive + crawl);
+        //8:1 when both are waiting, but the crawler isn't starved
+        assertTrue("crawl got " + crawl, crawl > 0);
+        assertTrue("interactive " + interactive + " crawl " + crawl, interactive >= 4 * crawl);
+        assertTrue(!slow.overlapped);
+    }
+
+    @Test
+    public void testLoneLaneGetsEverything() throws InterruptedException {
+        int[] counts = run(new PriorityThrottler(new SlowThrottler()), 50, Priority.CRAWL, Priority.CRAWL) ;
+        assertEquals(50, counts[Priority.CRAWL.ordinal()]);
+    }
+}
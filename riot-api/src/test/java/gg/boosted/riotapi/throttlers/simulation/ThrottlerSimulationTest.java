@@ -0,0 +1,42 @@
+package gg.boosted.riotapi.throttlers.simulation;
+
+import gg.boosted.riotapi.Platform;
+import gg.boosted.riotapi.throttlers.DistributedThrottler;
+import gg.boosted.riotapi.throttlers.SimpleThrottler;
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class ThrottlerSimulationTest {
+
+    private ThrottlerSimulation crawlers() {
+        return new ThrottlerSimulation()
+                .setProcesses(3, 3)
+                .setLatency(100, 100)
+                .setDuration(2, TimeUnit.MINUTES) ;
+    }
+
+    @Test
+    public void testDistributedThrottlerKeepsAllProcessesUnderTheLimit() throws InterruptedException {
+        SimulationReport report = crawlers().run((clock, store) -> new DistributedThrottler(10, 500, Platform.EUW1, store, clock)) ;
+        assertEquals(report.toString(), 0, report.violations);
+        assertTrue(report.toString(), report.calls >= 0.95 * report.allowed);
+    }
+
+    @Test
+    public void testIndependentThrottlersBreakTheLimit() throws InterruptedException {
+        SimulationReport report = crawlers().run((clock, store) -> new SimpleThrottler(10, 500, clock)) ;
+        assertTrue(report.toString(), report.violations > 0);
+    }
+
+    @Test
+    public void testSameSeedSameReport() throws InterruptedException {
+        ThrottlerSimulation simulation = crawlers().setLatency(50, 150).setSeed(17) ;
+        ThrottlerSimulation.ThrottlerFactory factory = (clock, store) ->
+                new DistributedThrottler(10, 500, Platform.EUW1, store, clock).setLeaseSize(3).setAdaptive(true) ;
+        assertEquals(simulation.run(factory).toString(), simulation.run(factory).toString());
+    }
+}
@@ -0,0 +1,94 @@
+package gg.boosted.riotapi.transport;
+
+import gg.boosted.riotapi.Platform;
+import gg.boosted.riotapi.RiotApi;
+import gg.boosted.riotapi.metrics.ApiMetrics;
+import gg.boosted.riotapi.throttlers.SimpleThrottler;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+public class ReplayTransportTest {
+
+    static final String MATCH = "https://euw1.api.riotgames.com/lol/match/v3/matches/" ;
+
+    Path recording ;
+
+    @Before
+    public void before() throws IOException {
+        recording = Files.createTempDirectory("replay-test").resolve("recording.jsonl") ;
+
+        //Record a few matches through a fake "riot"
+        Transport riot = new Transport() {
+            @Override
+            public TransportResponse get(String url, Map<String, String> headers) {
+                Map<String, String> responseHeaders = new HashMap<>() ;
+                responseHeaders.put("Content-Type", "application/json") ;
+                String body = "{\"gameId\":" + url.substring(url.lastIndexOf('/') + 1) + "}" ;
+                return new TransportResponse(200, "OK", responseHeaders, new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8))) ;
+            }
+
+            @Override
+            public java.util.concurrent.CompletableFuture<TransportResponse> getAsync(String url, Map<String, String> headers) {
+                throw new UnsupportedOperationException() ;
+            }
+        } ;
+        RecordingTransport recorder = new RecordingTransport(riot, recording) ;
+        for (int i = 1; i <= 3; i++) {
+            try (TransportResponse response = recorder.get(MATCH + i, Collections.emptyMap())) {
+                assertEquals("{\"gameId\":" + i + "}", new String(response.readBody(), StandardCharsets.UTF_8));
+            }
+        }
+        recorder.close();
+    }
+
+    @Test
+    public void testReplay() throws IOException {
+        ReplayTransport replay = new ReplayTransport(recording) ;
+        try (TransportResponse response = replay.get(MATCH + 2, Collections.emptyMap())) {
+            assertEquals(200, response.getStatus());
+            assertEquals("application/json", response.getHeader("content-type"));
+            assertEquals("{\"gameId\":2}", new String(response.readBody(), StandardCharsets.UTF_8));
+        }
+        try (TransportResponse response = replay.get(MATCH + 4, Collections.emptyMap())) {
+            assertEquals(404, response.getStatus());
+        }
+        assertEquals(1, replay.getServed());
+        assertEquals(1, replay.getNotFound());
+    }
+
+    @Test
+    public void testRateLimit() throws IOException {
+        ReplayTransport replay = new ReplayTransport(recording).setRateLimit(2, 10) ;
+        assertEquals(200, replay.get(MATCH + 1, Collections.emptyMap()).getStatus());
+        TransportResponse second = replay.get(MATCH + 1, Collections.emptyMap()) ;
+        assertEquals("2:10", second.getHeader("X-App-Rate-Limit-Count"));
+        TransportResponse third = replay.get(MATCH + 1, Collections.emptyMap()) ;
+        assertEquals(429, third.getStatus());
+        assertNotNull(third.getHeader("Retry-After"));
+    }
+
+    @Test
+    public void testRiotApiRetriesOnReplayedThrottling() throws IOException {
+        ReplayTransport replay = new ReplayTransport(recording).setRateLimit(2, 1) ;
+        RiotApi api = new RiotApi(Platform.EUW1, replay) ;
+        api.setThrottler(new SimpleThrottler(100, 100000));
+        for (int i = 1; i <= 3; i++) {
+            assertEquals("{\"gameId\":" + i + "}", new String(api.getMatchBytes(i), StandardCharsets.UTF_8));
+        }
+        assertEquals(3, replay.getServed());
+        assertEquals(1, replay.getThrottled());
+        assertTrue(ApiMetrics.get().getCount(ApiMetrics.RATE_LIMITED, Platform.EUW1, "match/v3/matches") >= 1);
+        assertTrue(ApiMetrics.get().histogram(ApiMetrics.NETWORK, Platform.EUW1, "match/v3/matches").getCount() >= 4);
+    }
+}